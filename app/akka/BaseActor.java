@@ -1,14 +1,19 @@
 package akka;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import com.google.inject.Provider;
 
 import akka.actor.ActorPath;
 import akka.actor.UntypedAbstractActor;
+import akka.metrics.ActorMetrics;
 import modules.registry.IRegistry;
 import modules.registry.RegistryGlobal;
 import play.Logger;
@@ -21,7 +26,27 @@ import play.Logger;
  */
 public class BaseActor extends UntypedAbstractActor {
 
-    protected Map<Class<?>, Consumer<?>> messageHandler = new ConcurrentHashMap<>();
+    /**
+     * Registered message handlers, in registration order. Only accessed from within the actor
+     * (see {@link #addMessageHandler(Class, Consumer)}).
+     */
+    protected Map<Class<?>, Consumer<?>> messageHandler = new LinkedHashMap<>();
+
+    /**
+     * Resolved handler chain per concrete message class (actor-confined).
+     */
+    @SuppressWarnings("rawtypes")
+    private final Map<Class<?>, Consumer[]> resolvedHandlers = new HashMap<>();
+
+    @SuppressWarnings("rawtypes")
+    private final static Consumer[] NO_HANDLER = new Consumer[0];
+
+    /**
+     * Actor's instrumentation, {@code null} if disabled (see {@link ActorMetrics}).
+     */
+    private ActorMetrics metrics;
+    /* the actor instance is being replaced by a restart (metrics are kept for the new one) */
+    private boolean restarting;
     protected Provider<IRegistry> registryProvider;
     protected IRegistry registry;
 
@@ -61,11 +86,50 @@ public class BaseActor extends UntypedAbstractActor {
         return self().path();
     }
 
+    /**
+     * Register a message handler. Should be called from within the actor (e.g. in
+     * {@link #initActor()}).
+     *
+     * @param clazz
+     * @param consumer
+     * @return
+     */
     protected <T> BaseActor addMessageHandler(Class<T> clazz, Consumer<T> consumer) {
         messageHandler.put(clazz, consumer);
+        resolvedHandlers.clear();
         return this;
     }
 
+    /**
+     * Resolve handlers for a message class: the handler registered for the exact class if any,
+     * otherwise all handlers registered for its super-classes/interfaces, in registration order.
+     *
+     * @param msgClazz
+     * @return
+     * @since template-v2.6.r2
+     */
+    @SuppressWarnings("rawtypes")
+    protected Consumer[] resolveMessageHandlers(Class<?> msgClazz) {
+        Consumer[] handlers = resolvedHandlers.get(msgClazz);
+        if (handlers == null) {
+            Consumer<?> exactConsumer = messageHandler.get(msgClazz);
+            if (exactConsumer != null) {
+                handlers = new Consumer[] { exactConsumer };
+            } else {
+                List<Consumer<?>> matched = new ArrayList<>();
+                messageHandler.forEach((clazz, consumer) -> {
+                    // match interface/sub-class
+                    if (clazz.isAssignableFrom(msgClazz)) {
+                        matched.add(consumer);
+                    }
+                });
+                handlers = matched.isEmpty() ? NO_HANDLER : matched.toArray(NO_HANDLER);
+            }
+            resolvedHandlers.put(msgClazz, handlers);
+        }
+        return handlers;
+    }
+
     /**
      * Message channels that the actor are subscribed to.
      * 
@@ -104,6 +168,10 @@ public class BaseActor extends UntypedAbstractActor {
      */
     @Override
     public void preStart() throws Exception {
+        if (ActorMetrics.isEnabled()) {
+            metrics = ActorMetrics.getOrCreate(getActorPath().toString());
+        }
+
         initActor();
 
         super.preStart();
@@ -120,9 +188,25 @@ public class BaseActor extends UntypedAbstractActor {
             Logger.warn("{" + getActorPath() + "} " + e.getMessage(), e);
         }
 
+        if (!restarting) {
+            // the mailbox survives restarts and keeps recording to the same metrics
+            ActorMetrics.remove(getActorPath().toString());
+        }
+
         super.postStop();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since template-v2.6.r2
+     */
+    @Override
+    public void preRestart(Throwable reason, Optional<Object> message) throws Exception {
+        restarting = true;
+        super.preRestart(reason, message);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -132,24 +216,16 @@ public class BaseActor extends UntypedAbstractActor {
         if (message == null) {
             return;
         }
-        // AtomicBoolean handled = new AtomicBoolean(false);
-        Class msgClazz = message.getClass();
-        Consumer exactConsumer = messageHandler.get(msgClazz);
-        if (exactConsumer != null) {
-            // exact match
-            exactConsumer.accept(message);
-            // handled.set(true);
-        } else {
-            messageHandler.forEach((Class clazz, Consumer consumer) -> {
-                // match interface/sub-class
-                if (clazz.isAssignableFrom(msgClazz)) {
-                    consumer.accept(message);
-                    // handled.set(true);
-                }
-            });
+        long startNanos = metrics != null ? System.nanoTime() : 0;
+        Consumer[] handlers = resolveMessageHandlers(message.getClass());
+        for (Consumer consumer : handlers) {
+            consumer.accept(message);
+        }
+        if (metrics != null) {
+            metrics.recordMessage(System.nanoTime() - startNanos);
         }
 
-        // if (!handled.get()) {
+        // if (handlers.length == 0) {
         // Logger.warn("{" + getActorPath() + "} Unhandle message: " + message);
         // unhandled(message);
         // }
@@ -1,6 +1,7 @@
 package akka;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -11,50 +12,89 @@ import utils.IdUtils;
 
 /**
  * A message that encapsulates a "tick".
- * 
+ *
+ * <p>
+ * Ticks are fired every second on every node, hence the message is kept lean: a 64-bit id, the
+ * fire time, an (interned) sender name and tags that are only allocated when first added. On the
+ * cluster path, ticks are serialized by
+ * {@link akka.cluster.serialization.ClusterMessageSerializer}.
+ * </p>
+ *
  * @author Thanh Nguyen <btnguyen2k@gmail.com>
  * @since template-v0.1.2
  */
 public class TickMessage implements Serializable {
 
-    private static final long serialVersionUID = "template-v0.1.2".hashCode();
+    private static final long serialVersionUID = "template-v2.6.r2".hashCode();
 
     /**
      * "Tick"'s unique id.
      */
-    public final String id;
+    public final long id;
 
     /**
      * "Tick's" timestamp (UNIX timestamp, in milliseconds) when the tick is
      * fired.
      */
-    public final long timestampMs = System.currentTimeMillis();
+    public final long timestampMs;
 
-    public final Map<String, Object> tags = new HashMap<>();
+    /**
+     * Name of the tick's sender (interned), may be {@code null}.
+     *
+     * @since template-v2.6.r2
+     */
+    public final String sender;
+
+    private Map<String, Object> tags;
 
     public TickMessage() {
-        id = IdUtils.nextId();
+        this(System.currentTimeMillis());
     }
 
-    public TickMessage(Map<String, Object> tags) {
-        this();
-        if (tags != null) {
-            this.tags.putAll(tags);
-        }
+    /**
+     * Create a "tick" that fires at a specific time.
+     *
+     * @param timestampMs
+     * @since template-v2.6.r2
+     */
+    public TickMessage(long timestampMs) {
+        this(timestampMs, null);
     }
 
-    public TickMessage(String id) {
-        this.id = id;
+    /**
+     * Create a "tick" that fires at a specific time.
+     *
+     * @param timestampMs
+     * @param sender
+     * @since template-v2.6.r2
+     */
+    public TickMessage(long timestampMs, String sender) {
+        this(IdUtils.nextIdAsLong(), timestampMs, sender, null);
     }
 
-    public TickMessage(String id, Map<String, Object> tags) {
-        this(id);
-        if (tags != null) {
-            this.tags.putAll(tags);
+    /**
+     * Create a "tick" with all its attributes (e.g. when deserializing).
+     *
+     * @param id
+     * @param timestampMs
+     * @param sender
+     * @param tags
+     * @since template-v2.6.r2
+     */
+    public TickMessage(long id, long timestampMs, String sender, Map<String, Object> tags) {
+        this.id = id;
+        this.timestampMs = timestampMs;
+        this.sender = sender != null ? sender.intern() : null;
+        if (tags != null && tags.size() > 0) {
+            this.tags = new HashMap<>(tags);
         }
     }
 
-    public String getId() {
+    public TickMessage(Map<String, Object> tags) {
+        this(IdUtils.nextIdAsLong(), System.currentTimeMillis(), null, tags);
+    }
+
+    public long getId() {
         return this.id;
     }
 
@@ -62,25 +102,52 @@ public class TickMessage implements Serializable {
         return this.timestampMs;
     }
 
+    /**
+     * @return
+     * @since template-v2.6.r2
+     */
+    public String getSender() {
+        return this.sender;
+    }
+
+    /**
+     * Get the tick's tags (read-only).
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    public Map<String, Object> getTags() {
+        return tags != null ? Collections.unmodifiableMap(tags) : Collections.emptyMap();
+    }
+
+    /**
+     * Get a tag's value.
+     *
+     * @param name
+     * @return
+     * @since template-v2.6.r2
+     */
+    public Object getTag(String name) {
+        return tags != null ? tags.get(name) : null;
+    }
+
     public TickMessage addTag(String name, Object value) {
+        if (tags == null) {
+            tags = new HashMap<>();
+        }
         tags.put(name, value);
         return this;
     }
 
-    // private String toString;
-
     /**
      * {@inheritDoc}
      */
     @Override
     public String toString() {
-        // if (toString == null) {
         ToStringBuilder tsb = new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE);
-        tsb.append("id", id).append("timestamp", timestampMs).append("tags", tags);
-        // toString = tsb.toString();
+        tsb.append("id", id).append("timestamp", timestampMs).append("sender", sender)
+                .append("tags", getTags());
         return tsb.toString();
-        // }
-        // return toString;
     }
 
 }
@@ -1,30 +1,47 @@
 package akka.cluster;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.StringUtils;
 
 import com.google.inject.Provider;
+import com.typesafe.config.Config;
 
 import akka.BaseActor;
+import akka.actor.ActorPath;
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
+import akka.actor.Cancellable;
 import akka.cluster.DistributedDataManager.DDGetResult;
 import akka.cluster.DistributedDataManager.DDLock;
 import akka.cluster.DistributedDataManager.DDTags;
 import akka.cluster.ddata.DistributedData;
 import akka.cluster.ddata.Key;
+import akka.cluster.ddata.LWWRegister;
+import akka.cluster.ddata.LWWRegisterKey;
 import akka.cluster.ddata.ORMultiMap;
 import akka.cluster.ddata.ORMultiMapKey;
+import akka.cluster.ddata.ORSet;
+import akka.cluster.ddata.ORSetKey;
+import akka.cluster.ddata.PNCounter;
+import akka.cluster.ddata.PNCounterKey;
+import akka.cluster.ddata.ReplicatedData;
 import akka.cluster.ddata.Replicator;
 import akka.cluster.ddata.Replicator.ReadConsistency;
 import akka.cluster.pubsub.DistributedPubSub;
 import akka.cluster.pubsub.DistributedPubSubMediator;
+import akka.pattern.PatternsCS;
 import modules.registry.IRegistry;
 import play.Logger;
 import scala.concurrent.duration.Duration;
@@ -59,6 +76,16 @@ public class BaseClusterActor extends BaseActor {
     protected Key<ORMultiMap<String, Object>> dataKey = ORMultiMapKey
             .create(getClass().getSimpleName());
 
+    /**
+     * Name of the configuration that specifies the number of top-level keys distributed data is
+     * sharded onto (see {@link #getDDNumShards()}).
+     *
+     * @since template-v2.6.r2
+     */
+    public final static String CONF_DD_NUM_SHARDS = "akka.distributed-data-shards";
+
+    private volatile List<Key<ORMultiMap<String, Object>>> dataKeys;
+
     protected Replicator.WriteConsistency writeConsistency = new Replicator.WriteMajority(
             Duration.create(5, TimeUnit.SECONDS));
     protected Replicator.ReadConsistency readConsistency = new Replicator.ReadMajority(
@@ -83,6 +110,51 @@ public class BaseClusterActor extends BaseActor {
         super(registry);
     }
 
+    /**
+     * Number of top-level {@link ORMultiMap} keys the actor's distributed data is sharded onto.
+     * Each logical key lives in one of them, so an update only gossips and merges its own shard.
+     *
+     * <p>
+     * Default value is read from configuration {@value #CONF_DD_NUM_SHARDS} ({@code 1} if not
+     * configured, i.e. a single top-level key {@link #dataKey}). All nodes must use the same
+     * value.
+     * </p>
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected int getDDNumShards() {
+        Config config = getCluster().system().settings().config();
+        return config.hasPath(CONF_DD_NUM_SHARDS) ? Math.max(1, config.getInt(CONF_DD_NUM_SHARDS))
+                : 1;
+    }
+
+    /**
+     * Get the top-level key that holds a logical key.
+     *
+     * @param key
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected Key<ORMultiMap<String, Object>> ddKeyFor(String key) {
+        List<Key<ORMultiMap<String, Object>>> keys = dataKeys;
+        if (keys == null) {
+            int numShards = getDDNumShards();
+            keys = new ArrayList<>(numShards);
+            if (numShards == 1) {
+                keys.add(dataKey);
+            } else {
+                for (int i = 0; i < numShards; i++) {
+                    keys.add(ORMultiMapKey.create(dataKey.id() + "-" + i));
+                }
+            }
+            dataKeys = keys;
+        }
+        int size = keys.size();
+        return size == 1 || key == null ? keys.get(0)
+                : keys.get((key.hashCode() & Integer.MAX_VALUE) % size);
+    }
+
     private static boolean containsOrExpires(scala.collection.Set<Object> set,
             DistributedDataManager.DDLock lock) {
         if (set.contains(lock)) {
@@ -104,68 +176,111 @@ public class BaseClusterActor extends BaseActor {
     }
 
     /**
-     * Lock an object specified by {@code key}.
-     * 
+     * Lock an object specified by {@code key}, asynchronously.
+     *
      * <p>
      * Note: lock is reentrant!
      * </p>
-     * 
+     *
      * <p>
      * Note: This feature is experimental! The lock is considered "weak".
      * </p>
-     * 
+     *
+     * @param key
      * @param lockId
-     * @return
+     * @param lockTimeout
+     * @param lockTimeoutUnit
+     * @return completes with {@code true} if the lock is acquired
+     * @since template-v2.6.r2
      */
-    protected boolean ddLock(String key, String lockId, long lockTimeout,
+    protected CompletionStage<Boolean> ddLockAsync(String key, String lockId, long lockTimeout,
             TimeUnit lockTimeoutUnit) {
         DDLock lock = new DDLock(lockId, lockTimeout, lockTimeoutUnit);
         DDTags tags = new DDTags(IdUtils.nextIdAsLong(), key);
-        Replicator.Update<ORMultiMap<String, Object>> update = new Replicator.Update<>(dataKey,
-                ORMultiMap.create(), lockWriteConsistency, Optional.of(tags), curr -> {
+        Replicator.Update<ORMultiMap<String, Object>> update = new Replicator.Update<>(
+                ddKeyFor(key), ORMultiMap.create(), lockWriteConsistency, Optional.of(tags),
+                curr -> {
                     if (!curr.contains(key) || containsOrExpires(curr.get(key).get(), lock)) {
                         // if lock does not exist or contains myself, or current lock expires
                         return curr.put(getCluster(), key, Collections.singleton(lock));
                     }
                     return curr;
                 });
-        replicator.tell(update, self());
-        DDGetResult getResult = ddGet(tags, lockReadConsistency, defaultDDGetTimeoutMs,
-                TimeUnit.MILLISECONDS);
-        boolean result = getResult != null && getResult.valueContains(lock);
-        return result;
+        return ddUpdateAsync(update, defaultDDGetTimeoutMs)
+                .thenCompose(updateResponse -> ddGetAsync(tags, lockReadConsistency,
+                        defaultDDGetTimeoutMs))
+                .thenApply(getResult -> getResult.valueContains(lock));
     }
 
     /**
-     * Unlock an object specified by {@code key}.
+     * Lock an object specified by {@code key}.
+     * 
+     * <p>
+     * Note: lock is reentrant!
+     * </p>
      * 
      * <p>
      * Note: This feature is experimental! The lock is considered "weak".
      * </p>
      * 
-     * @param key
      * @param lockId
      * @return
+     * @see #ddLockAsync(String, String, long, TimeUnit)
      */
-    protected boolean ddUnlock(String key, String lockId) {
+    protected boolean ddLock(String key, String lockId, long lockTimeout,
+            TimeUnit lockTimeoutUnit) {
+        return ddLockAsync(key, lockId, lockTimeout, lockTimeoutUnit).toCompletableFuture().join();
+    }
+
+    /**
+     * Unlock an object specified by {@code key}, asynchronously.
+     *
+     * <p>
+     * Note: This feature is experimental! The lock is considered "weak".
+     * </p>
+     *
+     * @param key
+     * @param lockId
+     * @return completes with {@code true} if the lock is released
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<Boolean> ddUnlockAsync(String key, String lockId) {
         DDLock lock = new DDLock(lockId);
         DDTags tags = new DDTags(IdUtils.nextIdAsLong(), key);
-        Replicator.Update<ORMultiMap<String, Object>> update = new Replicator.Update<>(dataKey,
-                ORMultiMap.create(), lockWriteConsistency, Optional.of(tags), curr -> {
+        Replicator.Update<ORMultiMap<String, Object>> update = new Replicator.Update<>(
+                ddKeyFor(key), ORMultiMap.create(), lockWriteConsistency, Optional.of(tags),
+                curr -> {
                     return curr.contains(key) && containsOrExpires(curr.get(key).get(), lock)
                             ? curr.remove(getCluster(), key) : curr;
                 });
-        replicator.tell(update, self());
-        DDGetResult getResult = ddGet(tags, lockReadConsistency, defaultDDGetTimeoutMs,
-                TimeUnit.MILLISECONDS);
-        boolean result = getResult != null && (getResult.isNotFound() || getResult.isNullOrEmpty());
-        return result;
+        return ddUpdateAsync(update, defaultDDGetTimeoutMs)
+                .thenCompose(updateResponse -> ddGetAsync(tags, lockReadConsistency,
+                        defaultDDGetTimeoutMs))
+                .thenApply(getResult -> !getResult.isError()
+                        && (getResult.isNotFound() || getResult.isNullOrEmpty()));
+    }
+
+    /**
+     * Unlock an object specified by {@code key}.
+     * 
+     * <p>
+     * Note: This feature is experimental! The lock is considered "weak".
+     * </p>
+     * 
+     * @param key
+     * @param lockId
+     * @return
+     * @see #ddUnlockAsync(String, String)
+     */
+    protected boolean ddUnlock(String key, String lockId) {
+        return ddUnlockAsync(key, lockId).toCompletableFuture().join();
     }
 
     protected void ddDelete(DDTags tags) {
         replicator.tell(
-                new Replicator.Update<>(dataKey, ORMultiMap.create(), writeConsistency,
-                        Optional.of(tags), curr -> curr.remove(getCluster(), tags.getKey())),
+                new Replicator.Update<>(ddKeyFor(tags.getKey()), ORMultiMap.create(),
+                        writeConsistency, Optional.of(tags),
+                        curr -> curr.remove(getCluster(), tags.getKey())),
                 self());
     }
 
@@ -178,7 +293,7 @@ public class BaseClusterActor extends BaseActor {
 
     protected void ddSet(DDTags tags, Object value) {
         replicator.tell(
-                new Replicator.Update<>(dataKey,
+                new Replicator.Update<>(ddKeyFor(tags.getKey()),
                         ORMultiMap.create(), writeConsistency, Optional.of(tags), curr -> curr
                                 .put(getCluster(), tags.getKey(), Collections.singleton(value))),
                 self());
@@ -194,9 +309,116 @@ public class BaseClusterActor extends BaseActor {
         ddSet(new DDTags(IdUtils.nextIdAsLong(), key), value);
     }
 
+    /**
+     * Send an update to the replicator and wait for its response, asynchronously.
+     *
+     * @param update
+     * @param timeoutMs
+     * @return completes with the replicator's response ({@link Replicator.UpdateSuccess},
+     *         {@link Replicator.UpdateTimeout}...), or {@code null} if no response within
+     *         {@code timeoutMs}
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<Object> ddUpdateAsync(Replicator.Update<?> update, long timeoutMs) {
+        return PatternsCS.ask(replicator, update, timeoutMs).exceptionally(e -> {
+            Logger.warn("{" + getActorPath() + "} No response for DD-update of " + update.key()
+                    + ": " + e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Get a value from distributed-data storage by key, asynchronously.
+     *
+     * @param key
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<DDGetResult> ddGetAsync(String key) {
+        return ddGetAsync(key, defaultDDGetTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get a value from distributed-data storage by key, asynchronously.
+     *
+     * <p>
+     * The returned stage never completes exceptionally: errors and timeouts complete it with a
+     * {@link DDGetResult#isError()} result.
+     * </p>
+     *
+     * @param key
+     * @param timeout
+     * @param timeoutUnit
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<DDGetResult> ddGetAsync(String key, long timeout,
+            TimeUnit timeoutUnit) {
+        return ddGetAsync(new DDTags(IdUtils.nextIdAsLong(), key), readConsistency,
+                timeoutUnit.toMillis(timeout));
+    }
+
+    private CompletionStage<DDGetResult> ddGetAsync(DDTags tags, ReadConsistency readConsistency,
+            long timeoutMs) {
+        long id = tags.getId();
+        CompletableFuture<DDGetResult> future = DistributedDataManager.registerRequest(id);
+        if (future == null) {
+            Logger.warn("{" + getActorPath() + "} Too many pending DD-get requests, rejected ["
+                    + tags.getKey() + "].");
+            return CompletableFuture.completedFuture(DDGetResult.error(id, tags.getKey()));
+        }
+        ActorSystem system = getCluster().system();
+        ActorPath actorPath = getActorPath();
+        // responses go to the shared responder, which completes the future
+        replicator.tell(
+                new Replicator.Get<>(ddKeyFor(tags.getKey()), readConsistency, Optional.of(tags)),
+                DistributedDataManager.getResponder(system));
+        Cancellable timeout = system.scheduler()
+                .scheduleOnce(Duration.create(timeoutMs, TimeUnit.MILLISECONDS), () -> {
+                    CompletableFuture<DDGetResult> pending = DistributedDataManager
+                            .removeRequest(id);
+                    if (pending != null) {
+                        Logger.warn("{" + actorPath + "} No response for DD-get ["
+                                + tags.getKey() + "] within " + timeoutMs + "ms.");
+                        pending.complete(DDGetResult.error(id, tags.getKey()));
+                    }
+                }, system.dispatcher());
+        future.thenRun(timeout::cancel);
+        return future;
+    }
+
+    /**
+     * Convert a replicator's get-response to {@link DDGetResult}.
+     *
+     * @param tags
+     * @param response
+     * @return
+     * @since template-v2.6.r2
+     */
+    @SuppressWarnings("unchecked")
+    protected static DDGetResult toDDGetResult(DDTags tags, Object response) {
+        if (response instanceof Replicator.GetSuccess) {
+            Object dataValue = ((Replicator.GetSuccess<?>) response).dataValue();
+            ORMultiMap<String, Object> data = dataValue instanceof ORMultiMap
+                    ? (ORMultiMap<String, Object>) dataValue : ORMultiMap.create();
+            Set<Object> value = data.getEntries().get(tags.getKey());
+            return DDGetResult.ok(tags.getId(), tags.getKey(), value);
+        }
+        if (response instanceof Replicator.NotFound
+                || response instanceof Replicator.DeleteSuccess) {
+            return DDGetResult.notFound(tags.getId(), tags.getKey());
+        }
+        return DDGetResult.error(tags.getId(), tags.getKey());
+    }
+
     /**
      * Get a value from distributed-data storage by key.
      * 
+     * <p>
+     * Blocks the calling thread until the result is available, prefer
+     * {@link #ddGetAsync(String)}.
+     * </p>
+     * 
      * @param key
      * @return
      */
@@ -207,27 +429,375 @@ public class BaseClusterActor extends BaseActor {
     /**
      * Get a value from distributed-data storage by key.
      * 
+     * <p>
+     * Blocks the calling thread until the result is available, prefer
+     * {@link #ddGetAsync(String, long, TimeUnit)}.
+     * </p>
+     * 
      * @param key
      * @param timeout
      * @param timeoutUnit
      * @return
      */
     protected DDGetResult ddGet(String key, long timeout, TimeUnit timeoutUnit) {
-        return ddGet(new DDTags(IdUtils.nextIdAsLong(), key), readConsistency, timeout,
-                timeoutUnit);
+        return ddGetAsync(key, timeout, timeoutUnit).toCompletableFuture().join();
     }
 
-    private DDGetResult ddGet(DDTags tags, ReadConsistency readConsistency, long timeout,
-            TimeUnit timeoutUnit) {
-        getRegistry().getDefaultExecutionContextExecutor().execute(() -> replicator
-                .tell(new Replicator.Get<>(dataKey, readConsistency, Optional.of(tags)), self()));
-        long expiry = System.currentTimeMillis() + timeoutUnit.toMillis(timeout);
-        DDGetResult result = DistributedDataManager.getResponse(tags.getId());
-        while (result == null && System.currentTimeMillis() <= expiry) {
-            LockSupport.parkNanos(1000);
-            result = DistributedDataManager.getResponse(tags.getId());
+    /*----------------------------------------------------------------------*/
+    /*
+     * Typed distributed data: each logical key is a top-level CRDT of its own, so updating a hot
+     * key only replicates that key (as a delta when the type supports it).
+     */
+
+    /**
+     * Timeout of typed distributed-data reads/writes with {@link DDConsistency#MAJORITY} or
+     * {@link DDConsistency#ALL} consistency.
+     *
+     * @since template-v2.6.r2
+     */
+    protected long ddTypedTimeoutMs = 5000;
+
+    /**
+     * Consistency of typed distributed-data reads/writes of a key, when not specified per call.
+     * Default is {@link DDConsistency#MAJORITY}.
+     *
+     * @param key
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected DDConsistency getDDConsistency(String key) {
+        return DDConsistency.MAJORITY;
+    }
+
+    protected Key<LWWRegister<Object>> ddRegisterKey(String key) {
+        return LWWRegisterKey.create(dataKey.id() + ":reg:" + key);
+    }
+
+    protected Key<PNCounter> ddCounterKey(String key) {
+        return PNCounterKey.create(dataKey.id() + ":cnt:" + key);
+    }
+
+    protected Key<ORSet<Object>> ddORSetKey(String key) {
+        return ORSetKey.create(dataKey.id() + ":set:" + key);
+    }
+
+    /*
+     * Near-cache: latest local value of subscribed keys, kept up to date by the replicator's
+     * Changed notifications. Read from any thread.
+     *
+     * Notifications and refreshes may complete out of order: new values are merged into the
+     * cached one (CRDT merge is commutative and idempotent), so an older value never replaces a
+     * newer one.
+     */
+    private final Map<Key<?>, ReplicatedData> ddNearCache = new ConcurrentHashMap<>();
+
+    /**
+     * Keep the latest local value of a key in memory: {@link DDConsistency#LOCAL} reads of the key
+     * are then served from memory, without asking the replicator. Should be called from within
+     * the actor (e.g. in {@link #initActor()}).
+     *
+     * <p>
+     * Subscribed values are refreshed when the replicator notifies changes (see
+     * {@code akka.cluster.distributed-data.notify-subscribers-interval}), and right after this
+     * actor's own writes.
+     * </p>
+     *
+     * @param key
+     * @since template-v2.6.r2
+     */
+    protected <T extends ReplicatedData> void ddNearCache(Key<T> key) {
+        replicator.tell(new Replicator.Subscribe<>(key, self()), self());
+        ddRefreshNearCache(key);
+    }
+
+    /**
+     * Get the near-cached value of a key.
+     *
+     * @param key
+     * @return {@code null} if the key is not near-cached (see {@link #ddNearCache(Key)}) or has
+     *         no value yet
+     * @since template-v2.6.r2
+     */
+    @SuppressWarnings("unchecked")
+    protected <T extends ReplicatedData> T ddNearCacheGet(Key<T> key) {
+        ReplicatedData data = ddNearCache.get(key);
+        return data != null && data != NEAR_CACHE_EMPTY ? (T) data : null;
+    }
+
+    /*
+     * Placeholder for a subscribed key without value.
+     */
+    private final static ReplicatedData NEAR_CACHE_EMPTY = PNCounter.create();
+
+    private static ReplicatedData ddNearCacheMerge(ReplicatedData cached, ReplicatedData value) {
+        return cached == NEAR_CACHE_EMPTY ? value : cached.merge(value);
+    }
+
+    private <T extends ReplicatedData> void ddRefreshNearCache(Key<T> key) {
+        ddNearCache.putIfAbsent(key, NEAR_CACHE_EMPTY);
+        PatternsCS.ask(replicator, new Replicator.Get<>(key, Replicator.readLocal()),
+                ddTypedTimeoutMs).thenAccept(response -> {
+                    if (response instanceof Replicator.GetSuccess) {
+                        ReplicatedData value = ((Replicator.GetSuccess<?>) response).dataValue();
+                        ddNearCache.computeIfPresent(key, (k, v) -> ddNearCacheMerge(v, value));
+                    }
+                });
+    }
+
+    /**
+     * Called when the replicator notifies a change of a subscribed key. Sub-classes that subscribe
+     * to keys themselves override this method, and must call {@code super.onDDChanged(msg)}
+     * (instead of registering their own {@code Replicator.Changed} handler) to keep the
+     * near-cache up to date.
+     *
+     * @param msg
+     * @since template-v2.6.r2
+     */
+    protected void onDDChanged(Replicator.Changed<?> msg) {
+        ReplicatedData value = msg.dataValue();
+        ddNearCache.computeIfPresent(msg.key(), (k, v) -> ddNearCacheMerge(v, value));
+    }
+
+    private <T extends ReplicatedData> CompletionStage<Boolean> ddTypedUpdate(Key<T> key,
+            T initial, DDConsistency consistency, Function<T, T> modify) {
+        return ddUpdateAsync(new Replicator.Update<>(key, initial,
+                consistency.toWriteConsistency(ddTypedTimeoutMs), modify), ddTypedTimeoutMs + 1000)
+                        .thenApply(response -> {
+                            if (ddNearCache.containsKey(key)) {
+                                ddRefreshNearCache(key);
+                            }
+                            return response instanceof Replicator.UpdateSuccess;
+                        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends ReplicatedData, R> CompletionStage<R> ddTypedGet(Key<T> key,
+            DDConsistency consistency, Function<T, R> extractor, R defaultValue) {
+        if (consistency == DDConsistency.LOCAL) {
+            ReplicatedData cached = ddNearCache.get(key);
+            if (cached == NEAR_CACHE_EMPTY) {
+                return CompletableFuture.completedFuture(defaultValue);
+            }
+            if (cached != null) {
+                return CompletableFuture.completedFuture(extractor.apply((T) cached));
+            }
         }
-        return result != null ? result : null;
+        return PatternsCS
+                .ask(replicator,
+                        new Replicator.Get<>(key, consistency.toReadConsistency(ddTypedTimeoutMs)),
+                        ddTypedTimeoutMs + 1000)
+                .thenApply(response -> response instanceof Replicator.GetSuccess
+                        ? extractor.apply(((Replicator.GetSuccess<T>) response).dataValue())
+                        : defaultValue)
+                .exceptionally(e -> {
+                    Logger.warn("{" + getActorPath() + "} No response for DD-get " + key + ": "
+                            + e.getMessage());
+                    return defaultValue;
+                });
+    }
+
+    /**
+     * Put a single value to a last-writer-wins register ({@link LWWRegister}).
+     *
+     * @param key
+     * @param value
+     * @return completes with {@code true} if the write succeeded with the requested consistency
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<Boolean> ddRegisterPut(String key, Object value) {
+        return ddRegisterPut(key, value, getDDConsistency(key));
+    }
+
+    /**
+     * Put a single value to a last-writer-wins register ({@link LWWRegister}).
+     *
+     * @param key
+     * @param value
+     * @param consistency
+     * @return completes with {@code true} if the write succeeded with the requested consistency
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<Boolean> ddRegisterPut(String key, Object value,
+            DDConsistency consistency) {
+        Cluster node = getCluster();
+        return ddTypedUpdate(ddRegisterKey(key), LWWRegister.create(node, value), consistency,
+                curr -> curr.withValue(node, value));
+    }
+
+    /**
+     * Get value of a last-writer-wins register.
+     *
+     * @param key
+     * @return completes with {@code null} if not found
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<Object> ddRegisterGetAsync(String key) {
+        return ddRegisterGetAsync(key, getDDConsistency(key));
+    }
+
+    /**
+     * Get value of a last-writer-wins register.
+     *
+     * @param key
+     * @param consistency
+     * @return completes with {@code null} if not found
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<Object> ddRegisterGetAsync(String key, DDConsistency consistency) {
+        return ddTypedGet(ddRegisterKey(key), consistency, LWWRegister::getValue, null);
+    }
+
+    /**
+     * Add to a counter ({@link PNCounter}, {@code delta} can be negative).
+     *
+     * @param key
+     * @param delta
+     * @return completes with {@code true} if the write succeeded with the requested consistency
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<Boolean> ddCounterAdd(String key, long delta) {
+        return ddCounterAdd(key, delta, getDDConsistency(key));
+    }
+
+    /**
+     * Add to a counter ({@link PNCounter}, {@code delta} can be negative).
+     *
+     * @param key
+     * @param delta
+     * @param consistency
+     * @return completes with {@code true} if the write succeeded with the requested consistency
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<Boolean> ddCounterAdd(String key, long delta,
+            DDConsistency consistency) {
+        Cluster node = getCluster();
+        return ddTypedUpdate(ddCounterKey(key), PNCounter.create(), consistency,
+                curr -> delta >= 0 ? curr.increment(node, delta) : curr.decrement(node, -delta));
+    }
+
+    /**
+     * Get value of a counter.
+     *
+     * @param key
+     * @return completes with {@code 0} if not found
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<Long> ddCounterGetAsync(String key) {
+        return ddCounterGetAsync(key, getDDConsistency(key));
+    }
+
+    /**
+     * Get value of a counter.
+     *
+     * @param key
+     * @param consistency
+     * @return completes with {@code 0} if not found
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<Long> ddCounterGetAsync(String key, DDConsistency consistency) {
+        return ddTypedGet(ddCounterKey(key), consistency, curr -> curr.getValue().longValue(),
+                0L);
+    }
+
+    /**
+     * Add an element to a set ({@link ORSet}).
+     *
+     * @param key
+     * @param element
+     * @return completes with {@code true} if the write succeeded with the requested consistency
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<Boolean> ddORSetAdd(String key, Object element) {
+        return ddORSetAdd(key, element, getDDConsistency(key));
+    }
+
+    /**
+     * Add an element to a set ({@link ORSet}).
+     *
+     * @param key
+     * @param element
+     * @param consistency
+     * @return completes with {@code true} if the write succeeded with the requested consistency
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<Boolean> ddORSetAdd(String key, Object element,
+            DDConsistency consistency) {
+        Cluster node = getCluster();
+        return ddTypedUpdate(ddORSetKey(key), ORSet.create(), consistency,
+                curr -> curr.add(node, element));
+    }
+
+    /**
+     * Remove an element from a set ({@link ORSet}).
+     *
+     * @param key
+     * @param element
+     * @return completes with {@code true} if the write succeeded with the requested consistency
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<Boolean> ddORSetRemove(String key, Object element) {
+        return ddORSetRemove(key, element, getDDConsistency(key));
+    }
+
+    /**
+     * Remove an element from a set ({@link ORSet}).
+     *
+     * @param key
+     * @param element
+     * @param consistency
+     * @return completes with {@code true} if the write succeeded with the requested consistency
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<Boolean> ddORSetRemove(String key, Object element,
+            DDConsistency consistency) {
+        Cluster node = getCluster();
+        return ddTypedUpdate(ddORSetKey(key), ORSet.create(), consistency,
+                curr -> curr.remove(node, element));
+    }
+
+    /**
+     * Get elements of a set.
+     *
+     * @param key
+     * @return completes with an empty set if not found
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<Set<Object>> ddORSetGetAsync(String key) {
+        return ddORSetGetAsync(key, getDDConsistency(key));
+    }
+
+    /**
+     * Get elements of a set.
+     *
+     * @param key
+     * @param consistency
+     * @return completes with an empty set if not found
+     * @since template-v2.6.r2
+     */
+    protected CompletionStage<Set<Object>> ddORSetGetAsync(String key,
+            DDConsistency consistency) {
+        return ddTypedGet(ddORSetKey(key), consistency, ORSet::getElements,
+                Collections.emptySet());
+    }
+
+    /*----------------------------------------------------------------------*/
+
+    /**
+     * Complete the pending request (see {@link DistributedDataManager#registerRequest(long)}) a
+     * replicator's get/delete response correlates to.
+     *
+     * @param msg
+     * @return {@code false} if no request is pending for the response
+     * @since template-v2.6.r2
+     */
+    static boolean onDDGetResponse(Object msg) {
+        Object _obj = msg instanceof Replicator.GetResponse
+                ? ((Replicator.GetResponse<?>) msg).getRequest().orElse(null)
+                : msg instanceof Replicator.DeleteSuccess
+                        ? ((Replicator.DeleteSuccess<?>) msg).getRequest().orElse(null) : null;
+        DDTags tags = _obj instanceof DDTags ? (DDTags) _obj : DDTags.EMPTY;
+        return tags.getId() != 0
+                && DistributedDataManager.setResponse(tags.getId(), toDDGetResult(tags, msg));
     }
 
     /**
@@ -276,7 +846,6 @@ public class BaseClusterActor extends BaseActor {
      * 
      * @throws Exception
      */
-    @SuppressWarnings("unchecked")
     protected void initActor() throws Exception {
         Set<String> selfRoles = cluster.getSelfRoles();
         Set<String> deployRoles = getDeployRoles();
@@ -291,33 +860,12 @@ public class BaseClusterActor extends BaseActor {
                     (ack) -> Logger.info("{" + getActorPath() + "} unsubscribed successfully to ["
                             + ack.unsubscribe() + "]."));
 
-            addMessageHandler(Replicator.DeleteSuccess.class, msg -> {
-                Object _obj = msg.getRequest().orElseGet(null);
-                DDTags tags = _obj instanceof DDTags ? (DDTags) _obj : DDTags.EMPTY;
-                DistributedDataManager.setResponse(tags.getId(),
-                        DDGetResult.notFound(tags.getId(), tags.getKey()));
-            });
-            addMessageHandler(Replicator.GetFailure.class, msg -> {
-                Object _obj = msg.getRequest().orElseGet(null);
-                DDTags tags = _obj instanceof DDTags ? (DDTags) _obj : DDTags.EMPTY;
-                DistributedDataManager.setResponse(tags.getId(),
-                        DDGetResult.error(tags.getId(), tags.getKey()));
-            });
-            addMessageHandler(Replicator.NotFound.class, msg -> {
-                Object _obj = msg.getRequest().orElseGet(null);
-                DDTags tags = _obj instanceof DDTags ? (DDTags) _obj : DDTags.EMPTY;
-                DistributedDataManager.setResponse(tags.getId(),
-                        DDGetResult.notFound(tags.getId(), tags.getKey()));
-            });
-            addMessageHandler(Replicator.GetSuccess.class, msg -> {
-                Object _tags = msg.getRequest().orElseGet(null);
-                DDTags tags = _tags instanceof DDTags ? (DDTags) _tags : DDTags.EMPTY;
-                ORMultiMap<String, Object> data = msg.dataValue() instanceof ORMultiMap
-                        ? (ORMultiMap<String, Object>) msg.dataValue() : ORMultiMap.create();
-                Set<Object> value = data.getEntries().get(tags.getKey());
-                DistributedDataManager.setResponse(tags.getId(),
-                        DDGetResult.ok(tags.getId(), tags.getKey(), value));
-            });
+            // responses to requests sent with this actor as sender (e.g. by sub-classes)
+            addMessageHandler(Replicator.DeleteSuccess.class, BaseClusterActor::onDDGetResponse);
+            addMessageHandler(Replicator.GetFailure.class, BaseClusterActor::onDDGetResponse);
+            addMessageHandler(Replicator.NotFound.class, BaseClusterActor::onDDGetResponse);
+            addMessageHandler(Replicator.GetSuccess.class, BaseClusterActor::onDDGetResponse);
+            addMessageHandler(Replicator.Changed.class, this::onDDChanged);
 
             Collection<String[]> topicSubscriptions = topicSubscriptions();
             if (topicSubscriptions != null) {
@@ -339,8 +887,16 @@ public class BaseClusterActor extends BaseActor {
     /**
      * {@inheritDoc}
      */
+    @SuppressWarnings("unchecked")
     @Override
     protected void destroyActor() throws Exception {
+        try {
+            ddNearCache.keySet().forEach(key -> replicator
+                    .tell(new Replicator.Unsubscribe<>((Key<ReplicatedData>) key, self()), self()));
+            ddNearCache.clear();
+        } catch (Exception e) {
+            Logger.warn("{" + getActorPath() + "} " + e.getMessage(), e);
+        }
         try {
             Collection<String[]> topicSubscriptions = topicSubscriptions();
             if (topicSubscriptions != null) {
@@ -8,6 +8,19 @@ package akka.cluster;
 public class ClusterConstants {
     public final static String ROLE_ALL = "*";
 
+    /**
+     * No longer published to: "tick" messages are only published to {@link #TOPIC_TICK_ALL}.
+     * Workers that must run on one node only extend
+     * {@link akka.cluster.workers.BaseSingletonClusterWorker}, which runs ticks on the node that
+     * holds the worker's lease.
+     *
+     * @deprecated since template-v2.6.r2
+     */
+    @Deprecated
     public final static String TOPIC_TICK_ONE_PER_GROUP = "TICK";
+
+    /**
+     * Topic the leader's MasterActor publishes "tick" messages to, delivered to every subscriber.
+     */
     public final static String TOPIC_TICK_ALL = "TICK-ALL";
 }
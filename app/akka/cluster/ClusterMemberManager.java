@@ -1,113 +1,271 @@
 package akka.cluster;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.NoSuchElementException;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 import akka.actor.Address;
 import play.Logger;
 
 /**
  * Manage cluster's member nodes.
- * 
+ *
+ * <p>
+ * Membership is kept as an immutable, role-indexed {@link Snapshot} that is swapped atomically on
+ * membership/reachability changes (see {@link MasterActor}); lookups (leader, members of a role,
+ * member by address) are wait-free reads of the current snapshot.
+ * </p>
+ *
+ * <p>
+ * The leader of a role is its oldest member, whether reachable or not: reachability is each
+ * node's own view, so electing the oldest reachable member would let both sides of a network
+ * partition elect a leader of their own. An unreachable leader stays leader until it is removed
+ * from the cluster (downed); reachability is exposed separately (see
+ * {@link Snapshot#isReachable(Address)}).
+ * </p>
+ *
  * @author Thanh Nguyen <btnguyen2k@gmail.com>
  * @since template-v0.1.5
  */
 public class ClusterMemberManager {
-    private static ConcurrentMap<String, SortedSet<Member>> nodeManager = new ConcurrentHashMap<>();
-    private static ConcurrentMap<Address, Member> members = new ConcurrentHashMap<>();
 
     /**
-     * Add a member to cluster.
-     * 
-     * @param node
+     * Oldest member first.
      */
-    public static void addNode(Member node) {
-        members.put(node.address(), node);
-
-        Set<String> memberRoles = new HashSet<>(node.getRoles());
-        memberRoles.add(ClusterConstants.ROLE_ALL);
-        int counter = 0;
-        for (String role : memberRoles) {
-            nodeManager.putIfAbsent(role, new TreeSet<Member>(new Comparator<Member>() {
-                public int compare(Member a, Member b) {
-                    if (a.isOlderThan(b)) {
-                        return -1;
-                    } else if (b.isOlderThan(a)) {
-                        return 1;
-                    } else {
-                        return 0;
+    private final static Comparator<Member> OLDEST_FIRST = (a, b) -> a.isOlderThan(b) ? -1
+            : b.isOlderThan(a) ? 1 : 0;
+
+    /**
+     * Immutable view of cluster's members.
+     *
+     * @since template-v2.6.r2
+     */
+    public static class Snapshot {
+        public final static Snapshot EMPTY = new Snapshot(Collections.emptyMap(),
+                Collections.emptySet());
+
+        private final Map<Address, Member> members;
+        private final Set<Address> unreachable;
+        private final Map<String, List<Member>> membersByRole;
+        private final Map<String, Member> leaders;
+
+        private Snapshot(Map<Address, Member> members, Set<Address> unreachable) {
+            this.members = members;
+            this.unreachable = unreachable;
+            Map<String, List<Member>> membersByRole = new HashMap<>();
+            for (Member member : members.values()) {
+                membersByRole.computeIfAbsent(ClusterConstants.ROLE_ALL, k -> new ArrayList<>())
+                        .add(member);
+                for (String role : member.getRoles()) {
+                    if (!ClusterConstants.ROLE_ALL.equals(role)) {
+                        membersByRole.computeIfAbsent(role, k -> new ArrayList<>()).add(member);
                     }
                 }
-            }));
-            if (nodeManager.get(role).add(node)) {
-                counter++;
             }
+            Map<String, Member> leaders = new HashMap<>();
+            membersByRole.replaceAll((role, list) -> {
+                list.sort(OLDEST_FIRST);
+                leaders.put(role, list.get(0));
+                return Collections.unmodifiableList(list);
+            });
+            this.membersByRole = membersByRole;
+            this.leaders = leaders;
+        }
+
+        private Snapshot withMember(Member member) {
+            Map<Address, Member> members = new HashMap<>(this.members);
+            members.put(member.address(), member);
+            return new Snapshot(Collections.unmodifiableMap(members), unreachable);
+        }
+
+        private Snapshot withoutMember(Member member) {
+            Map<Address, Member> members = new HashMap<>(this.members);
+            members.remove(member.address());
+            Set<Address> unreachable = new HashSet<>(this.unreachable);
+            unreachable.remove(member.address());
+            return new Snapshot(Collections.unmodifiableMap(members),
+                    Collections.unmodifiableSet(unreachable));
+        }
+
+        private Snapshot withReachability(Member member, boolean reachable) {
+            Set<Address> unreachable = new HashSet<>(this.unreachable);
+            if (reachable) {
+                unreachable.remove(member.address());
+            } else {
+                unreachable.add(member.address());
+            }
+            return new Snapshot(members, Collections.unmodifiableSet(unreachable));
+        }
+
+        /**
+         * Get a member by address.
+         *
+         * @param address
+         * @return {@code null} if not exists
+         */
+        public Member getMember(Address address) {
+            return members.get(address);
         }
-        Logger.info("Node [" + node.address() + "] with roles " + memberRoles + " is UP: " + counter
-                + "/" + memberRoles.size() + " role(s).");
+
+        /**
+         * Get all members.
+         *
+         * @return
+         */
+        public Map<Address, Member> getMembers() {
+            return members;
+        }
+
+        /**
+         * Get members of a role, oldest first.
+         *
+         * @param role
+         * @return
+         */
+        public List<Member> getMembers(String role) {
+            List<Member> result = membersByRole.get(role);
+            return result != null ? result : Collections.emptyList();
+        }
+
+        /**
+         * Get leader of a role: the oldest member, reachable or not.
+         *
+         * @param role
+         * @return {@code null} if there is no member for the role
+         */
+        public Member getLeader(String role) {
+            return leaders.get(role);
+        }
+
+        /**
+         * Check if a member is reachable (from this node's point of view).
+         *
+         * @param address
+         * @return
+         */
+        public boolean isReachable(Address address) {
+            return members.containsKey(address) && !unreachable.contains(address);
+        }
+
+        /**
+         * Get addresses of unreachable members.
+         *
+         * @return
+         */
+        public Set<Address> getUnreachable() {
+            return unreachable;
+        }
+    }
+
+    private final static AtomicReference<Snapshot> SNAPSHOT = new AtomicReference<>(
+            Snapshot.EMPTY);
+
+    private static Snapshot update(UnaryOperator<Snapshot> updater) {
+        return SNAPSHOT.updateAndGet(updater);
+    }
+
+    /**
+     * Get current view of cluster's members.
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    public static Snapshot getSnapshot() {
+        return SNAPSHOT.get();
+    }
+
+    /**
+     * Add a member to cluster.
+     *
+     * @param node
+     */
+    public static void addNode(Member node) {
+        Snapshot snapshot = update(s -> s.withMember(node));
+        Logger.info("Node [" + node.address() + "] with roles " + node.getRoles()
+                + " is UP, cluster size: " + snapshot.getMembers().size() + ".");
     }
 
     /**
      * Remove a member from cluster.
-     * 
+     *
      * @param node
      */
     public static void removeNode(Member node) {
-        members.remove(node.address());
-
-        Set<String> memberRoles = new HashSet<>(node.getRoles());
-        memberRoles.add(ClusterConstants.ROLE_ALL);
-        int counter = 0;
-        for (String role : memberRoles) {
-            SortedSet<Member> members = nodeManager.get(role);
-            if (members != null) {
-                if (members.remove(node)) {
-                    counter++;
-                }
-            }
-        }
-        Logger.info("Node [" + node.address() + "] with roles " + memberRoles + " is REMOVED: "
-                + counter + "/" + memberRoles.size() + " role(s).");
+        Snapshot snapshot = update(s -> s.withoutMember(node));
+        Logger.info("Node [" + node.address() + "] with roles " + node.getRoles()
+                + " is REMOVED, cluster size: " + snapshot.getMembers().size() + ".");
+    }
+
+    /**
+     * Mark a member as unreachable. Reachability does not affect leadership (see
+     * {@link #getLeader(String)}).
+     *
+     * @param node
+     * @since template-v2.6.r2
+     */
+    public static void markUnreachable(Member node) {
+        update(s -> s.withReachability(node, false));
+    }
+
+    /**
+     * Mark a member as reachable again.
+     *
+     * @param node
+     * @since template-v2.6.r2
+     */
+    public static void markReachable(Member node) {
+        update(s -> s.withReachability(node, true));
     }
 
     /**
      * Check if a node is leader for a role.
-     * 
+     *
      * @param role
      * @param node
      * @return
      */
     public static boolean isLeader(String role, Member node) {
-        SortedSet<Member> members = nodeManager.get(role);
-        Member leader = null;
-        try {
-            leader = members != null ? members.first() : null;
-        } catch (NoSuchElementException e) {
-            leader = null;
-        }
+        Member leader = getLeader(role);
         return leader != null && node.address().equals(leader.address());
     }
 
     /**
-     * Get leader node for a role.
-     * 
+     * Get leader node for a role: the oldest member, reachable or not (so that nodes on both
+     * sides of a network partition agree on it).
+     *
      * @param role
      * @return
      */
     public static Member getLeader(String role) {
-        SortedSet<Member> members = nodeManager.get(role);
-        Member leader = null;
-        try {
-            leader = members != null ? members.first() : null;
-        } catch (NoSuchElementException e) {
-            leader = null;
-        }
-        return leader;
+        return SNAPSHOT.get().getLeader(role);
+    }
+
+    /**
+     * Get members of a role, oldest first.
+     *
+     * @param role
+     * @return
+     * @since template-v2.6.r2
+     */
+    public static List<Member> getMembers(String role) {
+        return SNAPSHOT.get().getMembers(role);
+    }
+
+    /**
+     * Get a member by address.
+     *
+     * @param address
+     * @return {@code null} if not exists
+     * @since template-v2.6.r2
+     */
+    public static Member getMember(Address address) {
+        return SNAPSHOT.get().getMember(address);
     }
 }
@@ -0,0 +1,193 @@
+package akka.cluster;
+
+/**
+ * Bounded, lock-striped hash table keyed by primitive {@code long} ids, to correlate responses
+ * with pending requests.
+ *
+ * <p>
+ * Each stripe is an open-addressing table (linear probing, backward-shift deletion) guarded by its
+ * own monitor, so keys are never boxed and removed entries leave no garbage behind. Key
+ * {@code 0} is reserved.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class CorrelationTable<V> {
+
+    private final static class Stripe {
+        long[] keys;
+        Object[] values;
+        int size;
+
+        Stripe(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+    private final int maxEntriesPerStripe;
+
+    /**
+     * Create a table.
+     *
+     * @param numStripes
+     *            rounded up to a power of 2
+     * @param maxEntries
+     *            maximum number of entries (approximately, as the bound is enforced per stripe)
+     */
+    public CorrelationTable(int numStripes, int maxEntries) {
+        int n = Integer.highestOneBit(Math.max(1, numStripes - 1)) << 1;
+        n = numStripes <= 1 ? 1 : n;
+        stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new Stripe(16);
+        }
+        stripeShift = 64 - Integer.numberOfTrailingZeros(n);
+        maxEntriesPerStripe = Math.max(1, maxEntries / n);
+    }
+
+    private static long mix(long key) {
+        // MurmurHash3's 64-bit finalizer
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private Stripe stripeFor(long hash) {
+        return stripes.length == 1 ? stripes[0] : stripes[(int) (hash >>> stripeShift)];
+    }
+
+    private static int indexOf(Stripe stripe, long key, long hash) {
+        int mask = stripe.keys.length - 1;
+        int i = (int) hash & mask;
+        while (stripe.keys[i] != 0) {
+            if (stripe.keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1 - i;
+    }
+
+    private static void grow(Stripe stripe) {
+        long[] oldKeys = stripe.keys;
+        Object[] oldValues = stripe.values;
+        stripe.keys = new long[oldKeys.length * 2];
+        stripe.values = new Object[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = -1 - indexOf(stripe, oldKeys[i], mix(oldKeys[i]));
+                stripe.keys[slot] = oldKeys[i];
+                stripe.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Add an entry.
+     *
+     * @param key
+     * @param value
+     * @return {@code false} if the key already exists or the table is full
+     */
+    public boolean put(long key, V value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key must not be 0!");
+        }
+        long hash = mix(key);
+        Stripe stripe = stripeFor(hash);
+        synchronized (stripe) {
+            if (stripe.size >= maxEntriesPerStripe) {
+                return false;
+            }
+            if ((stripe.size + 1) * 2 > stripe.keys.length) {
+                grow(stripe);
+            }
+            int i = indexOf(stripe, key, hash);
+            if (i >= 0) {
+                return false;
+            }
+            i = -1 - i;
+            stripe.keys[i] = key;
+            stripe.values[i] = value;
+            stripe.size++;
+            return true;
+        }
+    }
+
+    /**
+     * Get an entry's value.
+     *
+     * @param key
+     * @return {@code null} if not exists
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        long hash = mix(key);
+        Stripe stripe = stripeFor(hash);
+        synchronized (stripe) {
+            int i = key != 0 ? indexOf(stripe, key, hash) : -1;
+            return i >= 0 ? (V) stripe.values[i] : null;
+        }
+    }
+
+    /**
+     * Remove an entry.
+     *
+     * @param key
+     * @return the removed entry's value, {@code null} if not exists
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == 0) {
+            return null;
+        }
+        long hash = mix(key);
+        Stripe stripe = stripeFor(hash);
+        synchronized (stripe) {
+            int i = indexOf(stripe, key, hash);
+            if (i < 0) {
+                return null;
+            }
+            V value = (V) stripe.values[i];
+            // backward-shift deletion: move up following entries of the probe sequence
+            long[] keys = stripe.keys;
+            int mask = keys.length - 1;
+            int hole = i;
+            for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                int home = (int) mix(keys[j]) & mask;
+                // move entry j into the hole if its home slot is not within (hole, j]
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    stripe.values[hole] = stripe.values[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = 0;
+            stripe.values[hole] = null;
+            stripe.size--;
+            return value;
+        }
+    }
+
+    /**
+     * Number of entries.
+     *
+     * @return
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+}
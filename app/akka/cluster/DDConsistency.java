@@ -0,0 +1,64 @@
+package akka.cluster;
+
+import java.util.concurrent.TimeUnit;
+
+import akka.cluster.ddata.Replicator;
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
+
+/**
+ * Consistency level of distributed-data reads and writes.
+ *
+ * <ul>
+ * <li>{@link #LOCAL}: local replica only, changes spread to other nodes via gossip (or deltas).
+ * </li>
+ * <li>{@link #MAJORITY}: a majority of nodes.</li>
+ * <li>{@link #ALL}: all nodes.</li>
+ * </ul>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public enum DDConsistency {
+    LOCAL, MAJORITY, ALL;
+
+    /**
+     * Convert to replicator's read consistency.
+     *
+     * @param timeoutMs
+     *            ignored for {@link #LOCAL}
+     * @return
+     */
+    public Replicator.ReadConsistency toReadConsistency(long timeoutMs) {
+        switch (this) {
+        case MAJORITY:
+            return new Replicator.ReadMajority(toDuration(timeoutMs));
+        case ALL:
+            return new Replicator.ReadAll(toDuration(timeoutMs));
+        default:
+            return Replicator.readLocal();
+        }
+    }
+
+    /**
+     * Convert to replicator's write consistency.
+     *
+     * @param timeoutMs
+     *            ignored for {@link #LOCAL}
+     * @return
+     */
+    public Replicator.WriteConsistency toWriteConsistency(long timeoutMs) {
+        switch (this) {
+        case MAJORITY:
+            return new Replicator.WriteMajority(toDuration(timeoutMs));
+        case ALL:
+            return new Replicator.WriteAll(toDuration(timeoutMs));
+        default:
+            return Replicator.writeLocal();
+        }
+    }
+
+    private static FiniteDuration toDuration(long timeoutMs) {
+        return Duration.create(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+}
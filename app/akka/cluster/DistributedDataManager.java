@@ -5,17 +5,22 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
 import akka.cluster.ddata.ORMultiMap;
+import play.Logger;
 import utils.IdUtils;
 
 /**
@@ -30,33 +35,100 @@ import utils.IdUtils;
  */
 public class DistributedDataManager {
 
-    private static Cache<Long, DDGetResult> ddGetResponses = CacheBuilder.newBuilder()
-            .expireAfterWrite(30, TimeUnit.SECONDS).maximumSize(81920).build();
+    /*
+     * Pending distributed-data get requests, by request id. Entries are removed when completed
+     * (or timed out).
+     */
+    private final static CorrelationTable<CompletableFuture<DDGetResult>> PENDING_REQUESTS =
+            new CorrelationTable<>(64, 81920);
+
+    private final static Map<ActorSystem, ActorRef> RESPONDERS = new ConcurrentHashMap<>();
 
     /**
-     * Retrieve distributed-data's get response from cache.
-     * 
+     * Actor that receives replicator's responses to distributed-data get requests, and completes
+     * the pending requests.
+     *
+     * @since template-v2.6.r2
+     */
+    public static class DDResponderActor extends AbstractActor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Receive createReceive() {
+            return receiveBuilder().matchAny(msg -> {
+                if (!BaseClusterActor.onDDGetResponse(msg) && Logger.isDebugEnabled()) {
+                    Logger.debug("No pending request for DD-response " + msg);
+                }
+            }).build();
+        }
+    }
+
+    /**
+     * Get the actor that receives replicator's responses to distributed-data get requests
+     * (one per actor system).
+     *
+     * @param system
+     * @return
+     * @since template-v2.6.r2
+     */
+    public static ActorRef getResponder(ActorSystem system) {
+        return RESPONDERS.computeIfAbsent(system, s -> {
+            s.registerOnTermination(() -> RESPONDERS.remove(s));
+            return s.actorOf(Props.create(DDResponderActor.class), "ddResponder");
+        });
+    }
+
+    /**
+     * Register a pending distributed-data get request.
+     *
      * @param id
+     * @return future to be completed by {@link #setResponse(long, DDGetResult)}, {@code null} if
+     *         there are too many pending requests (or the id is already pending)
+     * @since template-v2.6.r2
+     */
+    public static CompletableFuture<DDGetResult> registerRequest(long id) {
+        CompletableFuture<DDGetResult> future = new CompletableFuture<>();
+        return PENDING_REQUESTS.put(id, future) ? future : null;
+    }
+
+    /**
+     * Remove a pending distributed-data get request (e.g. timed out).
+     *
+     * @param id
+     * @return the request's future, {@code null} if the request is not pending
+     * @since template-v2.6.r2
+     */
+    public static CompletableFuture<DDGetResult> removeRequest(long id) {
+        return PENDING_REQUESTS.remove(id);
+    }
+
+    /**
+     * Number of pending distributed-data get requests.
+     *
      * @return
+     * @since template-v2.6.r2
      */
-    public static DDGetResult getResponse(long id) {
-        return ddGetResponses.getIfPresent(id);
+    public static int getNumPendingRequests() {
+        return PENDING_REQUESTS.size();
     }
 
     /**
-     * Put distributed-data's get response to cache.
+     * Complete a pending distributed-data get request with its response.
      * 
      * @param id
      * @param ddGetResult
+     * @return {@code false} if the request is not pending (e.g. timed out)
      */
-    public static void setResponse(long id, DDGetResult ddGetResult) {
-        ddGetResponses.put(id, ddGetResult);
+    public static boolean setResponse(long id, DDGetResult ddGetResult) {
+        CompletableFuture<DDGetResult> future = PENDING_REQUESTS.remove(id);
+        return future != null && future.complete(ddGetResult);
     }
 
     public static class DDLock implements Serializable {
         private static final long serialVersionUID = "template-v0.1.5".hashCode();
 
-        public final long timestamp = System.currentTimeMillis();
+        public final long timestamp;
         public final long expiry;
         public final String lockId;
 
@@ -66,9 +138,24 @@ public class DistributedDataManager {
 
         public DDLock(String lockId, long lockTimeout, TimeUnit logTimeoutUnit) {
             this.lockId = lockId;
+            timestamp = System.currentTimeMillis();
             expiry = timestamp + logTimeoutUnit.toMillis(lockTimeout);
         }
 
+        /**
+         * Create a lock with all its attributes (e.g. when deserializing).
+         *
+         * @param lockId
+         * @param timestamp
+         * @param expiry
+         * @since template-v2.6.r2
+         */
+        public DDLock(String lockId, long timestamp, long expiry) {
+            this.lockId = lockId;
+            this.timestamp = timestamp;
+            this.expiry = expiry;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -97,6 +184,98 @@ public class DistributedDataManager {
         }
     }
 
+    /**
+     * A lease held by a cluster actor, with a fencing token.
+     *
+     * <p>
+     * Lease's expiry is not a timestamp: other nodes consider a lease expired when they have
+     * observed the same record (same owner, token and renewal sequence) for longer than
+     * {@link #durationMs}, measured with their own monotonic clock.
+     * </p>
+     *
+     * @since template-v2.6.r2
+     */
+    public static class DDLease implements Serializable {
+        private static final long serialVersionUID = "template-v2.6.r2".hashCode();
+
+        /**
+         * Lease's owner, {@code null} if the lease was released.
+         */
+        public final String owner;
+
+        /**
+         * Fencing token, increases each time the lease changes hands.
+         */
+        public final long token;
+
+        /**
+         * Renewal sequence, increases each time the owner renews the lease.
+         */
+        public final long seq;
+
+        public final long durationMs;
+
+        public DDLease(String owner, long token, long seq, long durationMs) {
+            this.owner = owner;
+            this.token = token;
+            this.seq = seq;
+            this.durationMs = durationMs;
+        }
+
+        /**
+         * Renewed copy of this lease.
+         *
+         * @return
+         */
+        public DDLease renew() {
+            return new DDLease(owner, token, seq + 1, durationMs);
+        }
+
+        /**
+         * Released copy of this lease (keeps the token, so that tokens stay monotonic).
+         *
+         * @return
+         */
+        public DDLease release() {
+            return new DDLease(null, token, seq + 1, durationMs);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return Long.hashCode(token) * 31 + Long.hashCode(seq);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof DDLease)) {
+                return false;
+            }
+            DDLease other = (DDLease) obj;
+            return token == other.token && seq == other.seq && durationMs == other.durationMs
+                    && StringUtils.equals(owner, other.owner);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            ToStringBuilder tsb = new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE);
+            tsb.append("owner", owner).append("token", token).append("seq", seq)
+                    .append("duration", durationMs);
+            return tsb.toString();
+        }
+    }
+
     public static class DDGetResult implements Serializable {
         private static final long serialVersionUID = "template-v0.1.5".hashCode();
 
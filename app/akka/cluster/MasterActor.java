@@ -3,7 +3,6 @@ package akka.cluster;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import com.github.ddth.commons.utils.MapUtils;
 import com.google.inject.Provider;
 
 import akka.TickMessage;
@@ -12,7 +11,7 @@ import akka.actor.Cancellable;
 import akka.cluster.ClusterEvent.MemberEvent;
 import akka.cluster.ClusterEvent.MemberRemoved;
 import akka.cluster.ClusterEvent.MemberUp;
-import akka.cluster.ClusterEvent.UnreachableMember;
+import akka.cluster.ClusterEvent.ReachabilityEvent;
 import modules.registry.IRegistry;
 import play.Logger;
 import scala.concurrent.duration.Duration;
@@ -45,6 +44,11 @@ public class MasterActor extends BaseClusterActor {
 
     private Cancellable tick;
 
+    /*
+     * Sender name attached to "tick" messages, computed once.
+     */
+    private String tickSender;
+
     public MasterActor(Provider<IRegistry> registryProvider) {
         super(registryProvider);
     }
@@ -62,9 +66,10 @@ public class MasterActor extends BaseClusterActor {
 
         // subscribe to cluster changes
         getCluster().subscribe(self(), ClusterEvent.initialStateAsEvents(), MemberEvent.class,
-                UnreachableMember.class);
+                ReachabilityEvent.class);
 
         // schedule to fire "tick" message periodically
+        tickSender = getActorPath().toString().intern();
         tick = getContext().system().scheduler().schedule(DELAY_INITIAL, DELAY_TICK, () -> {
             /*
              * To reduce number of "tick" message flying around cluster, we first send "tick"
@@ -72,16 +77,22 @@ public class MasterActor extends BaseClusterActor {
              * publish tick message to relevant topics. MasterActor(s) on other nodes will just
              * simply ignore the "tick" message.
              */
-            self().tell(new TickMessage(MapUtils.createMap("sender", self().toString())), self());
+            self().tell(new TickMessage(System.currentTimeMillis(), tickSender), self());
         }, getContext().dispatcher());
 
         // setup message handler
         addMessageHandler(ClusterEvent.MemberUp.class, this::eventMemberUp);
         addMessageHandler(ClusterEvent.MemberRemoved.class, this::eventMemberRemoved);
         addMessageHandler(ClusterEvent.UnreachableMember.class, (msg) -> {
+            ClusterMemberManager.markUnreachable(msg.member());
             Logger.warn("Node [" + msg.member().address().toString() + "] with roles "
                     + msg.member().getRoles() + " detected as unreachable.");
         });
+        addMessageHandler(ClusterEvent.ReachableMember.class, (msg) -> {
+            ClusterMemberManager.markReachable(msg.member());
+            Logger.info("Node [" + msg.member().address().toString() + "] with roles "
+                    + msg.member().getRoles() + " is reachable again.");
+        });
         addMessageHandler(TickMessage.class, this::eventTick);
     }
 
@@ -129,11 +140,8 @@ public class MasterActor extends BaseClusterActor {
                 try {
                     Address thisNodeAddr = cluster.selfAddress();
                     if (thisNodeAddr.equals(leader.address())) {
-                        TickMessage tickMessage = new TickMessage(
-                                MapUtils.createMap("sender", self().toString()));
-                        publishToTopic(tickMessage, ClusterConstants.TOPIC_TICK_ONE_PER_GROUP,
-                                true);
-                        publishToTopic(tickMessage, ClusterConstants.TOPIC_TICK_ALL, false);
+                        // the local tick is published as-is, no need to allocate a new one
+                        publishToTopic(tick, ClusterConstants.TOPIC_TICK_ALL, false);
                     } else {
                         // I am not leader!
                     }
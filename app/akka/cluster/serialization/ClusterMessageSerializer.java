@@ -0,0 +1,701 @@
+package akka.cluster.serialization;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.SerializationUtils;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import akka.TickMessage;
+import akka.cluster.DistributedDataManager.DDGetResult;
+import akka.cluster.DistributedDataManager.DDLease;
+import akka.cluster.DistributedDataManager.DDLock;
+import akka.cluster.DistributedDataManager.DDTags;
+import akka.serialization.SerializerWithStringManifest;
+
+/**
+ * Compact serializer for cluster messages ({@link TickMessage}, {@link DDLock},
+ * {@link DDLease}, {@link DDTags} and {@link DDGetResult}), replaces Java serialization on the
+ * cluster path.
+ *
+ * <p>
+ * Messages are written in protobuf wire format (no generated classes), sized exactly up front:
+ * </p>
+ *
+ * <pre>
+ * message Tick      { fixed64 id = 1; int64 timestamp = 2; string sender = 3;
+ *                     repeated Tag tags = 4; }
+ * message Tag       { string name = 1; &lt;value&gt; }
+ * message Lock      { int64 timestamp = 1; int64 expiry = 2; string lock_id = 3; }
+ * message Lease     { string owner = 1; int64 token = 2; int64 seq = 3; int64 duration = 4; }
+ * message Tags      { fixed64 id = 1; string key = 2; }
+ * message GetResult { fixed64 id = 1; string key = 2; bool has_value = 3;
+ *                     repeated Value values = 4; }
+ * message Value     { &lt;value&gt; }
+ *
+ * &lt;value&gt; = oneof { string str = 2; sint64 i64 = 3; sint32 i32 = 4; double dbl = 5;
+ *             bool bool = 6; bytes java = 7; Tick tick = 8; Lock lock = 9; Lease lease = 10; }
+ * </pre>
+ *
+ * <p>
+ * Values of other types are Java-serialized ({@code java}). Sub-classes of {@link TickMessage}
+ * are deserialized as {@link TickMessage}. Registered in {@code application-cluster.conf}.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class ClusterMessageSerializer extends SerializerWithStringManifest {
+
+    /**
+     * Serializer's identifier (ids 0-40 are reserved by Akka).
+     */
+    public final static int IDENTIFIER = 1001;
+
+    public final static String MANIFEST_TICK = "T";
+    public final static String MANIFEST_LOCK = "L";
+    public final static String MANIFEST_LEASE = "S";
+    public final static String MANIFEST_TAGS = "D";
+    public final static String MANIFEST_GET_OK = "G";
+    public final static String MANIFEST_GET_NOT_FOUND = "GN";
+    public final static String MANIFEST_GET_ERROR = "GE";
+
+    private final static int TICK_ID = 1, TICK_TIMESTAMP = 2, TICK_SENDER = 3, TICK_TAG = 4;
+    private final static int TAG_NAME = 1;
+    private final static int LOCK_TIMESTAMP = 1, LOCK_EXPIRY = 2, LOCK_ID = 3;
+    private final static int LEASE_OWNER = 1, LEASE_TOKEN = 2, LEASE_SEQ = 3, LEASE_DURATION = 4;
+    private final static int TAGS_ID = 1, TAGS_KEY = 2;
+    private final static int GET_ID = 1, GET_KEY = 2, GET_HAS_VALUE = 3, GET_VALUE = 4;
+    private final static int VALUE_STRING = 2, VALUE_LONG = 3, VALUE_INT = 4, VALUE_DOUBLE = 5,
+            VALUE_BOOLEAN = 6, VALUE_JAVA = 7, VALUE_TICK = 8, VALUE_LOCK = 9, VALUE_LEASE = 10;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int identifier() {
+        return IDENTIFIER;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String manifest(Object obj) {
+        if (obj instanceof TickMessage) {
+            return MANIFEST_TICK;
+        }
+        if (obj instanceof DDLock) {
+            return MANIFEST_LOCK;
+        }
+        if (obj instanceof DDLease) {
+            return MANIFEST_LEASE;
+        }
+        if (obj instanceof DDTags) {
+            return MANIFEST_TAGS;
+        }
+        if (obj instanceof DDGetResult) {
+            DDGetResult result = (DDGetResult) obj;
+            return result.isNotFound() ? MANIFEST_GET_NOT_FOUND
+                    : result.isError() ? MANIFEST_GET_ERROR : MANIFEST_GET_OK;
+        }
+        throw new IllegalArgumentException("Cannot serialize object of type " + obj.getClass());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] toBinary(Object obj) {
+        if (obj instanceof TickMessage) {
+            return toBinary((TickMessage) obj);
+        }
+        if (obj instanceof DDLock) {
+            return toBinary((DDLock) obj);
+        }
+        if (obj instanceof DDLease) {
+            return toBinary((DDLease) obj);
+        }
+        if (obj instanceof DDTags) {
+            return toBinary((DDTags) obj);
+        }
+        if (obj instanceof DDGetResult) {
+            return toBinary((DDGetResult) obj);
+        }
+        throw new IllegalArgumentException("Cannot serialize object of type " + obj.getClass());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object fromBinary(byte[] bytes, String manifest) {
+        try {
+            switch (manifest) {
+            case MANIFEST_TICK:
+                return tickFromBinary(bytes);
+            case MANIFEST_LOCK:
+                return lockFromBinary(bytes);
+            case MANIFEST_LEASE:
+                return leaseFromBinary(bytes);
+            case MANIFEST_TAGS:
+                return tagsFromBinary(bytes);
+            case MANIFEST_GET_OK:
+            case MANIFEST_GET_NOT_FOUND:
+            case MANIFEST_GET_ERROR:
+                return getResultFromBinary(bytes, manifest);
+            default:
+                throw new IllegalArgumentException("Unknown manifest [" + manifest + "]!");
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException(
+                    "Cannot deserialize message with manifest [" + manifest + "].", e);
+        }
+    }
+
+    /*----------------------------------------------------------------------*/
+
+    /**
+     * A pre-encoded value: its field number and a value that {@link CodedOutputStream} writes
+     * directly (nested messages and Java-serialized values as {@code byte[]}).
+     */
+    private final static class Value {
+        final int field;
+        final Object value;
+
+        Value(int field, Object value) {
+            this.field = field;
+            this.value = value;
+        }
+
+        int computeSize() {
+            switch (field) {
+            case VALUE_STRING:
+                return CodedOutputStream.computeStringSize(field, (String) value);
+            case VALUE_LONG:
+                return CodedOutputStream.computeSInt64Size(field, (Long) value);
+            case VALUE_INT:
+                return CodedOutputStream.computeSInt32Size(field, (Integer) value);
+            case VALUE_DOUBLE:
+                return CodedOutputStream.computeDoubleSize(field, (Double) value);
+            case VALUE_BOOLEAN:
+                return CodedOutputStream.computeBoolSize(field, (Boolean) value);
+            default:
+                return CodedOutputStream.computeByteArraySize(field, (byte[]) value);
+            }
+        }
+
+        void write(CodedOutputStream out) throws IOException {
+            switch (field) {
+            case VALUE_STRING:
+                out.writeString(field, (String) value);
+                break;
+            case VALUE_LONG:
+                out.writeSInt64(field, (Long) value);
+                break;
+            case VALUE_INT:
+                out.writeSInt32(field, (Integer) value);
+                break;
+            case VALUE_DOUBLE:
+                out.writeDouble(field, (Double) value);
+                break;
+            case VALUE_BOOLEAN:
+                out.writeBool(field, (Boolean) value);
+                break;
+            default:
+                out.writeByteArray(field, (byte[]) value);
+            }
+        }
+    }
+
+    /**
+     * Pre-encode a value.
+     *
+     * @param value
+     * @return {@code null} if {@code value} is {@code null}
+     */
+    private static Value encodeValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof String) {
+            return new Value(VALUE_STRING, value);
+        }
+        if (value instanceof Long) {
+            return new Value(VALUE_LONG, value);
+        }
+        if (value instanceof Integer) {
+            return new Value(VALUE_INT, value);
+        }
+        if (value instanceof Double) {
+            return new Value(VALUE_DOUBLE, value);
+        }
+        if (value instanceof Boolean) {
+            return new Value(VALUE_BOOLEAN, value);
+        }
+        if (value instanceof TickMessage) {
+            return new Value(VALUE_TICK, toBinary((TickMessage) value));
+        }
+        if (value instanceof DDLock) {
+            return new Value(VALUE_LOCK, toBinary((DDLock) value));
+        }
+        if (value instanceof DDLease) {
+            return new Value(VALUE_LEASE, toBinary((DDLease) value));
+        }
+        return new Value(VALUE_JAVA, SerializationUtils.serialize((Serializable) value));
+    }
+
+    private final static Object NO_VALUE = new Object();
+
+    /**
+     * Read a value field.
+     *
+     * @param in
+     * @param field
+     * @return {@link #NO_VALUE} if {@code field} is not a value field
+     * @throws IOException
+     */
+    private static Object readValue(CodedInputStream in, int field) throws IOException {
+        switch (field) {
+        case VALUE_STRING:
+            return in.readString();
+        case VALUE_LONG:
+            return in.readSInt64();
+        case VALUE_INT:
+            return in.readSInt32();
+        case VALUE_DOUBLE:
+            return in.readDouble();
+        case VALUE_BOOLEAN:
+            return in.readBool();
+        case VALUE_JAVA:
+            return SerializationUtils.deserialize(in.readByteArray());
+        case VALUE_TICK:
+            return tickFromBinary(in.readByteArray());
+        case VALUE_LOCK:
+            return lockFromBinary(in.readByteArray());
+        case VALUE_LEASE:
+            return leaseFromBinary(in.readByteArray());
+        default:
+            return NO_VALUE;
+        }
+    }
+
+    private static int computeMessageSize(int field, int size) {
+        return CodedOutputStream.computeTagSize(field)
+                + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+    }
+
+    private static void writeMessageHeader(CodedOutputStream out, int field, int size)
+            throws IOException {
+        out.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        out.writeUInt32NoTag(size);
+    }
+
+    /*----------------------------------------------------------------------*/
+
+    /**
+     * Serialize a tick message.
+     *
+     * @param tick
+     * @return
+     */
+    public static byte[] toBinary(TickMessage tick) {
+        Map<String, Object> tags = tick.getTags();
+        int size = CodedOutputStream.computeFixed64Size(TICK_ID, tick.id)
+                + CodedOutputStream.computeInt64Size(TICK_TIMESTAMP, tick.timestampMs);
+        if (tick.sender != null) {
+            size += CodedOutputStream.computeStringSize(TICK_SENDER, tick.sender);
+        }
+        String[] tagNames = null;
+        Value[] tagValues = null;
+        int[] tagSizes = null;
+        if (!tags.isEmpty()) {
+            tagNames = new String[tags.size()];
+            tagValues = new Value[tags.size()];
+            tagSizes = new int[tags.size()];
+            int i = 0;
+            for (Map.Entry<String, Object> tag : tags.entrySet()) {
+                tagNames[i] = tag.getKey();
+                tagValues[i] = encodeValue(tag.getValue());
+                tagSizes[i] = CodedOutputStream.computeStringSize(TAG_NAME, tagNames[i])
+                        + (tagValues[i] != null ? tagValues[i].computeSize() : 0);
+                size += computeMessageSize(TICK_TAG, tagSizes[i]);
+                i++;
+            }
+        }
+
+        byte[] result = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(result);
+        try {
+            out.writeFixed64(TICK_ID, tick.id);
+            out.writeInt64(TICK_TIMESTAMP, tick.timestampMs);
+            if (tick.sender != null) {
+                out.writeString(TICK_SENDER, tick.sender);
+            }
+            for (int i = 0; tagNames != null && i < tagNames.length; i++) {
+                writeMessageHeader(out, TICK_TAG, tagSizes[i]);
+                out.writeString(TAG_NAME, tagNames[i]);
+                if (tagValues[i] != null) {
+                    tagValues[i].write(out);
+                }
+            }
+            out.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // should not happen when writing to a byte array of the exact size
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Deserialize a tick message.
+     *
+     * @param bytes
+     * @return
+     * @throws IOException
+     */
+    public static TickMessage tickFromBinary(byte[] bytes) throws IOException {
+        CodedInputStream in = CodedInputStream.newInstance(bytes);
+        long id = 0, timestamp = 0;
+        String sender = null;
+        Map<String, Object> tags = null;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+            case TICK_ID:
+                id = in.readFixed64();
+                break;
+            case TICK_TIMESTAMP:
+                timestamp = in.readInt64();
+                break;
+            case TICK_SENDER:
+                sender = in.readString();
+                break;
+            case TICK_TAG:
+                if (tags == null) {
+                    tags = new HashMap<>();
+                }
+                int oldLimit = in.pushLimit(in.readRawVarint32());
+                readTag(in, tags);
+                in.popLimit(oldLimit);
+                break;
+            default:
+                in.skipField(tag);
+            }
+        }
+        return new TickMessage(id, timestamp, sender, tags);
+    }
+
+    private static void readTag(CodedInputStream in, Map<String, Object> tags)
+            throws IOException {
+        String name = null;
+        Object value = null;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            int field = WireFormat.getTagFieldNumber(tag);
+            if (field == TAG_NAME) {
+                name = in.readString();
+            } else {
+                Object v = readValue(in, field);
+                if (v == NO_VALUE) {
+                    in.skipField(tag);
+                } else {
+                    value = v;
+                }
+            }
+        }
+        if (name != null) {
+            tags.put(name, value);
+        }
+    }
+
+    /*----------------------------------------------------------------------*/
+
+    /**
+     * Serialize a lock.
+     *
+     * @param lock
+     * @return
+     */
+    public static byte[] toBinary(DDLock lock) {
+        int size = CodedOutputStream.computeInt64Size(LOCK_TIMESTAMP, lock.timestamp)
+                + CodedOutputStream.computeInt64Size(LOCK_EXPIRY, lock.expiry);
+        if (lock.lockId != null) {
+            size += CodedOutputStream.computeStringSize(LOCK_ID, lock.lockId);
+        }
+        byte[] result = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(result);
+        try {
+            out.writeInt64(LOCK_TIMESTAMP, lock.timestamp);
+            out.writeInt64(LOCK_EXPIRY, lock.expiry);
+            if (lock.lockId != null) {
+                out.writeString(LOCK_ID, lock.lockId);
+            }
+            out.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Deserialize a lock.
+     *
+     * @param bytes
+     * @return
+     * @throws IOException
+     */
+    public static DDLock lockFromBinary(byte[] bytes) throws IOException {
+        CodedInputStream in = CodedInputStream.newInstance(bytes);
+        long timestamp = 0, expiry = 0;
+        String lockId = null;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+            case LOCK_TIMESTAMP:
+                timestamp = in.readInt64();
+                break;
+            case LOCK_EXPIRY:
+                expiry = in.readInt64();
+                break;
+            case LOCK_ID:
+                lockId = in.readString();
+                break;
+            default:
+                in.skipField(tag);
+            }
+        }
+        return new DDLock(lockId, timestamp, expiry);
+    }
+
+    /*----------------------------------------------------------------------*/
+
+    /**
+     * Serialize a lease.
+     *
+     * @param lease
+     * @return
+     */
+    public static byte[] toBinary(DDLease lease) {
+        int size = CodedOutputStream.computeInt64Size(LEASE_TOKEN, lease.token)
+                + CodedOutputStream.computeInt64Size(LEASE_SEQ, lease.seq)
+                + CodedOutputStream.computeInt64Size(LEASE_DURATION, lease.durationMs);
+        if (lease.owner != null) {
+            size += CodedOutputStream.computeStringSize(LEASE_OWNER, lease.owner);
+        }
+        byte[] result = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(result);
+        try {
+            if (lease.owner != null) {
+                out.writeString(LEASE_OWNER, lease.owner);
+            }
+            out.writeInt64(LEASE_TOKEN, lease.token);
+            out.writeInt64(LEASE_SEQ, lease.seq);
+            out.writeInt64(LEASE_DURATION, lease.durationMs);
+            out.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Deserialize a lease.
+     *
+     * @param bytes
+     * @return
+     * @throws IOException
+     */
+    public static DDLease leaseFromBinary(byte[] bytes) throws IOException {
+        CodedInputStream in = CodedInputStream.newInstance(bytes);
+        String owner = null;
+        long token = 0, seq = 0, duration = 0;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+            case LEASE_OWNER:
+                owner = in.readString();
+                break;
+            case LEASE_TOKEN:
+                token = in.readInt64();
+                break;
+            case LEASE_SEQ:
+                seq = in.readInt64();
+                break;
+            case LEASE_DURATION:
+                duration = in.readInt64();
+                break;
+            default:
+                in.skipField(tag);
+            }
+        }
+        return new DDLease(owner, token, seq, duration);
+    }
+
+    /*----------------------------------------------------------------------*/
+
+    /**
+     * Serialize distributed-data tags.
+     *
+     * @param tags
+     * @return
+     */
+    public static byte[] toBinary(DDTags tags) {
+        int size = CodedOutputStream.computeFixed64Size(TAGS_ID, tags.getId());
+        if (tags.getKey() != null) {
+            size += CodedOutputStream.computeStringSize(TAGS_KEY, tags.getKey());
+        }
+        byte[] result = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(result);
+        try {
+            out.writeFixed64(TAGS_ID, tags.getId());
+            if (tags.getKey() != null) {
+                out.writeString(TAGS_KEY, tags.getKey());
+            }
+            out.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Deserialize distributed-data tags.
+     *
+     * @param bytes
+     * @return
+     * @throws IOException
+     */
+    public static DDTags tagsFromBinary(byte[] bytes) throws IOException {
+        CodedInputStream in = CodedInputStream.newInstance(bytes);
+        DDTags result = new DDTags();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+            case TAGS_ID:
+                result.setId(in.readFixed64());
+                break;
+            case TAGS_KEY:
+                result.setKey(in.readString());
+                break;
+            default:
+                in.skipField(tag);
+            }
+        }
+        return result;
+    }
+
+    /*----------------------------------------------------------------------*/
+
+    /**
+     * Serialize a distributed-data get result.
+     *
+     * @param getResult
+     * @return
+     */
+    public static byte[] toBinary(DDGetResult getResult) {
+        Collection<Object> value = getResult.getValue();
+        int size = CodedOutputStream.computeFixed64Size(GET_ID, getResult.getId());
+        if (getResult.getKey() != null) {
+            size += CodedOutputStream.computeStringSize(GET_KEY, getResult.getKey());
+        }
+        Value[] values = null;
+        if (value != null) {
+            size += CodedOutputStream.computeBoolSize(GET_HAS_VALUE, true);
+            values = new Value[value.size()];
+            int i = 0;
+            for (Object v : value) {
+                values[i] = encodeValue(v);
+                size += computeMessageSize(GET_VALUE,
+                        values[i] != null ? values[i].computeSize() : 0);
+                i++;
+            }
+        }
+        byte[] result = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(result);
+        try {
+            out.writeFixed64(GET_ID, getResult.getId());
+            if (getResult.getKey() != null) {
+                out.writeString(GET_KEY, getResult.getKey());
+            }
+            if (values != null) {
+                out.writeBool(GET_HAS_VALUE, true);
+                for (Value v : values) {
+                    writeMessageHeader(out, GET_VALUE, v != null ? v.computeSize() : 0);
+                    if (v != null) {
+                        v.write(out);
+                    }
+                }
+            }
+            out.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Deserialize a distributed-data get result.
+     *
+     * @param bytes
+     * @param manifest
+     * @return
+     * @throws IOException
+     */
+    public static DDGetResult getResultFromBinary(byte[] bytes, String manifest)
+            throws IOException {
+        CodedInputStream in = CodedInputStream.newInstance(bytes);
+        long id = 0;
+        String key = null;
+        List<Object> values = null;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+            case GET_ID:
+                id = in.readFixed64();
+                break;
+            case GET_KEY:
+                key = in.readString();
+                break;
+            case GET_HAS_VALUE:
+                if (in.readBool() && values == null) {
+                    values = new ArrayList<>();
+                }
+                break;
+            case GET_VALUE:
+                if (values == null) {
+                    values = new ArrayList<>();
+                }
+                int oldLimit = in.pushLimit(in.readRawVarint32());
+                Object value = null;
+                int valueTag;
+                while ((valueTag = in.readTag()) != 0) {
+                    Object v = readValue(in, WireFormat.getTagFieldNumber(valueTag));
+                    if (v == NO_VALUE) {
+                        in.skipField(valueTag);
+                    } else {
+                        value = v;
+                    }
+                }
+                in.popLimit(oldLimit);
+                values.add(value);
+                break;
+            default:
+                in.skipField(tag);
+            }
+        }
+        DDGetResult result = MANIFEST_GET_NOT_FOUND.equals(manifest)
+                ? DDGetResult.notFound(id, key)
+                : MANIFEST_GET_ERROR.equals(manifest) ? DDGetResult.error(id, key)
+                        : new DDGetResult(id, key);
+        return values != null ? result.setValue(values) : result;
+    }
+}
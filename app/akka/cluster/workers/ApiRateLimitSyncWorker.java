@@ -0,0 +1,103 @@
+package akka.cluster.workers;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import akka.TickMessage;
+import akka.cluster.ddata.Key;
+import akka.cluster.ddata.PNCounterMap;
+import akka.cluster.ddata.PNCounterMapKey;
+import akka.cluster.ddata.Replicator;
+import akka.workers.CronFormat;
+import api.ApiDispatcher;
+import api.ApiRateLimiter;
+
+/**
+ * Cluster worker that reconciles API rate limits across cluster nodes (see
+ * {@link ApiRateLimiter}).
+ *
+ * <p>
+ * Every second, each node adds its own API consumption to a replicated {@link PNCounterMap}
+ * ({@code WriteLocal}, spread by gossip). Cluster-wide totals are received via subscription and
+ * handed to the rate limiter, so there is no cluster round trip per request.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class ApiRateLimitSyncWorker extends BaseClusterWorker {
+
+    private final Key<PNCounterMap<String>> usageKey = PNCounterMapKey.create("api-ratelimit");
+
+    private CronFormat scheduling = CronFormat.parse("* * *");
+
+    /**
+     * Schedule to sync every second.
+     */
+    @Override
+    protected CronFormat getScheduling() {
+        return scheduling;
+    }
+
+    private ApiRateLimiter getRateLimiter() {
+        ApiDispatcher apiDispatcher = getRegistry().getApiDispatcher();
+        return apiDispatcher != null ? apiDispatcher.getApiRateLimiter() : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void initActor() throws Exception {
+        super.initActor();
+
+        getReplicator().tell(new Replicator.Subscribe<>(usageKey, self()), self());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void onDDChanged(Replicator.Changed<?> msg) {
+        super.onDDChanged(msg);
+
+        ApiRateLimiter rateLimiter = getRateLimiter();
+        if (rateLimiter != null && usageKey.equals(msg.key())) {
+            Map<String, BigInteger> entries = ((Replicator.Changed<PNCounterMap<String>>) msg)
+                    .dataValue().getEntries();
+            Map<String, Long> totals = new HashMap<>();
+            entries.forEach((id, total) -> totals.put(id, total.longValue()));
+            rateLimiter.reconcile(totals);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void destroyActor() throws Exception {
+        getReplicator().tell(new Replicator.Unsubscribe<>(usageKey, self()), self());
+        super.destroyActor();
+    }
+
+    @Override
+    protected void doJob(TickMessage tick) {
+        ApiRateLimiter rateLimiter = getRateLimiter();
+        Map<String, Long> deltas = rateLimiter != null ? rateLimiter.collectUsageDeltas() : null;
+        if (deltas == null || deltas.isEmpty()) {
+            return;
+        }
+        getReplicator().tell(new Replicator.Update<>(usageKey, PNCounterMap.create(),
+                Replicator.writeLocal(), Optional.empty(), curr -> {
+                    PNCounterMap<String> data = curr;
+                    for (Map.Entry<String, Long> e : deltas.entrySet()) {
+                        data = data.increment(getCluster(), e.getKey(), e.getValue());
+                    }
+                    return data;
+                }), self());
+    }
+
+}
@@ -5,10 +5,18 @@ import java.util.Collections;
 import java.util.concurrent.atomic.AtomicLong;
 
 import akka.TickMessage;
+import akka.actor.ActorRef;
 import akka.cluster.BaseClusterActor;
 import akka.cluster.ClusterConstants;
+import akka.dispatch.ControlMessage;
 import akka.workers.BaseWorker;
+import akka.workers.CheckpointStore;
 import akka.workers.CronFormat;
+import akka.workers.IntervalSchedule;
+import akka.workers.WorkerCheckpoints;
+import akka.workers.WorkerTimer;
+import akka.workers.WorkerTimer.RescheduleMessage;
+import akka.workers.WorkerTimer.ScheduledTickMessage;
 import play.Logger;
 import scala.concurrent.ExecutionContextExecutor;
 import utils.IdUtils;
@@ -17,14 +25,23 @@ import utils.IdUtils;
  * Base class to implement cluster-workers. See {@link BaseWorker}.
  *
  * <p>
- * Note: there are 2 types of workers
+ * Note: there are 3 types of workers
  * <ul>
- * <li>Singleton worker (see {@link BaseSingletonClusterWorker}): only one singleton worker per
- * cluster-group-id will receive "tick" message per tick.</li>
+ * <li>Singleton worker (see {@link BaseSingletonClusterWorker}): all singleton workers will
+ * receive "tick" message per tick, but only the one that holds the cluster-group-id's lease
+ * runs the job.</li>
+ * <li>Partitioned worker (see {@link BasePartitionedClusterWorker}): all partitioned workers
+ * will receive "tick" message per tick, but each one only processes its own partitions.</li>
  * <li>Normal worker: all normal workers will receive "tick" message per tick.</li>
  * </ul>
  * <p>
  *
+ * <p>
+ * Workers with an interval-based schedule (see {@link #getIntervalScheduling()}) do not listen
+ * to cluster "tick" messages: each worker arms its own timer on the local scheduler. Either way,
+ * a worker instance only runs the job if {@link #isTickOwner()}.
+ * </p>
+ *
  * @author Thanh Nguyen <btnguyen2k@gmail.com>
  * @since template-v0.1.5
  */
@@ -33,7 +50,7 @@ public abstract class BaseClusterWorker extends BaseClusterActor {
     /**
      * Special "tick" message to be sent only once when actor starts.
      */
-    protected static class FirstTimeTickMessage extends TickMessage {
+    protected static class FirstTimeTickMessage extends TickMessage implements ControlMessage {
         private static final long serialVersionUID = "template-v0.1.5".hashCode();
     }
 
@@ -52,7 +69,9 @@ public abstract class BaseClusterWorker extends BaseClusterActor {
      */
     @Override
     protected Collection<String[]> topicSubscriptions() {
-        return Collections.singleton(new String[] { ClusterConstants.TOPIC_TICK_ALL });
+        return getIntervalScheduling() == null
+                ? Collections.singleton(new String[] { ClusterConstants.TOPIC_TICK_ALL })
+                : null;
     }
 
     /**
@@ -60,22 +79,79 @@ public abstract class BaseClusterWorker extends BaseClusterActor {
      */
     @Override
     protected void initActor() throws Exception {
+        checkpoints = new WorkerCheckpoints(this::getCheckpointStore, getClass(),
+                "{" + getActorPath() + "}", 0);
+
         super.initActor();
 
         addMessageHandler(TickMessage.class, this::onTick);
+        addMessageHandler(ScheduledTickMessage.class, this::onScheduledTick);
+        addMessageHandler(RescheduleMessage.class, msg -> scheduleNextTick(
+                msg.afterMs >= 0 ? msg.afterMs : System.currentTimeMillis()));
 
         if (runFirstTimeRegardlessScheduling()) {
             self().tell(new FirstTimeTickMessage(), self());
         }
+
+        timer = new WorkerTimer(getContext());
+        IntervalSchedule interval = getIntervalScheduling();
+        if (interval != null) {
+            timer.start(interval, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since template-v2.6.r2
+     */
+    @Override
+    protected void destroyActor() throws Exception {
+        try {
+            if (timer != null) {
+                timer.cancel();
+            }
+        } catch (Exception e) {
+            Logger.warn(e.getMessage(), e);
+        }
+
+        super.destroyActor();
     }
 
     /**
      * Get worker's scheduling settings as {@link CronFormat}.
      *
+     * <p>
+     * Note: may return {@code null} if worker uses an interval-based schedule (see
+     * {@link #getIntervalScheduling()}).
+     * </p>
+     *
      * @return
      */
     protected abstract CronFormat getScheduling();
 
+    /**
+     * Get worker's interval-based scheduling settings. If not {@code null}, it takes precedence
+     * over {@link #getScheduling()}.
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected IntervalSchedule getIntervalScheduling() {
+        return null;
+    }
+
+    /**
+     * Should this worker instance run the job for a tick (cluster "tick" or interval timer)?
+     * Default is {@code true} (all instances run). Called from within the actor.
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected boolean isTickOwner() {
+        return true;
+    }
+
     /**
      * Sub-class implements this method to actually perform worker business
      * logic.
@@ -85,6 +161,43 @@ public abstract class BaseClusterWorker extends BaseClusterActor {
      */
     protected abstract void doJob(TickMessage tick) throws Exception;
 
+    private WorkerCheckpoints checkpoints;
+
+    /**
+     * Get the node-local checkpoint store.
+     *
+     * @return {@code null} if checkpoint store is disabled
+     * @since template-v2.6.r2
+     */
+    protected CheckpointStore getCheckpointStore() {
+        return getRegistry().getCheckpointStore();
+    }
+
+    /**
+     * Load a checkpoint (e.g. offset of incremental processing) from the node-local store.
+     * Checkpoints are namespaced by worker class.
+     *
+     * @param name
+     * @param defaultValue
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected long loadCheckpoint(String name, long defaultValue) {
+        return checkpoints.load(name, defaultValue);
+    }
+
+    /**
+     * Save a checkpoint (e.g. offset of incremental processing) to the node-local store.
+     *
+     * @param name
+     * @param value
+     * @return {@code false} if checkpoint store is disabled or the checkpoint could not be saved
+     * @since template-v2.6.r2
+     */
+    protected boolean saveCheckpoint(String name, long value) {
+        return checkpoints.save(name, value);
+    }
+
     protected TickMessage _lastTick;
 
     /**
@@ -117,7 +230,8 @@ public abstract class BaseClusterWorker extends BaseClusterActor {
             // only process if "tick" is not too old (within last 30 seconds)
             TickMessage lastTick = getLastTick();
             if (lastTick == null || lastTick.timestampMs < tick.timestampMs) {
-                return getScheduling().matches(tick.timestampMs);
+                CronFormat scheduling = getScheduling();
+                return scheduling != null && scheduling.matches(tick.timestampMs);
             }
         }
         return false;
@@ -149,30 +263,88 @@ public abstract class BaseClusterWorker extends BaseClusterActor {
         return _LOCK.compareAndSet(lockId, 0);
     }
 
+    private WorkerTimer timer;
+
+    /**
+     * Arm the worker's interval timer for the next fire time after {@code afterMs}.
+     *
+     * @param afterMs
+     *            previous fire time (fixed-rate), or time the previous job completed
+     *            (fixed-delay)
+     * @since template-v2.6.r2
+     */
+    protected void scheduleNextTick(long afterMs) {
+        IntervalSchedule interval = getIntervalScheduling();
+        if (interval != null) {
+            timer.armNext(interval, afterMs);
+        }
+    }
+
+    /**
+     * Get the executor to run jobs on ({@code worker-dispatcher}, fallback to the default one).
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected ExecutionContextExecutor getWorkerExecutor() {
+        return WorkerTimer.getWorkerExecutor(getRegistry());
+    }
+
+    /**
+     * Called when the worker's interval timer fires. Ownership (see {@link #isTickOwner()}) is
+     * evaluated here, on the actor's thread. Fixed-delay workers re-arm only after the job
+     * completes.
+     *
+     * @param tick
+     * @since template-v2.6.r2
+     */
+    protected void onScheduledTick(ScheduledTickMessage tick) {
+        IntervalSchedule interval = getIntervalScheduling();
+        boolean fixedDelay = interval != null && interval.isFixedDelay();
+        if (!isTickOwner()) {
+            scheduleNextTick(fixedDelay ? System.currentTimeMillis() : tick.timestampMs);
+            return;
+        }
+        if (fixedDelay) {
+            ActorRef me = self();
+            getWorkerExecutor().execute(() -> {
+                try {
+                    doRunJob(tick);
+                } finally {
+                    me.tell(WorkerTimer.RESCHEDULE, me);
+                }
+            });
+        } else {
+            scheduleNextTick(tick.timestampMs);
+            getWorkerExecutor().execute(() -> doRunJob(tick));
+        }
+    }
+
     protected void onTick(TickMessage tick) {
-        ExecutionContextExecutor ecs = getRegistry()
-                .getExecutionContextExecutor("worker-dispatcher");
-        if (ecs == null) {
-            ecs = getRegistry().getDefaultExecutionContextExecutor();
+        if (!isTickOwner()) {
+            return;
         }
-        ecs.execute(() -> {
+        getWorkerExecutor().execute(() -> {
             if (isTickMatched(tick) || tick instanceof FirstTimeTickMessage) {
-                long lockId = IdUtils.nextIdAsLong();
-                if (lock(lockId)) {
-                    try {
-                        updateLastTick(tick);
-                        doJob(tick);
-                    } catch (Exception e) {
-                        Logger.error("Error while doing job: " + e.getMessage(), e);
-                    } finally {
-                        unlock(lockId);
-                    }
-                } else {
-                    // Busy processing a previous message
-                    Logger.warn("{" + getActorPath() + "} Received TICK message from " + sender()
-                            + ", but I am busy! " + tick);
-                }
+                doRunJob(tick);
             }
         });
     }
+
+    private void doRunJob(TickMessage tick) {
+        long lockId = IdUtils.nextIdAsLong();
+        if (lock(lockId)) {
+            try {
+                updateLastTick(tick);
+                doJob(tick);
+            } catch (Exception e) {
+                Logger.error("Error while doing job: " + e.getMessage(), e);
+            } finally {
+                unlock(lockId);
+            }
+        } else {
+            // Busy processing a previous message
+            Logger.warn("{" + getActorPath() + "} Received TICK message, but I am busy! " + tick);
+        }
+    }
 }
@@ -0,0 +1,206 @@
+package akka.cluster.workers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import akka.TickMessage;
+import akka.actor.Address;
+import akka.cluster.ClusterConstants;
+import akka.cluster.ClusterMemberManager;
+import akka.cluster.ClusterMemberManager.Snapshot;
+import akka.cluster.Member;
+import play.Logger;
+
+/**
+ * Base class for partitioned-cluster-worker implementation.
+ *
+ * <p>
+ * The job is split into {@link #getNumPartitions()} partitions, which are spread over the current
+ * members of {@link #getPartitionRole()} (see {@link ClusterMemberManager}) using rendezvous
+ * (highest-random-weight) hashing: on each tick, every worker instance processes only the
+ * partitions owned by its node. When a member joins or leaves, only the partitions it gains or
+ * loses are moved.
+ * </p>
+ *
+ * <p>
+ * Note: ownership follows each node's own view of membership (MemberUp/MemberRemoved), not
+ * reachability: partitions of an unreachable member are taken over once the member is removed
+ * from the cluster. Nodes do not see membership changes at the same time, so during membership
+ * transitions (and network partitions, when each side removes the other) a partition can be
+ * processed by 2 nodes at the same time. {@link #doPartitionJob(TickMessage, int)} must tolerate
+ * this (e.g. be idempotent, or fence its writes).
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ * @see BaseClusterWorker
+ */
+public abstract class BasePartitionedClusterWorker extends BaseClusterWorker {
+
+    private final static int[] NO_PARTITIONS = new int[0];
+
+    /* partitions owned by this node, computed from membershipSnapshot */
+    private Snapshot membershipSnapshot;
+    private int[] ownedPartitions = NO_PARTITIONS;
+
+    /**
+     * Number of partitions the job is split into. Should be (much) larger than number of nodes
+     * so that partitions are spread evenly.
+     *
+     * @return
+     */
+    protected abstract int getNumPartitions();
+
+    /**
+     * Role whose members share the partitions. Default value is the worker's only deploy role
+     * (see {@link #getDeployRoles()}), or {@link ClusterConstants#ROLE_ALL} otherwise.
+     *
+     * @return
+     */
+    protected String getPartitionRole() {
+        Set<String> deployRoles = getDeployRoles();
+        return deployRoles != null && deployRoles.size() == 1 ? deployRoles.iterator().next()
+                : ClusterConstants.ROLE_ALL;
+    }
+
+    /**
+     * Sub-class implements this method to actually process a partition.
+     *
+     * @param tick
+     * @param partition
+     *            {@code 0 <= partition < getNumPartitions()}
+     * @throws Exception
+     */
+    protected abstract void doPartitionJob(TickMessage tick, int partition) throws Exception;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doJob(TickMessage tick) throws Exception {
+        for (int partition : getOwnedPartitions()) {
+            try {
+                doPartitionJob(tick, partition);
+            } catch (Exception e) {
+                Logger.error("{" + getActorPath() + "} Error while doing job for partition ["
+                        + partition + "]: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Get partitions currently owned by this node.
+     *
+     * @return
+     */
+    protected int[] getOwnedPartitions() {
+        Snapshot snapshot = ClusterMemberManager.getSnapshot();
+        synchronized (this) {
+            if (snapshot != membershipSnapshot) {
+                int[] partitions = assignPartitions(snapshot);
+                if (partitions.length != ownedPartitions.length) {
+                    Logger.info("{" + getActorPath() + "} Owns " + partitions.length + "/"
+                            + getNumPartitions() + " partition(s) of role [" + getPartitionRole()
+                            + "].");
+                }
+                membershipSnapshot = snapshot;
+                ownedPartitions = partitions;
+            }
+            return ownedPartitions;
+        }
+    }
+
+    /**
+     * Check if a partition is currently owned by this node.
+     *
+     * @param partition
+     * @return
+     */
+    protected boolean isPartitionOwner(int partition) {
+        for (int p : getOwnedPartitions()) {
+            if (p == partition) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int[] assignPartitions(Snapshot snapshot) {
+        List<Member> members = snapshot.getMembers(getPartitionRole());
+        List<Address> addresses = new ArrayList<>(members.size());
+        for (Member member : members) {
+            addresses.add(member.address());
+        }
+        return assignPartitions(addresses, getCluster().selfAddress(), getNumPartitions());
+    }
+
+    /**
+     * Assign partitions to members with rendezvous hashing. The result depends only on the set
+     * of members (not on their order), so that every node computes the same assignment.
+     *
+     * @param members
+     * @param self
+     * @param numPartitions
+     * @return partitions owned by {@code self}, ascending (empty if {@code self} is not a
+     *         member)
+     */
+    static int[] assignPartitions(List<Address> members, Address self, int numPartitions) {
+        int selfIndex = -1;
+        long[] memberHashes = new long[members.size()];
+        for (int i = 0; i < memberHashes.length; i++) {
+            Address address = members.get(i);
+            memberHashes[i] = hash(address.toString());
+            if (address.equals(self)) {
+                selfIndex = i;
+            }
+        }
+        if (selfIndex < 0) {
+            return NO_PARTITIONS;
+        }
+
+        int[] owned = new int[numPartitions];
+        int numOwned = 0;
+        for (int partition = 0; partition < numPartitions; partition++) {
+            int owner = 0;
+            long maxWeight = weight(memberHashes[0], partition);
+            for (int i = 1; i < memberHashes.length; i++) {
+                long w = weight(memberHashes[i], partition);
+                // tie-break on member hash so that every node agrees on the owner
+                if (w > maxWeight || (w == maxWeight && memberHashes[i] > memberHashes[owner])) {
+                    maxWeight = w;
+                    owner = i;
+                }
+            }
+            if (owner == selfIndex) {
+                owned[numOwned++] = partition;
+            }
+        }
+        int[] result = new int[numOwned];
+        System.arraycopy(owned, 0, result, 0, numOwned);
+        return result;
+    }
+
+    /**
+     * 64-bit FNV-1a hash: stable across JVMs and nodes (unlike {@link Object#hashCode()}).
+     */
+    private static long hash(String str) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, n = str.length(); i < n; i++) {
+            h ^= str.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static long weight(long memberHash, int partition) {
+        // MurmurHash3's 64-bit finalizer
+        long h = memberHash ^ (partition * 0x9e3779b97f4a7c15L);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,19 +1,28 @@
 package akka.cluster.workers;
 
-import java.util.Collection;
-import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 
 import akka.TickMessage;
-import akka.cluster.ClusterConstants;
-import akka.cluster.DistributedDataManager.DDGetResult;
+import akka.actor.ActorRef;
+import akka.actor.Cancellable;
+import akka.actor.Scheduler;
+import akka.cluster.DDConsistency;
+import akka.cluster.DistributedDataManager.DDLease;
 import akka.workers.CronFormat;
+import play.Logger;
+import scala.concurrent.ExecutionContextExecutor;
+import scala.concurrent.duration.Duration;
 
 /**
  * Base class for singleton-cluster-worker implementation.
  * 
  * <p>
- * Only one singleton worker in the cluster-group-id receives the "tick" message per tick.
+ * All singleton workers of the cluster-group-id receive "tick" messages (or fire their interval
+ * timers), but the job only runs on the worker that holds the group's lease (see
+ * {@link #isTickOwner()} and {@link #getLeaseToken()}). The lease is kept and renewed in
+ * background, so the job keeps running on the same node while it is up.
  * </p>
  * 
  * @author Thanh Nguyen <btnguyen2k@gmail.com>
@@ -23,8 +32,8 @@ import akka.workers.CronFormat;
 public abstract class BaseSingletonClusterWorker extends BaseClusterWorker {
 
     /**
-     * Group-id to subscribe the worker to topics. Default value is
-     * {@link #getActorName()}.
+     * Group-id of the worker: workers of the same group share one lease (see
+     * {@link #getLeaseName()}). Default value is {@link #getActorName()}.
      * 
      * @return
      */
@@ -32,61 +41,349 @@ public abstract class BaseSingletonClusterWorker extends BaseClusterWorker {
         return getActorName();
     }
 
+    /**
+     * Get worker's scheduling settings as {@link CronFormat}.
+     * 
+     * @return
+     */
+    protected abstract CronFormat getScheduling();
+
     /**
      * {@inheritDoc}
      */
     @Override
-    protected Collection<String[]> topicSubscriptions() {
-        return Collections.singleton(
-                new String[] { ClusterConstants.TOPIC_TICK_ONE_PER_GROUP, getWorkerGroupId() });
+    protected TickMessage getLastTick() {
+        // served from the near-cache: last-tick is written by the lease holder, i.e. this worker
+        return ddRegisterGetAsync("last-tick", DDConsistency.LOCAL)
+                .thenApply(value -> value instanceof TickMessage ? (TickMessage) value : null)
+                .toCompletableFuture().join();
     }
 
     /**
-     * Get worker's scheduling settings as {@link CronFormat}.
-     * 
+     * {@inheritDoc}
+     */
+    @Override
+    protected void updateLastTick(TickMessage tick) {
+        // last-writer-wins by nature
+        ddRegisterPut("last-tick", tick);
+    }
+
+    /*----------------------------------------------------------------------*/
+
+    private final static class RenewLeaseMessage {
+    }
+
+    private final static RenewLeaseMessage RENEW_LEASE = new RenewLeaseMessage();
+
+    /**
+     * A lease held by this worker, and until when (local monotonic clock) it is valid.
+     */
+    private final static class HeldLease {
+        final DDLease lease;
+        final long validUntilNanos;
+
+        HeldLease(DDLease lease, long validUntilNanos) {
+            this.lease = lease;
+            this.validUntilNanos = validUntilNanos;
+        }
+
+        boolean isValid() {
+            return System.nanoTime() - validUntilNanos < 0;
+        }
+    }
+
+    private volatile HeldLease heldLease;
+    private final Object leaseLock = new Object();
+    private String leaseOwner;
+    /* actor-confined: acquisition in flight, first-time tick waiting for the lease */
+    private boolean acquiring;
+    private TickMessage pendingFirstTick;
+    /* lease held by another worker, and since when (local monotonic clock) it is unchanged */
+    private DDLease observedLease;
+    private long observedSinceNanos;
+    private Cancellable leaseRenewal;
+
+    /**
+     * Duration of the worker's lease (see {@link #isTickOwner()}). Default value is 30 seconds.
+     *
      * @return
+     * @since template-v2.6.r2
      */
-    protected abstract CronFormat getScheduling();
+    protected long getLeaseDurationMs() {
+        return 30000;
+    }
+
+    /**
+     * Name of the worker's lease in distributed data.
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected String getLeaseName() {
+        return getWorkerGroupId() + "-lease";
+    }
+
+    /**
+     * Fencing token of the lease currently held by this worker. Resources written by
+     * {@link #doJob(TickMessage)} can reject writes carrying a token lower than one they have
+     * already seen, to fence off a stale lease holder. Tokens increase each time the lease
+     * changes hands, and are never the same for 2 owners.
+     *
+     * @return {@code 0} if the lease is not held
+     * @since template-v2.6.r2
+     */
+    protected long getLeaseToken() {
+        HeldLease held = heldLease;
+        return held != null && held.isValid() ? held.lease.token : 0;
+    }
 
     /**
      * {@inheritDoc}
+     *
+     * @since template-v2.6.r2
      */
     @Override
-    protected TickMessage getLastTick() {
-        DDGetResult getResult = ddGet("last-tick");
-        return getResult != null ? getResult.singleValueAs(TickMessage.class) : null;
+    protected void initActor() throws Exception {
+        super.initActor();
+
+        ddNearCache(ddRegisterKey("last-tick"));
+        leaseOwner = getCluster().selfAddress() + getActorPath().toStringWithoutAddress();
+        addMessageHandler(RenewLeaseMessage.class, msg -> renewLease());
+        addMessageHandler(LeaseAcquisition.class, this::onLeaseAcquisition);
+        long renewIntervalMs = Math.max(1, getLeaseDurationMs() / 3);
+        leaseRenewal = getContext().system().scheduler().schedule(
+                Duration.create(renewIntervalMs, TimeUnit.MILLISECONDS),
+                Duration.create(renewIntervalMs, TimeUnit.MILLISECONDS), self(), RENEW_LEASE,
+                getContext().dispatcher(), self());
     }
 
     /**
      * {@inheritDoc}
+     *
+     * @since template-v2.6.r2
      */
     @Override
-    protected void updateLastTick(TickMessage tick) {
-        ddSet("last-tick", tick);
+    protected void destroyActor() throws Exception {
+        try {
+            if (leaseRenewal != null) {
+                leaseRenewal.cancel();
+            }
+            HeldLease held = heldLease;
+            heldLease = null;
+            if (held != null) {
+                // hand the lease over right away instead of letting it expire
+                ddRegisterPut(getLeaseName(), held.lease.release(), DDConsistency.MAJORITY);
+            }
+        } catch (Exception e) {
+            Logger.warn("{" + getActorPath() + "} " + e.getMessage(), e);
+        }
+
+        super.destroyActor();
+    }
+
+    private long leaseValidityNanos() {
+        // stop using the lease a bit before others may consider it expired
+        return TimeUnit.MILLISECONDS.toNanos(getLeaseDurationMs() * 9 / 10);
+    }
+
+    /**
+     * Outcome of a lease acquisition, sent back to the actor.
+     */
+    private final static class LeaseAcquisition {
+        /* the acquired lease, null if not acquired */
+        final DDLease acquired;
+        /* lease held by another worker, if known */
+        final DDLease observed;
+        final long startNanos;
+
+        LeaseAcquisition(DDLease acquired, DDLease observed, long startNanos) {
+            this.acquired = acquired;
+            this.observed = observed;
+            this.startNanos = startNanos;
+        }
+    }
+
+    /**
+     * Next fencing token: the generation (high bits) increases each time the lease changes
+     * hands, the low 16 bits identify the owner, so that 2 concurrent acquisitions from the same
+     * lease never carry the same token.
+     */
+    private long nextToken(DDLease current) {
+        long generation = current != null ? (current.token >>> 16) + 1 : 1;
+        return (generation << 16) | (leaseOwner.hashCode() & 0xFFFF);
+    }
+
+    private CompletionStage<Void> delay(long delayMs, Scheduler scheduler,
+            ExecutionContextExecutor ec) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        scheduler.scheduleOnce(Duration.create(delayMs, TimeUnit.MILLISECONDS),
+                () -> result.complete(null), ec);
+        return result;
+    }
+
+    /**
+     * Acquire the worker's lease in background, if not held nor being acquired. The outcome is
+     * handled by {@link #onLeaseAcquisition(LeaseAcquisition)}.
+     *
+     * <p>
+     * Concurrent acquisitions are resolved by the register (last-writer-wins, the same winner on
+     * all replicas): the candidate is only used if its write completes within
+     * {@code ddTypedTimeoutMs} of the read it is based on, and it is read back (majority) only
+     * after a longer settle delay, so that every concurrent write based on the same read has
+     * completed and is seen by the read-back. Later acquisitions read the winner and do not race.
+     * </p>
+     */
+    private void acquireLease() {
+        HeldLease held = heldLease;
+        if (acquiring || (held != null && held.isValid())) {
+            return;
+        }
+        long durationNanos = TimeUnit.MILLISECONDS.toNanos(getLeaseDurationMs());
+        if (observedLease != null && System.nanoTime() - observedSinceNanos < durationNanos) {
+            // held by another worker and not expired yet, no need to ask
+            return;
+        }
+        acquiring = true;
+        DDLease observed = observedLease;
+        String leaseName = getLeaseName();
+        ActorRef me = self();
+        Scheduler scheduler = getContext().system().scheduler();
+        ExecutionContextExecutor ec = getContext().dispatcher();
+        long windowNanos = TimeUnit.MILLISECONDS.toNanos(ddTypedTimeoutMs);
+        long settleMs = ddTypedTimeoutMs + 1000;
+        long startNanos = System.nanoTime();
+        ddRegisterGetAsync(leaseName, DDConsistency.MAJORITY).thenCompose(value -> {
+            DDLease current = value instanceof DDLease ? (DDLease) value : null;
+            if (current != null && current.owner != null && !leaseOwner.equals(current.owner)) {
+                if (!current.equals(observed)) {
+                    // lease changed hands or was renewed, wait for another full duration
+                    return CompletableFuture
+                            .completedFuture(new LeaseAcquisition(null, current, startNanos));
+                }
+                // unchanged for a full lease duration: the owner is gone, take over
+                Logger.info("{" + getActorPath() + "} Lease " + current + " expired, taking over.");
+            }
+            DDLease candidate = new DDLease(leaseOwner, nextToken(current), 0,
+                    getLeaseDurationMs());
+            return ddRegisterPut(leaseName, candidate, DDConsistency.MAJORITY).thenCompose(ok -> {
+                if (!ok || System.nanoTime() - startNanos > windowNanos) {
+                    // not written, or based on a read that may be stale by now
+                    return CompletableFuture
+                            .completedFuture(new LeaseAcquisition(null, null, startNanos));
+                }
+                return delay(settleMs, scheduler, ec)
+                        .thenCompose(v -> ddRegisterGetAsync(leaseName, DDConsistency.MAJORITY))
+                        .thenApply(readBack -> candidate.equals(readBack)
+                                ? new LeaseAcquisition(candidate, null, startNanos)
+                                // lost a concurrent acquisition
+                                : new LeaseAcquisition(null,
+                                        readBack instanceof DDLease ? (DDLease) readBack : null,
+                                        startNanos));
+            });
+        }).exceptionally(e -> {
+            Logger.warn("{" + getActorPath() + "} Cannot acquire lease: " + e.getMessage());
+            return new LeaseAcquisition(null, null, startNanos);
+        }).thenAccept(result -> me.tell(result, me));
+    }
+
+    private void onLeaseAcquisition(LeaseAcquisition result) {
+        acquiring = false;
+        if (result.acquired != null) {
+            observedLease = null;
+            synchronized (leaseLock) {
+                heldLease = new HeldLease(result.acquired,
+                        result.startNanos + leaseValidityNanos());
+            }
+            Logger.info("{" + getActorPath() + "} Acquired lease " + result.acquired + ".");
+            if (pendingFirstTick != null) {
+                self().tell(pendingFirstTick, self());
+            }
+        } else if (result.observed != null && !result.observed.equals(observedLease)) {
+            observedLease = result.observed;
+            observedSinceNanos = System.nanoTime();
+        }
+        if (result.observed != null) {
+            // another worker runs the job
+            pendingFirstTick = null;
+        }
+    }
+
+    /**
+     * Renew the lease (if held) in background, or try to acquire it.
+     */
+    private void renewLease() {
+        HeldLease held = heldLease;
+        if (held == null || !held.isValid()) {
+            acquireLease();
+            return;
+        }
+        String leaseName = getLeaseName();
+        DDLease renewed = held.lease.renew();
+        long startNanos = System.nanoTime();
+        ddRegisterGetAsync(leaseName, DDConsistency.MAJORITY).thenCompose(value -> {
+            if (!held.lease.equals(value)) {
+                synchronized (leaseLock) {
+                    if (heldLease == held) {
+                        Logger.warn("{" + getActorPath() + "} Lost lease " + held.lease
+                                + ", current: " + value);
+                        heldLease = null;
+                    }
+                }
+                return CompletableFuture.completedFuture(false);
+            }
+            return ddRegisterPut(leaseName, renewed, DDConsistency.MAJORITY);
+        }).thenAccept(ok -> {
+            if (ok) {
+                synchronized (leaseLock) {
+                    if (heldLease == held) {
+                        heldLease = new HeldLease(renewed, startNanos + leaseValidityNanos());
+                    }
+                }
+            }
+        });
     }
 
     /**
      * {@inheritDoc}
-     * 
+     *
      * <p>
-     * Note: This feature is experimental! The lock is considered "weak".
+     * Only the worker that holds the group's lease runs the job. Holding the lease is a local
+     * check; if it is not held, it is acquired in background (a few cluster round trips) and the
+     * tick is skipped.
      * </p>
+     *
+     * @since template-v2.6.r2
      */
     @Override
-    protected boolean lock(long lockId) {
-        return ddLock(getActorName() + "-lock", String.valueOf(lockId), 60, TimeUnit.SECONDS);
+    protected boolean isTickOwner() {
+        HeldLease held = heldLease;
+        if (held != null && held.isValid()) {
+            return true;
+        }
+        acquireLease();
+        return false;
     }
 
     /**
      * {@inheritDoc}
-     * 
+     *
      * <p>
-     * Note: This feature is experimental! The lock is considered "weak".
+     * The first-time tick is kept until the lease is acquired (dropped if another worker holds
+     * the lease).
      * </p>
+     *
+     * @since template-v2.6.r2
      */
     @Override
-    protected boolean unlock(long lockId) {
-        return ddUnlock(getActorName() + "-lock", String.valueOf(lockId));
+    protected void onTick(TickMessage tick) {
+        if (tick instanceof FirstTimeTickMessage) {
+            if (!isTickOwner()) {
+                pendingFirstTick = tick;
+                return;
+            }
+            pendingFirstTick = null;
+        }
+        super.onTick(tick);
     }
 
 }
@@ -0,0 +1,45 @@
+package akka.cluster.workers;
+
+import java.util.Date;
+
+import com.github.ddth.commons.utils.DateFormatUtils;
+
+import akka.TickMessage;
+import akka.workers.CronFormat;
+import play.Logger;
+
+/**
+ * Sample cluster worker that spreads its job over all nodes: each node processes only its own
+ * slice of the partitions.
+ * 
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class SamplePartitionedClusterWorker extends BasePartitionedClusterWorker {
+
+    /**
+     * Schedule to do job every 10 seconds
+     */
+    private CronFormat scheduling = CronFormat.parse("*/10 * *");
+
+    @Override
+    protected CronFormat getScheduling() {
+        return scheduling;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int getNumPartitions() {
+        return 64;
+    }
+
+    @Override
+    protected void doPartitionJob(TickMessage tick, int partition) {
+        Date d = new Date(tick.timestampMs);
+        Logger.info("[" + DateFormatUtils.toString(d, "HH:mm:ss") + "] " + getActorPath()
+                + " do job for partition " + partition + " " + tick);
+    }
+
+}
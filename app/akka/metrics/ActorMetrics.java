@@ -0,0 +1,189 @@
+package akka.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Per-actor instrumentation: message rate, handler latency, mailbox size, time-in-mailbox and shed
+ * messages.
+ *
+ * <p>
+ * Instrumentation is opt-in (application's configuration {@code metrics.enabled}). Handler
+ * latency and message rate are recorded by {@link akka.BaseActor}; mailbox size,
+ * time-in-mailbox and shed messages are only available for actors that use
+ * {@link InstrumentedBoundedMailbox} (shed messages are always counted).
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class ActorMetrics {
+
+    /**
+     * Id of the instrumented mailbox (see {@code application.conf}).
+     */
+    public final static String MAILBOX_ID = "akka.actor.instrumented-bounded-mailbox";
+
+    private static volatile boolean enabled = false;
+
+    private final static ConcurrentHashMap<String, ActorMetrics> ALL = new ConcurrentHashMap<>();
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * Get metrics of an actor, create if not exists.
+     *
+     * @param actorPath
+     * @return
+     */
+    public static ActorMetrics getOrCreate(String actorPath) {
+        return ALL.computeIfAbsent(actorPath, k -> new ActorMetrics());
+    }
+
+    /**
+     * Remove metrics of an actor.
+     *
+     * @param actorPath
+     */
+    public static void remove(String actorPath) {
+        ALL.remove(actorPath);
+    }
+
+    /**
+     * Get metrics of all instrumented actors.
+     *
+     * @return
+     */
+    public static Map<String, ActorMetrics> getAll() {
+        return Collections.unmodifiableMap(ALL);
+    }
+
+    private final AtomicLong messages = new AtomicLong(0);
+    private final AtomicLong shedNewest = new AtomicLong(0);
+    private final AtomicLong shedOldest = new AtomicLong(0);
+    private final AtomicLong shedRejected = new AtomicLong(0);
+    private final LatencyHistogram handlerLatency = new LatencyHistogram();
+    private final LatencyHistogram timeInMailbox = new LatencyHistogram();
+    private volatile IntSupplier mailboxSize;
+    private long lastRateCount, lastRateNanos = System.nanoTime();
+    private double lastRate;
+
+    /**
+     * Record a message handled by the actor.
+     *
+     * @param latencyNanos
+     */
+    public void recordMessage(long latencyNanos) {
+        messages.incrementAndGet();
+        handlerLatency.record(latencyNanos);
+    }
+
+    /**
+     * Record time a message spent in mailbox.
+     *
+     * @param nanos
+     */
+    public void recordTimeInMailbox(long nanos) {
+        timeInMailbox.record(nanos);
+    }
+
+    /**
+     * Record a message shed by the mailbox.
+     *
+     * @param reason
+     */
+    public void recordShed(OverflowPolicy reason) {
+        switch (reason) {
+        case DROP_OLDEST:
+            shedOldest.incrementAndGet();
+            break;
+        case REJECT:
+            shedRejected.incrementAndGet();
+            break;
+        default:
+            shedNewest.incrementAndGet();
+            break;
+        }
+    }
+
+    /**
+     * Total number of messages shed by the mailbox.
+     *
+     * @return
+     */
+    public long getMailboxShed() {
+        return shedNewest.get() + shedOldest.get() + shedRejected.get();
+    }
+
+    public void setMailboxSize(IntSupplier mailboxSize) {
+        this.mailboxSize = mailboxSize;
+    }
+
+    public long getMessages() {
+        return messages.get();
+    }
+
+    /**
+     * Messages per second since the previous call (at least 1 second apart).
+     *
+     * @return
+     */
+    public synchronized double getMessageRate() {
+        long now = System.nanoTime();
+        long elapsed = now - lastRateNanos;
+        if (elapsed >= 1000000000L) {
+            long count = messages.get();
+            lastRate = (count - lastRateCount) * 1e9 / elapsed;
+            lastRateCount = count;
+            lastRateNanos = now;
+        }
+        return lastRate;
+    }
+
+    public LatencyHistogram getHandlerLatency() {
+        return handlerLatency;
+    }
+
+    public LatencyHistogram getTimeInMailbox() {
+        return timeInMailbox;
+    }
+
+    /**
+     * Current mailbox size, {@code -1} if not available.
+     *
+     * @return
+     */
+    public int getMailboxSize() {
+        IntSupplier mailboxSize = this.mailboxSize;
+        return mailboxSize != null ? mailboxSize.getAsInt() : -1;
+    }
+
+    /**
+     * Export as a map.
+     *
+     * @return
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("messages", getMessages());
+        result.put("messages_per_sec", getMessageRate());
+        result.put("mailbox_size", getMailboxSize());
+        result.put("mailbox_shed", getMailboxShed());
+        result.put("mailbox_shed_newest", shedNewest.get());
+        result.put("mailbox_shed_oldest", shedOldest.get());
+        result.put("mailbox_shed_rejected", shedRejected.get());
+        result.put("handler_latency", handlerLatency.toMap());
+        result.put("time_in_mailbox", timeInMailbox.toMap());
+        return result;
+    }
+}
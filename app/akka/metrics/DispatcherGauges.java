@@ -0,0 +1,116 @@
+package akka.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Saturation gauges of dispatchers' thread pools.
+ *
+ * <p>
+ * Thread pools are registered by {@link InstrumentedExecutorConfigurator} when dispatchers create
+ * them, and unregistered once shut down (e.g. the actor system is terminated on a dev-mode
+ * reload). Gauges are read on demand, so there is no cost on the task submission path.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class DispatcherGauges {
+
+    private final static Map<String, ExecutorService> POOLS = new ConcurrentHashMap<>();
+
+    /**
+     * Register a dispatcher's thread pool.
+     *
+     * @param dispatcherId
+     * @param executorService
+     */
+    public static void register(String dispatcherId, ExecutorService executorService) {
+        removeShutdownPools();
+        POOLS.put(dispatcherId, executorService);
+    }
+
+    /**
+     * Unregister a dispatcher's thread pool.
+     *
+     * @param dispatcherId
+     */
+    public static void unregister(String dispatcherId) {
+        POOLS.remove(dispatcherId);
+    }
+
+    /**
+     * Unregister thread pools that have been shut down.
+     */
+    private static void removeShutdownPools() {
+        POOLS.entrySet().removeIf(e -> e.getValue().isShutdown());
+    }
+
+    /**
+     * Read gauges of a thread pool.
+     *
+     * @param executorService
+     * @return
+     */
+    public static Map<String, Object> gauges(ExecutorService executorService) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        int active, capacity;
+        if (executorService instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor tpe = (ThreadPoolExecutor) executorService;
+            active = tpe.getActiveCount();
+            capacity = tpe.getMaximumPoolSize();
+            result.put("type", "thread-pool-executor");
+            result.put("pool_size", tpe.getPoolSize());
+            result.put("max_pool_size", capacity);
+            result.put("active_threads", active);
+            result.put("queued_tasks", tpe.getQueue().size());
+            result.put("completed_tasks", tpe.getCompletedTaskCount());
+        } else if (executorService instanceof ForkJoinPool) {
+            ForkJoinPool fjp = (ForkJoinPool) executorService;
+            active = fjp.getActiveThreadCount();
+            capacity = fjp.getParallelism();
+            result.put("type", "fork-join-executor");
+            result.put("pool_size", fjp.getPoolSize());
+            result.put("parallelism", capacity);
+            result.put("active_threads", active);
+            result.put("running_threads", fjp.getRunningThreadCount());
+            result.put("queued_submissions", fjp.getQueuedSubmissionCount());
+            result.put("queued_tasks", fjp.getQueuedTaskCount());
+        } else if (executorService instanceof akka.dispatch.forkjoin.ForkJoinPool) {
+            akka.dispatch.forkjoin.ForkJoinPool fjp = (akka.dispatch.forkjoin.ForkJoinPool)
+                    executorService;
+            active = fjp.getActiveThreadCount();
+            capacity = fjp.getParallelism();
+            result.put("type", "fork-join-executor");
+            result.put("pool_size", fjp.getPoolSize());
+            result.put("parallelism", capacity);
+            result.put("active_threads", active);
+            result.put("running_threads", fjp.getRunningThreadCount());
+            result.put("queued_submissions", fjp.getQueuedSubmissionCount());
+            result.put("queued_tasks", fjp.getQueuedTaskCount());
+        } else {
+            result.put("type", executorService.getClass().getName());
+            return result;
+        }
+        result.put("saturation", capacity > 0 ? (double) active / capacity : 0);
+        return result;
+    }
+
+    /**
+     * Read gauges of all registered thread pools, keyed by dispatcher id.
+     *
+     * @return
+     */
+    public static Map<String, Map<String, Object>> getAll() {
+        removeShutdownPools();
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        POOLS.forEach((id, executorService) -> result.put(id, gauges(executorService)));
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -0,0 +1,256 @@
+package akka.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.typesafe.config.Config;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.DeadLetter;
+import akka.actor.Status;
+import akka.dispatch.BoundedMessageQueueSemantics;
+import akka.dispatch.ControlMessage;
+import akka.dispatch.Envelope;
+import akka.dispatch.MailboxType;
+import akka.dispatch.MessageQueue;
+import akka.dispatch.ProducesMessageQueue;
+import scala.Option;
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
+
+/**
+ * Bounded mailbox with priority for control messages and load-shedding, that reports its size,
+ * the time messages spend in it and shed messages to the owner's {@link ActorMetrics}.
+ *
+ * <p>
+ * Configuration (see {@code akka.actor.instrumented-bounded-mailbox} in
+ * {@code application.conf}):
+ * </p>
+ *
+ * <pre>
+ * mailbox-type      = "akka.metrics.InstrumentedBoundedMailbox"
+ * mailbox-capacity  = 10000
+ * # drop-newest, drop-oldest or reject (see OverflowPolicy)
+ * overflow-policy   = "drop-newest"
+ * # messages of these classes (and akka.dispatch.ControlMessage) skip ahead of other messages
+ * priority-messages = ["akka.cluster.ClusterEvent$ClusterDomainEvent"]
+ * </pre>
+ *
+ * <p>
+ * Priority messages are kept in a separate queue that is drained first and is not bounded (they
+ * are expected to be rare), so they are never shed. Shed messages go to dead letters.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class InstrumentedBoundedMailbox implements MailboxType,
+        ProducesMessageQueue<InstrumentedBoundedMailbox.InstrumentedMessageQueue> {
+
+    /**
+     * Message queue of {@link InstrumentedBoundedMailbox}.
+     */
+    public static class InstrumentedMessageQueue
+            implements MessageQueue, BoundedMessageQueueSemantics {
+
+        private static class Entry {
+            final Envelope envelope;
+            final long enqueuedNanos;
+
+            Entry(Envelope envelope, long enqueuedNanos) {
+                this.envelope = envelope;
+                this.enqueuedNanos = enqueuedNanos;
+            }
+        }
+
+        private final int capacity;
+        private final OverflowPolicy overflowPolicy;
+        private final Class<?>[] priorityMessages;
+        private final ActorMetrics metrics;
+        private final ActorSystem system;
+        private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger(0);
+        private final Queue<Entry> priorityQueue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger prioritySize = new AtomicInteger(0);
+
+        public InstrumentedMessageQueue(int capacity, OverflowPolicy overflowPolicy,
+                Class<?>[] priorityMessages, ActorMetrics metrics, ActorSystem system) {
+            this.capacity = capacity;
+            this.overflowPolicy = overflowPolicy;
+            this.priorityMessages = priorityMessages;
+            this.metrics = metrics;
+            this.system = system;
+            if (metrics != null) {
+                metrics.setMailboxSize(this::numberOfMessages);
+            }
+        }
+
+        private boolean isPriority(Object message) {
+            if (message instanceof ControlMessage) {
+                return true;
+            }
+            for (Class<?> clazz : priorityMessages) {
+                if (clazz.isInstance(message)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Entry newEntry(Envelope handle) {
+            return new Entry(handle,
+                    metrics != null && ActorMetrics.isEnabled() ? System.nanoTime() : 0);
+        }
+
+        private void shed(ActorRef receiver, Envelope handle, OverflowPolicy reason) {
+            if (metrics != null) {
+                metrics.recordShed(reason);
+            }
+            if (system == null) {
+                return;
+            }
+            ActorRef sender = handle.sender();
+            if (reason == OverflowPolicy.REJECT && sender != null && sender != ActorRef.noSender()
+                    && !sender.equals(system.deadLetters())) {
+                sender.tell(new Status.Failure(new MailboxOverflowException(
+                        "Mailbox of " + receiver + " is full, message rejected.")), receiver);
+            } else {
+                system.deadLetters().tell(new DeadLetter(handle.message(), sender, receiver),
+                        sender);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void enqueue(ActorRef receiver, Envelope handle) {
+            if (isPriority(handle.message())) {
+                prioritySize.incrementAndGet();
+                priorityQueue.add(newEntry(handle));
+                return;
+            }
+            while (true) {
+                int n = size.get();
+                if (n < capacity) {
+                    if (size.compareAndSet(n, n + 1)) {
+                        queue.add(newEntry(handle));
+                        return;
+                    }
+                    continue;
+                }
+                if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                    // replace the oldest message, size is unchanged
+                    Entry oldest = queue.poll();
+                    if (oldest == null) {
+                        // drained concurrently, retry
+                        continue;
+                    }
+                    queue.add(newEntry(handle));
+                    shed(receiver, oldest.envelope, OverflowPolicy.DROP_OLDEST);
+                } else {
+                    shed(receiver, handle, overflowPolicy);
+                }
+                return;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Envelope dequeue() {
+            Entry entry = priorityQueue.poll();
+            if (entry != null) {
+                prioritySize.decrementAndGet();
+            } else {
+                entry = queue.poll();
+                if (entry == null) {
+                    return null;
+                }
+                size.decrementAndGet();
+            }
+            if (entry.enqueuedNanos != 0) {
+                metrics.recordTimeInMailbox(System.nanoTime() - entry.enqueuedNanos);
+            }
+            return entry.envelope;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int numberOfMessages() {
+            return size.get() + prioritySize.get();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasMessages() {
+            return !priorityQueue.isEmpty() || !queue.isEmpty();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void cleanUp(ActorRef owner, MessageQueue deadLetters) {
+            Envelope envelope;
+            while ((envelope = dequeue()) != null) {
+                deadLetters.enqueue(owner, envelope);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public FiniteDuration pushTimeOut() {
+            return Duration.Zero();
+        }
+    }
+
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Class<?>[] priorityMessages;
+
+    public InstrumentedBoundedMailbox(ActorSystem.Settings settings, Config config) {
+        this.capacity = config.hasPath("mailbox-capacity") ? config.getInt("mailbox-capacity")
+                : 10000;
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid mailbox-capacity [" + capacity + "]!");
+        }
+        this.overflowPolicy = config.hasPath("overflow-policy")
+                ? OverflowPolicy.parse(config.getString("overflow-policy"))
+                : OverflowPolicy.DROP_NEWEST;
+        List<Class<?>> priorityMessages = new ArrayList<>();
+        if (config.hasPath("priority-messages")) {
+            for (String clazzName : config.getStringList("priority-messages")) {
+                try {
+                    priorityMessages.add(Class.forName(clazzName));
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalArgumentException(
+                            "Invalid priority-messages class [" + clazzName + "]!", e);
+                }
+            }
+        }
+        this.priorityMessages = priorityMessages.toArray(new Class<?>[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MessageQueue create(Option<ActorRef> owner, Option<ActorSystem> system) {
+        ActorMetrics metrics = owner.isDefined()
+                ? ActorMetrics.getOrCreate(owner.get().path().toString()) : null;
+        return new InstrumentedMessageQueue(capacity, overflowPolicy, priorityMessages, metrics,
+                system.isDefined() ? system.get() : null);
+    }
+}
@@ -0,0 +1,68 @@
+package akka.metrics;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+import com.typesafe.config.Config;
+
+import akka.dispatch.DispatcherPrerequisites;
+import akka.dispatch.ExecutorServiceConfigurator;
+import akka.dispatch.ExecutorServiceFactory;
+import akka.dispatch.ForkJoinExecutorConfigurator;
+import akka.dispatch.ThreadPoolExecutorConfigurator;
+
+/**
+ * Executor configurator that creates the dispatcher's thread pool as usual, and registers it to
+ * {@link DispatcherGauges}.
+ *
+ * <p>
+ * Usage in a dispatcher's configuration:
+ * </p>
+ *
+ * <pre>
+ * executor = "akka.metrics.InstrumentedExecutorConfigurator"
+ * # the actual executor: "fork-join-executor" or "thread-pool-executor"
+ * instrumented-executor = "fork-join-executor"
+ * fork-join-executor { ... }
+ * </pre>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class InstrumentedExecutorConfigurator extends ExecutorServiceConfigurator {
+
+    private final ExecutorServiceConfigurator delegate;
+
+    public InstrumentedExecutorConfigurator(Config config, DispatcherPrerequisites prerequisites) {
+        super(config, prerequisites);
+        String executor = config.hasPath("instrumented-executor")
+                ? config.getString("instrumented-executor") : "fork-join-executor";
+        if ("thread-pool-executor".equals(executor)) {
+            delegate = new ThreadPoolExecutorConfigurator(config.getConfig("thread-pool-executor"),
+                    prerequisites);
+        } else if ("fork-join-executor".equals(executor)) {
+            delegate = new ForkJoinExecutorConfigurator(config.getConfig("fork-join-executor"),
+                    prerequisites);
+        } else {
+            throw new IllegalArgumentException(
+                    "Unsupported instrumented-executor [" + executor + "]!");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ExecutorServiceFactory createExecutorServiceFactory(String id,
+            ThreadFactory threadFactory) {
+        ExecutorServiceFactory factory = delegate.createExecutorServiceFactory(id, threadFactory);
+        return new ExecutorServiceFactory() {
+            @Override
+            public ExecutorService createExecutorService() {
+                ExecutorService executorService = factory.createExecutorService();
+                DispatcherGauges.register(id, executorService);
+                return executorService;
+            }
+        };
+    }
+}
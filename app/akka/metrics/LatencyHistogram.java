@@ -0,0 +1,106 @@
+package akka.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with power-of-2 buckets, in microseconds.
+ *
+ * <p>
+ * Bucket {@code i} counts values in {@code [2^(i-1), 2^i)} microseconds (bucket {@code 0} counts
+ * values below 1 microsecond), so recording is a couple of atomic increments and percentiles are
+ * accurate to a factor of 2.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class LatencyHistogram {
+
+    private final static int NUM_BUCKETS = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final AtomicLong count = new AtomicLong(0);
+    private final AtomicLong sumMicros = new AtomicLong(0);
+    private final AtomicLong maxMicros = new AtomicLong(0);
+
+    /**
+     * Record a value.
+     *
+     * @param nanos
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(NUM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        sumMicros.addAndGet(micros);
+        long max;
+        while (micros > (max = maxMicros.get()) && !maxMicros.compareAndSet(max, micros)) {
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Mean value, in microseconds.
+     *
+     * @return
+     */
+    public double getMeanMicros() {
+        long n = count.get();
+        return n > 0 ? (double) sumMicros.get() / n : 0;
+    }
+
+    /**
+     * Max value, in microseconds.
+     *
+     * @return
+     */
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /**
+     * Approximate percentile (upper bound of the bucket it falls into), in microseconds.
+     *
+     * @param percentile
+     *            {@code 0.0-1.0}
+     * @return
+     */
+    public long getPercentileMicros(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * n);
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(1L << i, getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    /**
+     * Export as a map.
+     *
+     * @return
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", getCount());
+        result.put("mean_us", getMeanMicros());
+        result.put("p50_us", getPercentileMicros(0.5));
+        result.put("p90_us", getPercentileMicros(0.9));
+        result.put("p99_us", getPercentileMicros(0.99));
+        result.put("max_us", getMaxMicros());
+        return result;
+    }
+}
@@ -0,0 +1,17 @@
+package akka.metrics;
+
+/**
+ * Sent back (wrapped in {@link akka.actor.Status.Failure}) to the sender of a message that was
+ * rejected because the receiver's mailbox is full.
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class MailboxOverflowException extends RuntimeException {
+
+    private static final long serialVersionUID = "template-v2.6.r2".hashCode();
+
+    public MailboxOverflowException(String message) {
+        super(message, null, false, false);
+    }
+}
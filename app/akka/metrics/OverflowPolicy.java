@@ -0,0 +1,53 @@
+package akka.metrics;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * What a bounded mailbox does with a message when it is full.
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public enum OverflowPolicy {
+    /**
+     * Discard the incoming message.
+     */
+    DROP_NEWEST("drop-newest"),
+
+    /**
+     * Discard the oldest queued message to make room for the incoming one.
+     */
+    DROP_OLDEST("drop-oldest"),
+
+    /**
+     * Discard the incoming message and reply to its sender with a
+     * {@link akka.actor.Status.Failure} of {@link MailboxOverflowException}.
+     */
+    REJECT("reject");
+
+    private final String name;
+
+    OverflowPolicy(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Parses an overflow policy from its name ({@code drop-newest}, {@code drop-oldest} or
+     * {@code reject}).
+     *
+     * @param name
+     * @return
+     */
+    public static OverflowPolicy parse(String name) {
+        for (OverflowPolicy policy : values()) {
+            if (StringUtils.equalsIgnoreCase(policy.name, name)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Invalid overflow policy [" + name + "]!");
+    }
+}
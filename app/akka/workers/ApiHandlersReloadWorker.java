@@ -0,0 +1,33 @@
+package akka.workers;
+
+import akka.TickMessage;
+import api.ApiDispatcher;
+
+/**
+ * Worker that hot-reloads API handlers when their config file changes (see
+ * {@link ApiDispatcher#reloadApiHandlersIfModified()}).
+ * 
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class ApiHandlersReloadWorker extends BaseWorker {
+
+    private CronFormat scheduling = CronFormat.parse("*/5 * *");
+
+    /**
+     * Schedule to check for changes every 5 seconds.
+     */
+    @Override
+    protected CronFormat getScheduling() {
+        return scheduling;
+    }
+
+    @Override
+    protected void doJob(TickMessage tick) {
+        ApiDispatcher apiDispatcher = getRegistry().getApiDispatcher();
+        if (apiDispatcher != null) {
+            apiDispatcher.reloadApiHandlersIfModified();
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package akka.workers;
+
+import akka.TickMessage;
+
+/**
+ * Base class to implement workers whose job is split into shards that run in parallel. See
+ * {@link BaseWorker}.
+ *
+ * <p>
+ * Each due tick fans out {@link #doJob(TickMessage, int)} for all {@link #getNumShards()} shards
+ * on {@code worker-dispatcher}. Each shard has its own lock, so a slow shard only causes that
+ * shard to skip ticks. {@link #onTickCompleted(TickMessage, int)} is called once all shards of a
+ * tick have finished.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public abstract class BaseShardedWorker extends BaseWorker {
+
+    /**
+     * Number of shards the worker's job is split into. With {@code 1} shard, the job runs as a
+     * normal worker's (i.e. {@code doJob(tick, 0)}).
+     *
+     * @return
+     */
+    @Override
+    protected abstract int getNumShards();
+
+    /**
+     * Sub-class implements this method to perform one shard of the job.
+     *
+     * @param tick
+     * @param shardId
+     *            {@code 0} to {@code getNumShards()-1}
+     * @throws Exception
+     */
+    @Override
+    protected abstract void doJob(TickMessage tick, int shardId) throws Exception;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doJob(TickMessage tick) throws Exception {
+        doJob(tick, 0);
+    }
+}
@@ -1,11 +1,19 @@
 package akka.workers;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import akka.BaseActor;
 import akka.TickMessage;
+import akka.actor.ActorRef;
+import akka.dispatch.ControlMessage;
+import akka.workers.WorkerTimer.RescheduleMessage;
+import akka.workers.WorkerTimer.ScheduledTickMessage;
 import play.Logger;
 import scala.concurrent.ExecutionContextExecutor;
 
@@ -16,13 +24,31 @@ import scala.concurrent.ExecutionContextExecutor;
  * Worker implementation:
  * <ul>
  * <li>Worker is scheduled to perform task. Scheduling configuration is in Cron-like
- * format (see {@link CronFormat} and {@link #getScheduling()}).</li>
- * <li>At every "tick", worker receives a "tick" message (see
- * {@link TickMessage}). The "tick" message carries a timestamp and a unique id. This timestamp is
- * checked against worker's scheduling configuration so determine that worker's task should be fired
- * off.</li>
+ * format (see {@link CronFormat} and {@link #getScheduling()}), or interval-based at millisecond
+ * granularity (see {@link IntervalSchedule} and {@link #getIntervalScheduling()}).</li>
+ * <li>Worker computes the next fire time from its scheduling configuration and arms a timer on
+ * the actor system's scheduler (a hashed timer wheel). When the timer fires, worker receives a
+ * "tick" message (see {@link TickMessage}) that carries the fire time and a unique id; no other
+ * worker is woken up.</li>
+ * <li>Legacy mode (see {@link #useTickFanout()}): worker receives the "tick" message broadcast
+ * every second by {@link TickFanoutActor} and checks its timestamp against the scheduling
+ * configuration to determine that worker's task should be fired off.</li>
  * <li>If worker's task is due, {@link #doJob(TickMessage)} is called. Sub-class
  * implements this method to perform its own business logic.</li>
+ * <li>Parallel mode (see {@link BaseShardedWorker}): if worker declares N > 1 shards, each due
+ * tick fans out {@link BaseShardedWorker#doJob(TickMessage, int)} for all shards on
+ * {@code worker-dispatcher}. Each shard has its own lock, so a slow shard only causes that shard
+ * to skip ticks. {@link #onTickCompleted(TickMessage, int)} is called once all shards of a tick
+ * have finished.</li>
+ * <li>Misfires (see {@link #getMisfirePolicy()}): scheduled runs that are more than
+ * {@link #getMisfireThresholdMs()} late, and ticks that arrive while the worker is busy, are
+ * handled according to the worker's {@link MisfirePolicy}. Counters are exported via
+ * {@link WorkerStats}.</li>
+ * <li>Checkpoints (see {@link #saveCheckpoint(String, long)}): worker can save offsets to the
+ * local {@link CheckpointStore} to resume incremental processing after a restart. Last-run
+ * timestamp is saved automatically (see {@link #getLastRunCheckpointIntervalMs()}), and a
+ * restarted cron worker resumes its schedule from there (runs missed while down are handled by
+ * the misfire policy).</li>
  * </ul>
  * </p>
  *
@@ -37,7 +63,7 @@ public abstract class BaseWorker extends BaseActor {
      * @author Thanh Nguyen <btnguyen2k@gmail.com>
      * @since template-v0.1.2.1
      */
-    protected static class FirstTimeTickMessage extends TickMessage {
+    protected static class FirstTimeTickMessage extends TickMessage implements ControlMessage {
         private static final long serialVersionUID = "template-v0.1.2.1".hashCode();
     }
 
@@ -52,6 +78,18 @@ public abstract class BaseWorker extends BaseActor {
         return false;
     }
 
+    /**
+     * If {@code true}, worker subscribes to the one-second "tick" broadcast of
+     * {@link TickFanoutActor} instead of arming its own timer. Ignored if worker uses an
+     * interval-based schedule.
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected boolean useTickFanout() {
+        return false;
+    }
+
     private final Collection<Class<?>> channelSubscriptions = Collections
             .singleton(TickMessage.class);
 
@@ -62,7 +100,7 @@ public abstract class BaseWorker extends BaseActor {
      */
     @Override
     protected Collection<Class<?>> channelSubscriptions() {
-        return channelSubscriptions;
+        return useTickFanout() && getIntervalScheduling() == null ? channelSubscriptions : null;
     }
 
     /**
@@ -72,24 +110,80 @@ public abstract class BaseWorker extends BaseActor {
      */
     @Override
     protected void initActor() throws Exception {
+        checkpoints = new WorkerCheckpoints(this::getCheckpointStore, getClass(),
+                "{" + getActorPath() + "}", getLastRunCheckpointIntervalMs());
+
         super.initActor();
 
+        WorkerStats.register(getActorPath().toString(), stats);
+
         // register message handler
         addMessageHandler(TickMessage.class, this::onTick);
+        addMessageHandler(ScheduledTickMessage.class, this::onScheduledTick);
+        addMessageHandler(RescheduleMessage.class, msg -> scheduleNextTick(
+                msg.afterMs >= 0 ? msg.afterMs : System.currentTimeMillis()));
 
         // fire off event for the first time
         if (runFirstTimeRegardlessScheduling()) {
             self().tell(new FirstTimeTickMessage(), self());
         }
+
+        timer = new WorkerTimer(getContext());
+        IntervalSchedule interval = getIntervalScheduling();
+        if (interval != null) {
+            timer.start(interval, System.currentTimeMillis());
+        } else if (!useTickFanout()) {
+            long now = System.currentTimeMillis();
+            long lastRun = getLastRunTimestamp();
+            scheduleNextTick(lastRun > 0 && lastRun < now ? lastRun : now);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since template-v2.6.r2
+     */
+    @Override
+    protected void destroyActor() throws Exception {
+        WorkerStats.unregister(getActorPath().toString());
+        try {
+            if (timer != null) {
+                timer.cancel();
+            }
+            if (checkpoints != null) {
+                checkpoints.flush();
+            }
+        } catch (Exception e) {
+            Logger.warn(e.getMessage(), e);
+        }
+
+        super.destroyActor();
     }
 
     /**
      * Get worker's scheduling settings as {@link CronFormat}.
      *
+     * <p>
+     * Note: may return {@code null} if worker uses an interval-based schedule (see
+     * {@link #getIntervalScheduling()}).
+     * </p>
+     *
      * @return
      */
     protected abstract CronFormat getScheduling();
 
+    /**
+     * Get worker's interval-based scheduling settings. If not {@code null}, it takes precedence
+     * over {@link #getScheduling()}.
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected IntervalSchedule getIntervalScheduling() {
+        return null;
+    }
+
     /**
      * Sub-class implements this method to actually perform worker business
      * logic.
@@ -99,8 +193,321 @@ public abstract class BaseWorker extends BaseActor {
      */
     protected abstract void doJob(TickMessage tick) throws Exception;
 
+    /**
+     * Number of shards the worker's job is split into: always {@code 1}
+     * ({@link #doJob(TickMessage)} is called) unless overridden by {@link BaseShardedWorker}.
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    int getNumShards() {
+        return 1;
+    }
+
+    /**
+     * Perform one shard of the job in parallel mode, implemented by {@link BaseShardedWorker}.
+     *
+     * @param tick
+     * @param shardId
+     *            {@code 0} to {@code getNumShards()-1}
+     * @throws Exception
+     * @since template-v2.6.r2
+     */
+    void doJob(TickMessage tick, int shardId) throws Exception {
+        doJob(tick);
+    }
+
+    /**
+     * Called once all shards of a tick have finished (completion barrier). Shards that were
+     * skipped because they were busy do not count.
+     *
+     * @param tick
+     * @param numShardsRun
+     * @since template-v2.6.r2
+     */
+    protected void onTickCompleted(TickMessage tick, int numShardsRun) {
+    }
+
+    /**
+     * How the worker handles misfired runs. Default value is {@link MisfirePolicy#SKIP}: a
+     * fixed-rate worker that falls behind resumes with the first slot that is not in the past.
+     *
+     * <p>
+     * Catch-up of late scheduled runs applies to timer-driven workers (cron or fixed-rate):
+     * catch-up runs are performed one at a time, the timer is only re-armed once the previous run
+     * has completed. Legacy {@link #useTickFanout()} workers can only skip late ticks. Busy ticks
+     * are queued per policy in single-shard mode (at most {@link #MAX_PENDING_TICKS}); in
+     * parallel mode busy shards always skip.
+     * </p>
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected MisfirePolicy getMisfirePolicy() {
+        return MisfirePolicy.SKIP;
+    }
+
+    /**
+     * A scheduled cron run is considered misfired if its fire time is more than this value in the
+     * past. Default value is 30 seconds.
+     *
+     * <p>
+     * Fixed-rate slots are considered misfired if they are more than this value or one period
+     * (whichever is smaller) in the past, but never less than one scheduler tick
+     * ({@code akka.scheduler.tick-duration}), so that timer jitter, GC pauses or a busy mailbox
+     * do not count as misfires.
+     * </p>
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected long getMisfireThresholdMs() {
+        return 30000L;
+    }
+
+    /**
+     * Max number of misfired runs to perform with {@link MisfirePolicy#QUEUE_BOUNDED}: max
+     * consecutive catch-up runs, and max ticks queued while busy. Default value is {@code 10}.
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected int getMisfireQueueBound() {
+        return 10;
+    }
+
+    /**
+     * Max number of fire times to walk through when calculating misfired runs.
+     */
+    private final static int MAX_MISFIRE_SCAN = 100000;
+
+    /**
+     * Max number of ticks queued while the worker is busy, whatever the misfire policy.
+     */
+    protected final static int MAX_PENDING_TICKS = 1000;
+
+    private final WorkerStats stats = new WorkerStats();
+
+    /**
+     * Name of the checkpoint that keeps the last-run timestamp.
+     */
+    protected final static String CHECKPOINT_LAST_RUN = WorkerCheckpoints.LAST_RUN;
+
+    private WorkerCheckpoints checkpoints;
+
+    /**
+     * Get the local checkpoint store.
+     *
+     * @return {@code null} if checkpoint store is disabled
+     * @since template-v2.6.r2
+     */
+    protected CheckpointStore getCheckpointStore() {
+        return getRegistry().getCheckpointStore();
+    }
+
+    /**
+     * Min interval between 2 writes of the last-run timestamp to the checkpoint store. Default
+     * value is 10 seconds.
+     *
+     * <p>
+     * Note: after a crash (not a graceful stop), runs completed within this interval before the
+     * crash are not recorded, and are handled by the misfire policy on restart.
+     * </p>
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected long getLastRunCheckpointIntervalMs() {
+        return 10000L;
+    }
+
+    /**
+     * Load a checkpoint (e.g. offset of incremental processing). Checkpoints are namespaced by
+     * worker class.
+     *
+     * @param name
+     * @param defaultValue
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected long loadCheckpoint(String name, long defaultValue) {
+        return checkpoints.load(name, defaultValue);
+    }
+
+    /**
+     * Save a checkpoint (e.g. offset of incremental processing).
+     *
+     * @param name
+     * @param value
+     * @return {@code false} if checkpoint store is disabled or the checkpoint could not be saved
+     * @since template-v2.6.r2
+     */
+    protected boolean saveCheckpoint(String name, long value) {
+        return checkpoints.save(name, value);
+    }
+
+    /**
+     * Get the timestamp of the last (scheduled) tick the worker ran, including runs before a
+     * restart (as saved in the checkpoint store, see {@link #getLastRunCheckpointIntervalMs()}).
+     *
+     * @return {@code -1} if not available
+     * @since template-v2.6.r2
+     */
+    protected long getLastRunTimestamp() {
+        return checkpoints.getLastRun();
+    }
+
+    /**
+     * Get worker's execution counters.
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    public WorkerStats getStats() {
+        return stats;
+    }
+
     private TickMessage lastTick;
 
+    private WorkerTimer timer;
+
+    /**
+     * Arm the worker's timer for the next fire time after {@code afterMs}.
+     *
+     * @param afterMs
+     *            previous fire time (cron or fixed-rate), or time the previous job completed
+     *            (fixed-delay)
+     * @since template-v2.6.r2
+     */
+    protected void scheduleNextTick(long afterMs) {
+        IntervalSchedule interval = getIntervalScheduling();
+        if (interval != null && interval.isFixedDelay()) {
+            timer.armNext(interval, afterMs);
+            return;
+        }
+        long nextFireTime = nextSlot(afterMs);
+        if (nextFireTime < 0) {
+            Logger.warn("{" + getActorPath() + "} No next fire time for scheduling "
+                    + (interval != null ? interval : getScheduling()) + ".");
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long misfireBefore = now - (interval != null ? intervalMisfireThresholdMs(interval)
+                : getMisfireThresholdMs());
+        catchUpArmed = false;
+        if (nextFireTime < misfireBefore) {
+            nextFireTime = handleMisfire(afterMs, nextFireTime, misfireBefore);
+        } else {
+            catchUpRuns = 0;
+        }
+        if (nextFireTime >= 0) {
+            timer.arm(nextFireTime);
+        }
+    }
+
+    /**
+     * Misfire threshold of fixed-rate slots: {@link #getMisfireThresholdMs()} capped at one
+     * period, and at least one scheduler tick.
+     */
+    private long intervalMisfireThresholdMs(IntervalSchedule interval) {
+        long schedulerTickMs = (long) Math
+                .ceil(1000.0 / getContext().system().scheduler().maxFrequency());
+        return Math.max(schedulerTickMs,
+                Math.min(getMisfireThresholdMs(), interval.getPeriodMs()));
+    }
+
+    /**
+     * Next fire time right after {@code afterMs}, even if it is in the past.
+     */
+    private long nextSlot(long afterMs) {
+        IntervalSchedule interval = getIntervalScheduling();
+        if (interval != null) {
+            return interval.nextSlot(timer.getAnchorMs(), afterMs);
+        }
+        CronFormat scheduling = getScheduling();
+        return scheduling != null ? scheduling.nextFireTime(afterMs) : -1;
+    }
+
+    private int catchUpRuns;
+
+    /* the armed timer is a catch-up run (guarded by the actor) */
+    private boolean catchUpArmed;
+
+    /**
+     * Decide which fire time to arm the timer with, given the next fire time has misfired.
+     *
+     * @param afterMs
+     *            previous fire time
+     * @param nextFireTime
+     *            first misfired fire time
+     * @param misfireBefore
+     *            fire times before this are misfired
+     * @return
+     */
+    private long handleMisfire(long afterMs, long nextFireTime, long misfireBefore) {
+        MisfirePolicy policy = getMisfirePolicy();
+        if (policy == MisfirePolicy.RUN_ALL || (policy == MisfirePolicy.QUEUE_BOUNDED
+                && catchUpRuns < getMisfireQueueBound())) {
+            catchUpRuns++;
+            catchUpArmed = true;
+            stats.incCatchUpRuns();
+            return nextFireTime;
+        }
+
+        long lastMisfired = -1, numMisfired = 0;
+        IntervalSchedule interval = getIntervalScheduling();
+        if (interval != null) {
+            // fixed-rate: skip to the first slot that is not in the past
+            long next = interval.nextFireTime(timer.getAnchorMs(), afterMs, misfireBefore);
+            numMisfired = interval.countMissed(afterMs, next);
+            lastMisfired = next - interval.getPeriodMs();
+            nextFireTime = next;
+        } else {
+            // walk through the misfired fire times
+            while (nextFireTime >= 0 && nextFireTime < misfireBefore
+                    && numMisfired < MAX_MISFIRE_SCAN) {
+                lastMisfired = nextFireTime;
+                numMisfired++;
+                nextFireTime = nextSlot(nextFireTime);
+            }
+            if (nextFireTime >= 0 && nextFireTime < misfireBefore) {
+                nextFireTime = nextSlot(misfireBefore);
+            }
+        }
+        catchUpRuns = 0;
+        if (policy == MisfirePolicy.RUN_ONCE && numMisfired > 0) {
+            stats.addMisfiresSkipped(numMisfired - 1);
+            stats.incCatchUpRuns();
+            catchUpArmed = true;
+            return lastMisfired;
+        }
+        stats.addMisfiresSkipped(numMisfired);
+        logSkipped(numMisfired);
+        return nextFireTime;
+    }
+
+    /**
+     * Min interval between 2 "fell behind" warnings, skips in between are logged at debug level
+     * and summed up in the next warning.
+     */
+    private final static long SKIP_WARN_INTERVAL_MS = 60000L;
+
+    private long lastSkipWarnMs, numSkippedSinceWarn;
+
+    private void logSkipped(long numMisfired) {
+        numSkippedSinceWarn += numMisfired;
+        long now = System.currentTimeMillis();
+        if (now - lastSkipWarnMs >= SKIP_WARN_INTERVAL_MS) {
+            Logger.warn("{" + getActorPath() + "} Fell behind, skipped " + numSkippedSinceWarn
+                    + " scheduled run(s) since last warning.");
+            lastSkipWarnMs = now;
+            numSkippedSinceWarn = 0;
+        } else if (Logger.isDebugEnabled()) {
+            Logger.debug("{" + getActorPath() + "} Fell behind, skipped " + numMisfired
+                    + " scheduled run(s).");
+        }
+    }
+
     /**
      * Check if "tick" matches scheduling settings.
      *
@@ -108,43 +515,259 @@ public abstract class BaseWorker extends BaseActor {
      * @return
      */
     protected boolean isTickMatched(TickMessage tick) {
-        if (tick.timestampMs + 30000L > System.currentTimeMillis()) {
-            // only process if "tick" is not too old (within last 30 seconds)
-            if (lastTick == null || lastTick.timestampMs < tick.timestampMs) {
-                return getScheduling().matches(tick.timestampMs);
-            }
+        CronFormat scheduling = getScheduling();
+        if (scheduling == null || !scheduling.matches(tick.timestampMs)) {
+            return false;
+        }
+        if (tick.timestampMs + getMisfireThresholdMs() > System.currentTimeMillis()) {
+            // only process if "tick" is not too old
+            return lastTick == null || lastTick.timestampMs < tick.timestampMs;
         }
+        stats.addMisfiresSkipped(1);
         return false;
     }
 
     private AtomicBoolean LOCK = new AtomicBoolean(false);
 
-    protected void onTick(TickMessage tick) {
-        ExecutionContextExecutor ecs = getRegistry()
-                .getExecutionContextExecutor("worker-dispatcher");
-        if (ecs == null) {
-            ecs = getRegistry().getDefaultExecutionContextExecutor();
+    private AtomicBoolean[] shardLocks;
+
+    /**
+     * Ticks that arrived while the worker was busy (guarded by itself).
+     */
+    private final Deque<TickMessage> pendingTicks = new ArrayDeque<>();
+
+    /**
+     * Called when the worker's timer fires: re-arm the timer and run the job, the tick is due by
+     * construction. Fixed-delay workers, catch-up runs and {@link MisfirePolicy#RUN_ALL} workers
+     * re-arm only after the job completes, so that misfired slots are taken one per completed
+     * run.
+     *
+     * @param tick
+     * @since template-v2.6.r2
+     */
+    protected void onScheduledTick(ScheduledTickMessage tick) {
+        IntervalSchedule interval = getIntervalScheduling();
+        if (interval != null && interval.isFixedDelay()) {
+            ActorRef me = self();
+            getWorkerExecutor().execute(() -> doRunJob(tick)
+                    .whenComplete((numShardsRun, e) -> me.tell(WorkerTimer.RESCHEDULE, me)));
+        } else if (catchUpArmed || (getMisfirePolicy() == MisfirePolicy.RUN_ALL
+                && getNumShards() <= 1)) {
+            catchUpArmed = false;
+            ActorRef me = self();
+            RescheduleMessage reschedule = new RescheduleMessage(tick.timestampMs);
+            getWorkerExecutor().execute(() -> doRunJob(tick)
+                    .whenComplete((numShardsRun, e) -> me.tell(reschedule, me)));
+        } else {
+            scheduleNextTick(tick.timestampMs);
+            runJob(tick);
         }
+    }
+
+    protected void onTick(TickMessage tick) {
+        ExecutionContextExecutor ecs = getWorkerExecutor();
         ecs.execute(() -> {
             if (isTickMatched(tick) || tick instanceof FirstTimeTickMessage) {
-                if (LOCK.compareAndSet(false, true)) {
+                doRunJob(tick);
+            }
+        });
+    }
+
+    /**
+     * Get the executor to run jobs on ({@code worker-dispatcher}, fallback to the default one).
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected ExecutionContextExecutor getWorkerExecutor() {
+        return WorkerTimer.getWorkerExecutor(getRegistry());
+    }
+
+    /**
+     * Run the job for a due "tick" on {@link #getWorkerExecutor()}.
+     *
+     * @param tick
+     * @since template-v2.6.r2
+     */
+    protected void runJob(TickMessage tick) {
+        getWorkerExecutor().execute(() -> doRunJob(tick));
+    }
+
+    /**
+     * Run the job for a tick.
+     *
+     * @param tick
+     * @return completes with the number of shards run once all shards have finished
+     */
+    private CompletableFuture<Integer> doRunJob(TickMessage tick) {
+        int numShards = getNumShards();
+        if (numShards > 1) {
+            return doRunShardedJob(tick, numShards);
+        }
+        if (LOCK.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(runJobsLocked(tick));
+        }
+
+        // Busy processing a previous message
+        if (enqueuePendingTick(tick) && LOCK.compareAndSet(false, true)) {
+            // the previous job completed in the meantime
+            return CompletableFuture.completedFuture(runJobsLocked(pollPendingTick()));
+        }
+        return CompletableFuture.completedFuture(0);
+    }
+
+    /**
+     * Run the job for a tick, then for pending ticks. Must be called with {@link #LOCK} held;
+     * the lock is released on return.
+     *
+     * @param tick
+     * @return number of ticks run
+     */
+    private int runJobsLocked(TickMessage tick) {
+        int numRun = 0;
+        while (true) {
+            if (tick != null) {
+                try {
+                    lastTick = tick;
+                    doJob(tick);
+                } catch (Exception e) {
+                    Logger.error("{" + getActorPath() + "} Error while doing job: "
+                            + e.getMessage(), e);
+                }
+                numRun++;
+                stats.incTicksCompleted();
+                fireTickCompleted(tick, 1);
+            }
+            tick = pollPendingTick();
+            if (tick == null) {
+                LOCK.set(false);
+                // re-check: a tick may have been queued right before the lock was released
+                if (!hasPendingTick() || !LOCK.compareAndSet(false, true)) {
+                    return numRun;
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue a tick that arrived while the worker was busy, according to the misfire policy.
+     *
+     * @param tick
+     * @return {@code true} if the tick was queued
+     */
+    private boolean enqueuePendingTick(TickMessage tick) {
+        MisfirePolicy policy = getMisfirePolicy();
+        synchronized (pendingTicks) {
+            switch (policy) {
+            case RUN_ONCE:
+                // coalesce into a single pending run
+                if (!pendingTicks.isEmpty()) {
+                    pendingTicks.clear();
+                    stats.incTicksSkipped();
+                }
+                pendingTicks.add(tick);
+                stats.incTicksQueued();
+                return true;
+            case RUN_ALL:
+                if (pendingTicks.size() < MAX_PENDING_TICKS) {
+                    pendingTicks.add(tick);
+                    stats.incTicksQueued();
+                    return true;
+                }
+                break;
+            case QUEUE_BOUNDED:
+                if (pendingTicks.size() < Math.min(getMisfireQueueBound(), MAX_PENDING_TICKS)) {
+                    pendingTicks.add(tick);
+                    stats.incTicksQueued();
+                    return true;
+                }
+                break;
+            default:
+                break;
+            }
+        }
+        stats.incTicksSkipped();
+        Logger.warn("{" + getActorPath() + "} Received TICK message, but I am busy! " + tick);
+        return false;
+    }
+
+    private TickMessage pollPendingTick() {
+        synchronized (pendingTicks) {
+            return pendingTicks.poll();
+        }
+    }
+
+    private boolean hasPendingTick() {
+        synchronized (pendingTicks) {
+            return !pendingTicks.isEmpty();
+        }
+    }
+
+    private synchronized AtomicBoolean[] getShardLocks(int numShards) {
+        if (shardLocks == null || shardLocks.length != numShards) {
+            AtomicBoolean[] locks = new AtomicBoolean[numShards];
+            for (int i = 0; i < numShards; i++) {
+                locks[i] = new AtomicBoolean(false);
+            }
+            shardLocks = locks;
+        }
+        return shardLocks;
+    }
+
+    private CompletableFuture<Integer> doRunShardedJob(TickMessage tick, int numShards) {
+        AtomicBoolean[] locks = getShardLocks(numShards);
+        ExecutionContextExecutor ecs = getWorkerExecutor();
+        AtomicInteger numShardsRun = new AtomicInteger(0);
+        CompletableFuture<?>[] shardFutures = new CompletableFuture<?>[numShards];
+        lastTick = tick;
+        for (int i = 0; i < numShards; i++) {
+            final int shardId = i;
+            shardFutures[i] = CompletableFuture.runAsync(() -> {
+                AtomicBoolean lock = locks[shardId];
+                if (lock.compareAndSet(false, true)) {
                     try {
-                        lastTick = tick;
-                        doJob(tick);
+                        numShardsRun.incrementAndGet();
+                        doJob(tick, shardId);
                     } catch (Exception e) {
-                        Logger.error(
-                                "{" + getActorPath() + "} Error while doing job: " + e.getMessage(),
-                                e);
+                        Logger.error("{" + getActorPath() + "} Error while doing job for shard "
+                                + shardId + ": " + e.getMessage(), e);
                     } finally {
-                        LOCK.set(false);
+                        lock.set(false);
                     }
                 } else {
-                    // Busy processing a previous message
-                    Logger.warn("{" + getActorPath() + "} Received TICK message, but I am busy! "
-                            + tick);
+                    // Shard is busy processing a previous tick
+                    stats.incShardsSkipped();
+                    if (Logger.isDebugEnabled()) {
+                        Logger.debug("{" + getActorPath() + "} Shard " + shardId
+                                + " is busy, skipped " + tick);
+                    }
                 }
+            }, ecs);
+        }
+        return CompletableFuture.allOf(shardFutures).handle((r, e) -> {
+            int n = numShardsRun.get();
+            if (n > 0) {
+                stats.incTicksCompleted();
+            } else {
+                stats.incTicksSkipped();
+                Logger.warn("{" + getActorPath() + "} Received TICK message, but all "
+                        + numShards + " shards are busy! " + tick);
             }
+            fireTickCompleted(tick, n);
+            return n;
         });
     }
 
+    private void fireTickCompleted(TickMessage tick, int numShardsRun) {
+        if (numShardsRun > 0 && !(tick instanceof FirstTimeTickMessage)) {
+            checkpoints.updateLastRun(tick.timestampMs);
+        }
+        try {
+            onTickCompleted(tick, numShardsRun);
+        } catch (Exception e) {
+            Logger.error("{" + getActorPath() + "} Error in tick completion: " + e.getMessage(),
+                    e);
+        }
+    }
+
 }
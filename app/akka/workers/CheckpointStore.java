@@ -0,0 +1,509 @@
+package akka.workers;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import play.Logger;
+import utils.AppConstants;
+
+/**
+ * Local, durable store of workers' checkpoints (offsets, last-run timestamps...), so that a
+ * restarted node can resume incremental processing.
+ *
+ * <p>
+ * Checkpoints are appended to a memory-mapped log file and indexed in memory; reads never touch
+ * the file. Record format: {@code [int length][int crc32][byte op][long timestamp]
+ * [short keyLength][key][int valueLength][value]}.
+ * A torn record at the end of the log (e.g. crash in the middle of a write) fails its checksum
+ * and is discarded on load. When the log grows to {@code compactRatio} times the size of live
+ * records, it is compacted: live records are written to a new file that atomically replaces the
+ * log.
+ * </p>
+ *
+ * <p>
+ * The store is owned by one process at a time: {@link #init()} takes an exclusive lock on
+ * {@code <file>.lock} (held until {@link #destroy()}, across compactions) and fails if another
+ * process (e.g. another node started from the same directory) already holds it.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class CheckpointStore {
+
+    /**
+     * A checkpoint: value and the time it was saved.
+     */
+    public static class Checkpoint {
+        public final byte[] value;
+        public final long timestampMs;
+        private final int recordSize;
+
+        private Checkpoint(byte[] value, long timestampMs, int recordSize) {
+            this.value = value;
+            this.timestampMs = timestampMs;
+            this.recordSize = recordSize;
+        }
+
+        public long asLong() {
+            return ByteBuffer.wrap(value).getLong();
+        }
+
+        public String asString() {
+            return new String(value, AppConstants.UTF8);
+        }
+    }
+
+    /* releases a mapping right away (otherwise only released when the buffer is GCed) */
+    private final static Consumer<MappedByteBuffer> UNMAPPER = createUnmapper();
+
+    private static Consumer<MappedByteBuffer> createUnmapper() {
+        try {
+            // Java 9+
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Object unsafe = theUnsafe.get(null);
+            return buffer -> {
+                try {
+                    invokeCleaner.invoke(unsafe, buffer);
+                } catch (Exception e) {
+                    Logger.warn("Cannot unmap checkpoint file: " + e.getMessage(), e);
+                }
+            };
+        } catch (Exception e) {
+            // not available before Java 9
+        }
+        try {
+            // Java 8
+            Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return buffer -> {
+                try {
+                    clean.invoke(cleaner.invoke(buffer));
+                } catch (Exception e) {
+                    Logger.warn("Cannot unmap checkpoint file: " + e.getMessage(), e);
+                }
+            };
+        } catch (Exception e) {
+            return buffer -> {
+            };
+        }
+    }
+
+    /**
+     * Release a mapping. The buffer must not be accessed afterwards.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        UNMAPPER.accept(buffer);
+    }
+
+    private final static int MAGIC = 0x434B5054; // "CKPT"
+    private final static int VERSION = 1;
+    private final static int HEADER_SIZE = 8;
+    private final static byte OP_PUT = 1, OP_DELETE = 2;
+    /* length, crc, op, timestamp, key length, value length */
+    private final static int RECORD_OVERHEAD = 4 + 4 + 1 + 8 + 2 + 4;
+
+    private final File file;
+    private int initialSize = 1024 * 1024;
+    private double compactRatio = 4.0;
+    private boolean syncOnWrite = false;
+
+    private final Map<String, Checkpoint> entries = new ConcurrentHashMap<>();
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private long liveBytes;
+
+    public CheckpointStore(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getInitialSize() {
+        return initialSize;
+    }
+
+    /**
+     * Initial size of the mapped region, in bytes. The region doubles when full.
+     *
+     * @param initialSize
+     * @return
+     */
+    public CheckpointStore setInitialSize(int initialSize) {
+        this.initialSize = Math.max(4096, initialSize);
+        return this;
+    }
+
+    public double getCompactRatio() {
+        return compactRatio;
+    }
+
+    /**
+     * Compact when the log is this many times the size of live records.
+     *
+     * @param compactRatio
+     * @return
+     */
+    public CheckpointStore setCompactRatio(double compactRatio) {
+        this.compactRatio = Math.max(1.5, compactRatio);
+        return this;
+    }
+
+    public boolean isSyncOnWrite() {
+        return syncOnWrite;
+    }
+
+    /**
+     * If {@code true}, every write is forced to disk. Otherwise the OS flushes dirty pages, which
+     * survives a process crash but not a power loss.
+     *
+     * @param syncOnWrite
+     * @return
+     */
+    public CheckpointStore setSyncOnWrite(boolean syncOnWrite) {
+        this.syncOnWrite = syncOnWrite;
+        return this;
+    }
+
+    /*----------------------------------------------------------------------*/
+
+    public synchronized CheckpointStore init() throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create directory [" + dir + "]!");
+        }
+        open();
+        return this;
+    }
+
+    public synchronized void destroy() {
+        try {
+            close();
+        } catch (IOException e) {
+            Logger.warn(e.getMessage(), e);
+        }
+        unlock();
+    }
+
+    /**
+     * Take the exclusive lock of the store. The lock is taken on a separate file, because
+     * compaction replaces the log file.
+     *
+     * @throws IOException
+     */
+    private void lock() throws IOException {
+        File lockFile = new File(file.getPath() + ".lock");
+        lockChannel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            lockChannel = null;
+            throw new IOException("Checkpoint file [" + file + "] is in use by another process!");
+        }
+    }
+
+    private void unlock() {
+        try {
+            if (lock != null) {
+                lock.release();
+            }
+            if (lockChannel != null) {
+                lockChannel.close();
+            }
+        } catch (IOException e) {
+            Logger.warn(e.getMessage(), e);
+        } finally {
+            lock = null;
+            lockChannel = null;
+        }
+    }
+
+    private void open() throws IOException {
+        if (lock == null) {
+            lock();
+        }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long fileSize = channel.size();
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Checkpoint file [" + file + "] is too large!");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(initialSize, (int) fileSize));
+        if (fileSize < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            if (fileSize >= HEADER_SIZE) {
+                throw new IOException("Invalid checkpoint file [" + file + "]!");
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+        }
+        load();
+    }
+
+    private void close() throws IOException {
+        if (buffer != null) {
+            buffer.force();
+            unmap(buffer);
+            buffer = null;
+        }
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Replay the log into memory.
+     */
+    private void load() {
+        entries.clear();
+        liveBytes = 0;
+        int pos = HEADER_SIZE, capacity = buffer.capacity();
+        while (pos + 4 <= capacity) {
+            int length = buffer.getInt(pos);
+            if (length < RECORD_OVERHEAD - 4 || pos + 4 + length > capacity) {
+                break;
+            }
+            ByteBuffer record = buffer.duplicate();
+            record.position(pos + 4).limit(pos + 4 + length);
+            record = record.slice();
+            int crc = record.getInt();
+            CRC32 crc32 = new CRC32();
+            crc32.update(record.duplicate());
+            if ((int) crc32.getValue() != crc) {
+                break;
+            }
+            byte op = record.get();
+            long timestamp = record.getLong();
+            byte[] key = new byte[record.getShort() & 0xFFFF];
+            record.get(key);
+            byte[] value = new byte[record.getInt()];
+            record.get(value);
+            String k = new String(key, AppConstants.UTF8);
+            applyRecord(op, k, value, timestamp, 4 + length);
+            pos += 4 + length;
+        }
+        position = pos;
+        // discard a torn record (if any), so that it can't be mistaken for a valid one later
+        int tornLength = pos + 4 <= capacity ? buffer.getInt(pos) : 0;
+        if (tornLength != 0) {
+            int end = tornLength > 0 ? (int) Math.min(capacity, (long) pos + 4 + tornLength)
+                    : capacity;
+            for (int i = pos; i < end; i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private void applyRecord(byte op, String key, byte[] value, long timestamp, int recordSize) {
+        Checkpoint old = op == OP_PUT
+                ? entries.put(key, new Checkpoint(value, timestamp, recordSize))
+                : entries.remove(key);
+        if (old != null) {
+            liveBytes -= old.recordSize;
+        }
+        if (op == OP_PUT) {
+            liveBytes += recordSize;
+        }
+    }
+
+    private static ByteBuffer encodeRecord(byte op, byte[] key, byte[] value, long timestamp) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + key.length + value.length);
+        record.putInt(record.capacity() - 4).putInt(0).put(op).putLong(timestamp)
+                .putShort((short) key.length).put(key).putInt(value.length).put(value);
+        CRC32 crc32 = new CRC32();
+        crc32.update(record.array(), 8, record.capacity() - 8);
+        record.putInt(4, (int) crc32.getValue());
+        record.flip();
+        return record;
+    }
+
+    private void append(byte op, String key, byte[] value) throws IOException {
+        if (buffer == null) {
+            throw new IllegalStateException("Checkpoint store is not initialized!");
+        }
+        byte[] k = key.getBytes(AppConstants.UTF8);
+        if (k.length > 0xFFFF) {
+            throw new IllegalArgumentException("Key is too long!");
+        }
+        long timestamp = System.currentTimeMillis();
+        ByteBuffer record = encodeRecord(op, k, value, timestamp);
+        int recordSize = record.remaining();
+        if (position + recordSize > buffer.capacity()) {
+            if (position - HEADER_SIZE > liveBytes * compactRatio) {
+                compact();
+            }
+            if (position + recordSize > buffer.capacity()) {
+                long newSize = Math.max((long) buffer.capacity() * 2, position + recordSize);
+                if (newSize > Integer.MAX_VALUE) {
+                    throw new IOException("Checkpoint file [" + file + "] is full!");
+                }
+                MappedByteBuffer oldBuffer = buffer;
+                oldBuffer.force();
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+                unmap(oldBuffer);
+            }
+        }
+        ByteBuffer target = buffer.duplicate();
+        target.position(position);
+        target.put(record);
+        position += recordSize;
+        if (syncOnWrite) {
+            buffer.force();
+        }
+        applyRecord(op, key, value, timestamp, recordSize);
+        int logSize = position - HEADER_SIZE;
+        if (logSize > initialSize / 2 && logSize > liveBytes * compactRatio) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrite the log with live records only.
+     *
+     * @throws IOException
+     */
+    public synchronized void compact() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        File tmpFile = new File(file.getPath() + ".compact");
+        try (FileChannel out = FileChannel.open(tmpFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            out.write(header);
+            for (Map.Entry<String, Checkpoint> e : entries.entrySet()) {
+                Checkpoint checkpoint = e.getValue();
+                ByteBuffer record = encodeRecord(OP_PUT, e.getKey().getBytes(AppConstants.UTF8),
+                        checkpoint.value, checkpoint.timestampMs);
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+            }
+            out.force(true);
+        }
+        int oldSize = position;
+        close();
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        open();
+        if (Logger.isDebugEnabled()) {
+            Logger.debug("Compacted checkpoint file [" + file + "]: " + oldSize + " -> "
+                    + position + " bytes.");
+        }
+    }
+
+    /**
+     * Force pending writes to disk.
+     */
+    public synchronized void sync() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    /*----------------------------------------------------------------------*/
+
+    /**
+     * Get a checkpoint.
+     *
+     * @param key
+     * @return {@code null} if not exists
+     */
+    public Checkpoint get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Get a checkpoint as a {@code long} value.
+     *
+     * @param key
+     * @param defaultValue
+     * @return
+     */
+    public long getLong(String key, long defaultValue) {
+        Checkpoint checkpoint = get(key);
+        return checkpoint != null && checkpoint.value.length == 8 ? checkpoint.asLong()
+                : defaultValue;
+    }
+
+    /**
+     * Get a checkpoint as a {@code String} value.
+     *
+     * @param key
+     * @return {@code null} if not exists
+     */
+    public String getString(String key) {
+        Checkpoint checkpoint = get(key);
+        return checkpoint != null ? checkpoint.asString() : null;
+    }
+
+    /**
+     * Get all checkpoints.
+     *
+     * @return
+     */
+    public Map<String, Checkpoint> getAll() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * Save a checkpoint.
+     *
+     * @param key
+     * @param value
+     * @throws IOException
+     */
+    public synchronized void put(String key, byte[] value) throws IOException {
+        append(OP_PUT, key, value != null ? value : new byte[0]);
+    }
+
+    public void putLong(String key, long value) throws IOException {
+        put(key, ByteBuffer.allocate(8).putLong(value).array());
+    }
+
+    public void putString(String key, String value) throws IOException {
+        put(key, value != null ? value.getBytes(AppConstants.UTF8) : null);
+    }
+
+    /**
+     * Delete a checkpoint.
+     *
+     * @param key
+     * @throws IOException
+     */
+    public synchronized void delete(String key) throws IOException {
+        if (entries.containsKey(key)) {
+            append(OP_DELETE, key, new byte[0]);
+        }
+    }
+}
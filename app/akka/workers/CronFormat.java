@@ -1,7 +1,12 @@
 package akka.workers;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.TimeZone;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -21,6 +26,10 @@ import org.apache.commons.lang3.StringUtils;
  * {@code "Jan,Feb,...,Dec"} or {@code "Mon,Tue,...,Sun"}) can be used instead
  * of numeric values.
  * </p>
+ * <p>
+ * Patterns are compiled into bitsets when set, so that matching a timestamp is a handful of bit
+ * tests, without regex or allocation.
+ * </p>
  * 
  * @author Thanh Nguyen <btnguyen2k@gmail.com>
  * @since template-v0.1.2
@@ -443,6 +452,15 @@ public class CronFormat {
     private String second = "*", minute = "*", hour = "*", dayOfMonth = "*", month = "*",
             dayOfWeek = "*";
 
+    /*
+     * Patterns compiled into bitsets at parse time: bit n is set if value n matches.
+     */
+    private long secondBits = compile(second, 0, 59), minuteBits = compile(minute, 0, 59),
+            hourBits = compile(hour, 0, 23), dayOfMonthBits = compile(dayOfMonth, 1, 31),
+            monthBits = compileMonth(month), dayOfWeekBits = compileDow(dayOfWeek);
+
+    private TimeZone timeZone = TimeZone.getDefault();
+
     public CronFormat() {
     }
 
@@ -462,16 +480,91 @@ public class CronFormat {
         setDayOfWeek(dayOfWeek);
     }
 
+    private static long compile(String pattern, int min, int max) {
+        long bits = 0;
+        for (int v = min; v <= max; v++) {
+            if (matches(v, pattern)) {
+                bits |= 1L << v;
+            }
+        }
+        return bits;
+    }
+
+    private static long compileMonth(String pattern) {
+        long bits = 0;
+        for (int v = JANUARY; v <= DECEMBER; v++) {
+            if (matchesMonth(v, pattern)) {
+                bits |= 1L << v;
+            }
+        }
+        return bits;
+    }
+
+    private static long compileDow(String pattern) {
+        long bits = 0;
+        for (int v = MONDAY; v <= SUNDAY; v++) {
+            if (matchesDow(v, pattern)) {
+                bits |= 1L << v;
+            }
+        }
+        return bits;
+    }
+
+    private static boolean isSet(long bits, int value) {
+        return (bits & (1L << value)) != 0;
+    }
+
+    /**
+     * Find the smallest value {@code >= from} whose bit is set.
+     * 
+     * @return {@code -1} if there is no such value
+     */
+    private static int nextSet(long bits, int from) {
+        long remaining = from < 64 ? bits & (-1L << from) : 0;
+        return remaining != 0 ? Long.numberOfTrailingZeros(remaining) : -1;
+    }
+
     /**
      * Matches this cron format against a timestamp.
      * 
+     * <p>
+     * Allocation-free: fields are computed arithmetically from the timestamp and tested against
+     * the compiled bitsets.
+     * </p>
+     * 
      * @param timestampMillis
      * @return
      */
     public boolean matches(long timestampMillis) {
-        Calendar cal = Calendar.getInstance();
-        cal.setTimeInMillis(timestampMillis);
-        return matches(cal);
+        long localMs = timestampMillis + timeZone.getOffset(timestampMillis);
+        long localSecs = Math.floorDiv(localMs, 1000L);
+        if (!isSet(secondBits, (int) Math.floorMod(localSecs, 60L))) {
+            return false;
+        }
+        long localMins = Math.floorDiv(localSecs, 60L);
+        if (!isSet(minuteBits, (int) Math.floorMod(localMins, 60L))) {
+            return false;
+        }
+        long localHours = Math.floorDiv(localMins, 60L);
+        if (!isSet(hourBits, (int) Math.floorMod(localHours, 24L))) {
+            return false;
+        }
+        long days = Math.floorDiv(localHours, 24L);
+        // 1970-01-01 was a Thursday
+        if (!isSet(dayOfWeekBits, (int) Math.floorMod(days + 3, 7L) + 1)) {
+            return false;
+        }
+
+        // days since epoch -> civil date (proleptic Gregorian)
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097L);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int valDay = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int valMonth = (int) (mp < 10 ? mp + 3 : mp - 9);
+        return isSet(dayOfMonthBits, valDay) && isSet(monthBits, valMonth);
     }
 
     /**
@@ -481,9 +574,7 @@ public class CronFormat {
      * @return
      */
     public boolean matches(Date timestamp) {
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(timestamp);
-        return matches(cal);
+        return matches(timestamp.getTime());
     }
 
     /**
@@ -493,61 +584,73 @@ public class CronFormat {
      * @return
      */
     public boolean matches(Calendar timestamp) {
-        int valSecond = timestamp.get(Calendar.SECOND);
-        if (!matches(valSecond, this.second)) {
-            return false;
-        }
-
-        int valMinute = timestamp.get(Calendar.MINUTE);
-        if (!matches(valMinute, this.minute)) {
-            return false;
-        }
-
-        int valHour = timestamp.get(Calendar.HOUR_OF_DAY);
-        if (!matches(valHour, this.hour)) {
-            return false;
-        }
-
-        int valDay = timestamp.get(Calendar.DAY_OF_MONTH);
-        if (!matches(valDay, this.dayOfMonth)) {
-            return false;
-        }
-
-        int valMonth = timestamp.get(Calendar.MONTH) + 1;
-        if (!matchesMonth(valMonth, this.month)) {
+        if (!isSet(secondBits, timestamp.get(Calendar.SECOND))
+                || !isSet(minuteBits, timestamp.get(Calendar.MINUTE))
+                || !isSet(hourBits, timestamp.get(Calendar.HOUR_OF_DAY))
+                || !isSet(dayOfMonthBits, timestamp.get(Calendar.DAY_OF_MONTH))
+                || !isSet(monthBits, timestamp.get(Calendar.MONTH) + 1)) {
             return false;
         }
+        // Calendar: SUNDAY=1..SATURDAY=7; CronFormat: MONDAY=1..SUNDAY=7
+        int valDow = timestamp.get(Calendar.DAY_OF_WEEK) == Calendar.SUNDAY ? SUNDAY
+                : timestamp.get(Calendar.DAY_OF_WEEK) - 1;
+        return isSet(dayOfWeekBits, valDow);
+    }
 
-        int _valDow = timestamp.get(Calendar.DAY_OF_WEEK);
-        int valDow = 0;
-        switch (_valDow) {
-        case Calendar.MONDAY:
-            valDow = MONDAY;
-            break;
-        case Calendar.TUESDAY:
-            valDow = TUESDAY;
-            break;
-        case Calendar.WEDNESDAY:
-            valDow = WEDNESDAY;
-            break;
-        case Calendar.THURSDAY:
-            valDow = THURSDAY;
-            break;
-        case Calendar.FRIDAY:
-            valDow = FRIDAY;
-            break;
-        case Calendar.SATURDAY:
-            valDow = SATURDAY;
-            break;
-        case Calendar.SUNDAY:
-            valDow = SUNDAY;
-            break;
-        }
-        if (!matchesDow(valDow, this.dayOfWeek)) {
-            return false;
+    /**
+     * Calculate the next time this cron format fires, strictly after a timestamp.
+     * 
+     * @param afterMillis
+     * @return UNIX timestamp (in milliseconds, whole second) of the next match, or {@code -1} if
+     *         the cron format does not match any time within the next 5 years (e.g.
+     *         {@code "0 0 0 31 2 *"})
+     * @since template-v2.6.r2
+     */
+    public long nextFireTime(long afterMillis) {
+        ZoneId zone = timeZone.toZoneId();
+        LocalDateTime t = LocalDateTime.ofInstant(Instant.ofEpochMilli(afterMillis), zone)
+                .withNano(0).plusSeconds(1);
+        LocalDateTime limit = t.plusYears(5);
+        while (t.isBefore(limit)) {
+            if (!isSet(monthBits, t.getMonthValue())) {
+                t = t.toLocalDate().withDayOfMonth(1).plusMonths(1).atStartOfDay();
+                continue;
+            }
+            if (!isSet(dayOfMonthBits, t.getDayOfMonth())
+                    || !isSet(dayOfWeekBits, t.getDayOfWeek().getValue())) {
+                t = t.toLocalDate().plusDays(1).atStartOfDay();
+                continue;
+            }
+            int h = nextSet(hourBits, t.getHour());
+            if (h < 0) {
+                t = t.toLocalDate().plusDays(1).atStartOfDay();
+                continue;
+            }
+            if (h != t.getHour()) {
+                t = t.truncatedTo(ChronoUnit.DAYS).withHour(h);
+            }
+            int m = nextSet(minuteBits, t.getMinute());
+            if (m < 0) {
+                t = t.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                continue;
+            }
+            if (m != t.getMinute()) {
+                t = t.truncatedTo(ChronoUnit.HOURS).withMinute(m);
+            }
+            int sec = nextSet(secondBits, t.getSecond());
+            if (sec < 0) {
+                t = t.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+                continue;
+            }
+            t = t.withSecond(sec);
+            long result = t.atZone(zone).toInstant().toEpochMilli();
+            if (result > afterMillis) {
+                return result;
+            }
+            // DST overlap/gap mapped the local time back in time
+            t = t.plusSeconds(1);
         }
-
-        return true;
+        return -1;
     }
 
     /*----------------------------------------------------------------------*/
@@ -558,6 +661,7 @@ public class CronFormat {
 
     public CronFormat setSecond(String second) {
         this.second = second;
+        this.secondBits = compile(second, 0, 59);
         return this;
     }
 
@@ -567,6 +671,7 @@ public class CronFormat {
 
     public CronFormat setMinute(String minute) {
         this.minute = minute;
+        this.minuteBits = compile(minute, 0, 59);
         return this;
     }
 
@@ -576,6 +681,7 @@ public class CronFormat {
 
     public CronFormat setHour(String hour) {
         this.hour = hour;
+        this.hourBits = compile(hour, 0, 23);
         return this;
     }
 
@@ -585,6 +691,7 @@ public class CronFormat {
 
     public CronFormat setDayOfMonth(String dayOfMonth) {
         this.dayOfMonth = dayOfMonth;
+        this.dayOfMonthBits = compile(dayOfMonth, 1, 31);
         return this;
     }
 
@@ -594,6 +701,7 @@ public class CronFormat {
 
     public CronFormat setMonth(String month) {
         this.month = month;
+        this.monthBits = compileMonth(month);
         return this;
     }
 
@@ -603,6 +711,29 @@ public class CronFormat {
 
     public CronFormat setDayOfWeek(String dayOfWeek) {
         this.dayOfWeek = dayOfWeek;
+        this.dayOfWeekBits = compileDow(dayOfWeek);
+        return this;
+    }
+
+    /**
+     * Time zone used to match timestamps (default: JVM's default time zone).
+     * 
+     * @return
+     * @since template-v2.6.r2
+     */
+    public TimeZone getTimeZone() {
+        return timeZone;
+    }
+
+    /**
+     * Set time zone used to match timestamps.
+     * 
+     * @param timeZone
+     * @return
+     * @since template-v2.6.r2
+     */
+    public CronFormat setTimeZone(TimeZone timeZone) {
+        this.timeZone = timeZone;
         return this;
     }
 
@@ -0,0 +1,233 @@
+package akka.workers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * Interval-based schedule for worker, at millisecond granularity.
+ *
+ * <ul>
+ * <li>Fixed-rate: fire times are {@code anchor + n * period}. Each fire time is computed from the
+ * anchor rather than from the previous fire, so timer latency never accumulates into drift. If
+ * the worker falls behind, missed slots are handled by the worker's misfire policy (see
+ * {@link MisfirePolicy}); by default they are skipped and the next fire is the first slot not
+ * misfired (see {@link #nextFireTime(long, long, long)} and
+ * {@link BaseWorker#getMisfireThresholdMs()}).</li>
+ * <li>Fixed-delay: the next fire is {@code period} after the previous job has completed.</li>
+ * </ul>
+ *
+ * <p>
+ * Note: actual resolution is bound by the actor system's scheduler
+ * ({@code akka.scheduler.tick-duration}).
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class IntervalSchedule {
+
+    public static enum Mode {
+        FIXED_RATE, FIXED_DELAY;
+    }
+
+    private final static Pattern PATTERN_DURATION = Pattern
+            .compile("^(\\d+)\\s*(ms|s|m|h)?$", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Parses a duration, e.g. {@code "250ms"}, {@code "5s"}, {@code "2m"}, {@code "1h"}
+     * (milliseconds if no unit).
+     *
+     * @param input
+     * @return duration in milliseconds
+     */
+    public static long parseDurationMs(String input) {
+        Matcher m = PATTERN_DURATION.matcher(input != null ? input.trim() : "");
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Invalid duration [" + input + "]!");
+        }
+        long value = Long.parseLong(m.group(1));
+        String unit = m.group(2) != null ? m.group(2).toLowerCase() : "ms";
+        switch (unit) {
+        case "s":
+            return TimeUnit.SECONDS.toMillis(value);
+        case "m":
+            return TimeUnit.MINUTES.toMillis(value);
+        case "h":
+            return TimeUnit.HOURS.toMillis(value);
+        default:
+            return value;
+        }
+    }
+
+    /**
+     * Parses an interval schedule from a plain text string.
+     *
+     * @param input
+     *            {@code <fixed-rate|fixed-delay> <period> [<initial-delay>]}, e.g.
+     *            {@code "fixed-rate 250ms"} or {@code "fixed-delay 1s 5s"}
+     * @return
+     */
+    public static IntervalSchedule parse(String input) {
+        String[] tokens = input.trim().split("[\\s\\t]+");
+        if (tokens.length < 2 || tokens.length > 3) {
+            throw new IllegalArgumentException("Invalid input [" + input + "]!");
+        }
+        Mode mode;
+        if ("fixed-rate".equalsIgnoreCase(tokens[0])) {
+            mode = Mode.FIXED_RATE;
+        } else if ("fixed-delay".equalsIgnoreCase(tokens[0])) {
+            mode = Mode.FIXED_DELAY;
+        } else {
+            throw new IllegalArgumentException("Invalid input [" + input + "]!");
+        }
+        long periodMs = parseDurationMs(tokens[1]);
+        long initialDelayMs = tokens.length > 2 ? parseDurationMs(tokens[2]) : 0;
+        return new IntervalSchedule(mode, periodMs, initialDelayMs);
+    }
+
+    /**
+     * Creates a fixed-rate schedule.
+     *
+     * @param periodMs
+     * @return
+     */
+    public static IntervalSchedule fixedRate(long periodMs) {
+        return new IntervalSchedule(Mode.FIXED_RATE, periodMs, 0);
+    }
+
+    /**
+     * Creates a fixed-delay schedule.
+     *
+     * @param delayMs
+     * @return
+     */
+    public static IntervalSchedule fixedDelay(long delayMs) {
+        return new IntervalSchedule(Mode.FIXED_DELAY, delayMs, 0);
+    }
+
+    private final Mode mode;
+    private final long periodMs, initialDelayMs;
+
+    public IntervalSchedule(Mode mode, long periodMs, long initialDelayMs) {
+        if (mode == null) {
+            throw new IllegalArgumentException("Mode is null!");
+        }
+        if (periodMs <= 0) {
+            throw new IllegalArgumentException("Invalid period [" + periodMs + "]!");
+        }
+        if (initialDelayMs < 0) {
+            throw new IllegalArgumentException("Invalid initial delay [" + initialDelayMs + "]!");
+        }
+        this.mode = mode;
+        this.periodMs = periodMs;
+        this.initialDelayMs = initialDelayMs;
+    }
+
+    /**
+     * Returns a copy of this schedule with a different initial delay.
+     *
+     * @param initialDelayMs
+     * @return
+     */
+    public IntervalSchedule withInitialDelay(long initialDelayMs) {
+        return new IntervalSchedule(mode, periodMs, initialDelayMs);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public boolean isFixedRate() {
+        return mode == Mode.FIXED_RATE;
+    }
+
+    public boolean isFixedDelay() {
+        return mode == Mode.FIXED_DELAY;
+    }
+
+    public long getPeriodMs() {
+        return periodMs;
+    }
+
+    public long getInitialDelayMs() {
+        return initialDelayMs;
+    }
+
+    /**
+     * Calculates the first fire time, which is also the anchor of a fixed-rate schedule.
+     *
+     * @param startMs
+     *            time the worker starts (UNIX timestamp, in milliseconds)
+     * @return
+     */
+    public long firstFireTime(long startMs) {
+        return startMs + initialDelayMs;
+    }
+
+    /**
+     * Calculates the next fire time.
+     *
+     * @param anchorMs
+     *            first fire time (see {@link #firstFireTime(long)})
+     * @param lastFireMs
+     *            previous fire time (fixed-rate), ignored for fixed-delay
+     * @param nowMs
+     *            current time; for fixed-delay this is the time the previous job completed
+     * @return
+     */
+    public long nextFireTime(long anchorMs, long lastFireMs, long nowMs) {
+        if (mode == Mode.FIXED_DELAY) {
+            return nowMs + periodMs;
+        }
+        long next = nextSlot(anchorMs, lastFireMs);
+        if (next < nowMs) {
+            // fell behind: skip to the first slot that is not in the past
+            long n = (nowMs - anchorMs + periodMs - 1) / periodMs;
+            next = anchorMs + n * periodMs;
+        }
+        return next;
+    }
+
+    /**
+     * Calculates the fixed-rate slot right after {@code lastFireMs}, even if it is in the past.
+     *
+     * @param anchorMs
+     *            first fire time (see {@link #firstFireTime(long)})
+     * @param lastFireMs
+     * @return
+     */
+    public long nextSlot(long anchorMs, long lastFireMs) {
+        long n = lastFireMs >= anchorMs ? (lastFireMs - anchorMs) / periodMs + 1 : 0;
+        return anchorMs + n * periodMs;
+    }
+
+    /**
+     * Counts fixed-rate slots strictly between {@code lastFireMs} and {@code nextFireMs}, i.e.
+     * fires that were skipped.
+     *
+     * @param lastFireMs
+     * @param nextFireMs
+     * @return
+     */
+    public long countMissed(long lastFireMs, long nextFireMs) {
+        if (mode == Mode.FIXED_DELAY || nextFireMs <= lastFireMs) {
+            return 0;
+        }
+        return Math.max(0, (nextFireMs - lastFireMs) / periodMs - 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        ToStringBuilder tsb = new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE);
+        tsb.append("mode", mode).append("period", periodMs).append("initialDelay",
+                initialDelayMs);
+        return tsb.toString();
+    }
+}
@@ -0,0 +1,37 @@
+package akka.workers;
+
+/**
+ * What a worker does with scheduled runs it could not perform on time.
+ *
+ * <p>
+ * A run misfires when its fire time is more than the worker's misfire threshold in the past (e.g.
+ * after a long GC pause; any past slot of a fixed-rate schedule), or when its tick arrives while
+ * the worker is still busy with a previous run.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public enum MisfirePolicy {
+    /**
+     * Drop misfired runs, resume with the next fire time that is not late.
+     */
+    SKIP,
+
+    /**
+     * Coalesce all misfired runs into a single catch-up run.
+     */
+    RUN_ONCE,
+
+    /**
+     * Perform every misfired run, one after another: each catch-up run starts once the previous
+     * run has completed.
+     */
+    RUN_ALL,
+
+    /**
+     * Perform misfired runs up to a bound (see {@link BaseWorker#getMisfireQueueBound()}), drop
+     * the rest.
+     */
+    QUEUE_BOUNDED;
+}
@@ -2,8 +2,6 @@ package akka.workers;
 
 import java.util.concurrent.TimeUnit;
 
-import com.github.ddth.commons.utils.MapUtils;
-
 import akka.TickMessage;
 import akka.actor.AbstractActor;
 import akka.actor.Cancellable;
@@ -36,6 +34,11 @@ public class TickFanoutActor extends AbstractActor {
 
     private Cancellable tick;
 
+    /*
+     * Sender name attached to "tick" messages, computed once.
+     */
+    private String tickSender;
+
     /**
      * {@inheritDoc}
      */
@@ -46,8 +49,9 @@ public class TickFanoutActor extends AbstractActor {
         /*
          * Schedule to fire "tick" message periodically.
          */
+        tickSender = self().path().toString().intern();
         tick = getContext().system().scheduler().schedule(DELAY_INITIAL, DELAY_TICK, () -> {
-            self().tell(new TickMessage(MapUtils.createMap("sender", self().toString())), self());
+            self().tell(new TickMessage(System.currentTimeMillis(), tickSender), self());
         }, getContext().dispatcher());
     }
 
@@ -0,0 +1,136 @@
+package akka.workers;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+import play.Logger;
+
+/**
+ * Checkpoints of a worker in the node-local {@link CheckpointStore}, namespaced by worker class.
+ * Shared by {@link BaseWorker} and cluster-workers.
+ *
+ * <p>
+ * The last-run timestamp is updated after every run, but written to the store at most once per
+ * {@code lastRunSaveIntervalMs} (and on {@link #flush()}), so that fast workers do not turn
+ * every run into a log record (and the log into frequent compactions).
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class WorkerCheckpoints {
+
+    /**
+     * Name of the checkpoint that keeps the last-run timestamp.
+     */
+    public final static String LAST_RUN = "last-run";
+
+    private final Supplier<CheckpointStore> storeSupplier;
+    private final String namespace;
+    private final String logPrefix;
+    private final long lastRunSaveIntervalMs;
+
+    /* guarded by this */
+    private long lastRun = -1, lastRunSaved = -1, lastRunSavedAtMs;
+
+    /**
+     * @param storeSupplier
+     *            supplies the store, which may be {@code null} if checkpoints are disabled
+     * @param workerClass
+     *            checkpoints are namespaced by worker class
+     * @param logPrefix
+     *            prefix of log messages (e.g. the worker's actor path)
+     * @param lastRunSaveIntervalMs
+     *            min interval between 2 writes of the last-run timestamp
+     */
+    public WorkerCheckpoints(Supplier<CheckpointStore> storeSupplier, Class<?> workerClass,
+            String logPrefix, long lastRunSaveIntervalMs) {
+        this.storeSupplier = storeSupplier;
+        this.namespace = workerClass.getName() + "/";
+        this.logPrefix = logPrefix;
+        this.lastRunSaveIntervalMs = lastRunSaveIntervalMs;
+    }
+
+    /**
+     * Key of a checkpoint in the store.
+     *
+     * @param name
+     * @return
+     */
+    public String getKey(String name) {
+        return namespace + name;
+    }
+
+    /**
+     * Load a checkpoint.
+     *
+     * @param name
+     * @param defaultValue
+     * @return
+     */
+    public long load(String name, long defaultValue) {
+        CheckpointStore store = storeSupplier.get();
+        return store != null ? store.getLong(getKey(name), defaultValue) : defaultValue;
+    }
+
+    /**
+     * Save a checkpoint.
+     *
+     * @param name
+     * @param value
+     * @return {@code false} if checkpoint store is disabled or the checkpoint could not be saved
+     */
+    public boolean save(String name, long value) {
+        CheckpointStore store = storeSupplier.get();
+        if (store == null) {
+            return false;
+        }
+        try {
+            store.putLong(getKey(name), value);
+            return true;
+        } catch (IOException e) {
+            Logger.warn(logPrefix + " Cannot save checkpoint [" + name + "]: " + e.getMessage(),
+                    e);
+            return false;
+        }
+    }
+
+    /**
+     * Get the last-run timestamp, including runs not written to the store yet and runs before a
+     * restart.
+     *
+     * @return {@code -1} if not available
+     */
+    public synchronized long getLastRun() {
+        return lastRun >= 0 ? lastRun : load(LAST_RUN, -1);
+    }
+
+    /**
+     * Update the last-run timestamp; it is written to the store if the previous write is older
+     * than {@code lastRunSaveIntervalMs}.
+     *
+     * @param timestampMs
+     */
+    public synchronized void updateLastRun(long timestampMs) {
+        if (timestampMs <= lastRun) {
+            return;
+        }
+        lastRun = timestampMs;
+        long now = System.currentTimeMillis();
+        if (now - lastRunSavedAtMs >= lastRunSaveIntervalMs) {
+            lastRunSavedAtMs = now;
+            if (save(LAST_RUN, timestampMs)) {
+                lastRunSaved = timestampMs;
+            }
+        }
+    }
+
+    /**
+     * Write the last-run timestamp to the store, if not written yet.
+     */
+    public synchronized void flush() {
+        if (lastRun > lastRunSaved && save(LAST_RUN, lastRun)) {
+            lastRunSaved = lastRun;
+        }
+    }
+}
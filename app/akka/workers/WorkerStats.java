@@ -0,0 +1,151 @@
+package akka.workers;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Execution counters of a worker, for monitoring.
+ *
+ * <p>
+ * Each running worker registers its counters under its actor path, see {@link #getAll()}.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class WorkerStats {
+
+    private final static ConcurrentHashMap<String, WorkerStats> ALL = new ConcurrentHashMap<>();
+
+    /**
+     * Register counters of a worker.
+     *
+     * @param name
+     * @param stats
+     */
+    public static void register(String name, WorkerStats stats) {
+        ALL.put(name, stats);
+    }
+
+    /**
+     * Unregister counters of a worker.
+     *
+     * @param name
+     */
+    public static void unregister(String name) {
+        ALL.remove(name);
+    }
+
+    /**
+     * Get counters of all running workers.
+     *
+     * @return
+     */
+    public static Map<String, WorkerStats> getAll() {
+        return Collections.unmodifiableMap(ALL);
+    }
+
+    private final AtomicLong ticksCompleted = new AtomicLong(0);
+    private final AtomicLong ticksSkipped = new AtomicLong(0);
+    private final AtomicLong shardsSkipped = new AtomicLong(0);
+    private final AtomicLong misfiresSkipped = new AtomicLong(0);
+    private final AtomicLong catchUpRuns = new AtomicLong(0);
+    private final AtomicLong ticksQueued = new AtomicLong(0);
+
+    /**
+     * Number of ticks whose job has completed.
+     *
+     * @return
+     */
+    public long getTicksCompleted() {
+        return ticksCompleted.get();
+    }
+
+    public void incTicksCompleted() {
+        ticksCompleted.incrementAndGet();
+    }
+
+    /**
+     * Number of ticks dropped because the worker was busy.
+     *
+     * @return
+     */
+    public long getTicksSkipped() {
+        return ticksSkipped.get();
+    }
+
+    public void incTicksSkipped() {
+        ticksSkipped.incrementAndGet();
+    }
+
+    /**
+     * Number of shard runs skipped because the shard was busy.
+     *
+     * @return
+     */
+    public long getShardsSkipped() {
+        return shardsSkipped.get();
+    }
+
+    public void incShardsSkipped() {
+        shardsSkipped.incrementAndGet();
+    }
+
+    /**
+     * Number of late scheduled runs that were dropped.
+     *
+     * @return
+     */
+    public long getMisfiresSkipped() {
+        return misfiresSkipped.get();
+    }
+
+    public void addMisfiresSkipped(long value) {
+        misfiresSkipped.addAndGet(value);
+    }
+
+    /**
+     * Number of late scheduled runs that were performed to catch up.
+     *
+     * @return
+     */
+    public long getCatchUpRuns() {
+        return catchUpRuns.get();
+    }
+
+    public void incCatchUpRuns() {
+        catchUpRuns.incrementAndGet();
+    }
+
+    /**
+     * Number of ticks queued because the worker was busy.
+     *
+     * @return
+     */
+    public long getTicksQueued() {
+        return ticksQueued.get();
+    }
+
+    public void incTicksQueued() {
+        ticksQueued.incrementAndGet();
+    }
+
+    /**
+     * Export counters as a map.
+     *
+     * @return
+     */
+    public Map<String, Long> toMap() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("ticks_completed", getTicksCompleted());
+        result.put("ticks_skipped", getTicksSkipped());
+        result.put("shards_skipped", getShardsSkipped());
+        result.put("misfires_skipped", getMisfiresSkipped());
+        result.put("catchup_runs", getCatchUpRuns());
+        result.put("ticks_queued", getTicksQueued());
+        return result;
+    }
+}
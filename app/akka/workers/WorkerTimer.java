@@ -0,0 +1,140 @@
+package akka.workers;
+
+import java.util.concurrent.TimeUnit;
+
+import akka.TickMessage;
+import akka.actor.ActorContext;
+import akka.actor.Cancellable;
+import modules.registry.IRegistry;
+import scala.concurrent.ExecutionContextExecutor;
+import scala.concurrent.duration.Duration;
+
+/**
+ * A worker's own timer: arms one-shot "tick" messages on the actor system's scheduler (a hashed
+ * timer wheel) at scheduled fire times. Shared by {@link BaseWorker} and cluster-workers.
+ *
+ * <p>
+ * Note: not thread-safe, must only be used from within the owner actor.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class WorkerTimer {
+
+    /**
+     * "Tick" message delivered by the worker's own timer, at the scheduled fire time.
+     */
+    public static class ScheduledTickMessage extends TickMessage {
+        private static final long serialVersionUID = "template-v2.6.r2".hashCode();
+
+        public ScheduledTickMessage(long timestampMs) {
+            super(timestampMs);
+        }
+    }
+
+    /**
+     * Message to re-arm the timer once a job completes.
+     */
+    public final static class RescheduleMessage {
+        /**
+         * Time to calculate the next fire time from; negative means the time the message is
+         * handled.
+         */
+        public final long afterMs;
+
+        public RescheduleMessage(long afterMs) {
+            this.afterMs = afterMs;
+        }
+    }
+
+    /**
+     * Re-arm the timer from the current time (e.g. fixed-delay).
+     */
+    public final static RescheduleMessage RESCHEDULE = new RescheduleMessage(-1);
+
+    /**
+     * Get the executor to run workers' jobs on ({@code worker-dispatcher}, fallback to the default
+     * one).
+     *
+     * @param registry
+     * @return
+     */
+    public static ExecutionContextExecutor getWorkerExecutor(IRegistry registry) {
+        ExecutionContextExecutor ecs = registry.getExecutionContextExecutor("worker-dispatcher");
+        if (ecs == null) {
+            ecs = registry.getDefaultExecutionContextExecutor();
+        }
+        return ecs;
+    }
+
+    private final ActorContext context;
+    private Cancellable timer;
+    private long anchorMs;
+
+    /**
+     * @param context
+     *            context of the owner actor, "tick" messages are sent to the actor itself
+     */
+    public WorkerTimer(ActorContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Start an interval-based schedule: arm the timer for the first fire time, which is also the
+     * anchor of a fixed-rate schedule.
+     *
+     * @param interval
+     * @param startMs
+     * @return the first fire time
+     */
+    public long start(IntervalSchedule interval, long startMs) {
+        anchorMs = interval.firstFireTime(startMs);
+        arm(anchorMs);
+        return anchorMs;
+    }
+
+    /**
+     * Anchor of the interval-based schedule (see {@link #start(IntervalSchedule, long)}).
+     *
+     * @return
+     */
+    public long getAnchorMs() {
+        return anchorMs;
+    }
+
+    /**
+     * Arm the timer for the next fire time of an interval-based schedule, skipping slots that
+     * are already in the past.
+     *
+     * @param interval
+     * @param afterMs
+     *            previous fire time (fixed-rate), or time the previous job completed
+     *            (fixed-delay)
+     */
+    public void armNext(IntervalSchedule interval, long afterMs) {
+        arm(interval.nextFireTime(anchorMs, afterMs, System.currentTimeMillis()));
+    }
+
+    /**
+     * Arm the timer to fire at a specific time (right away if it is in the past).
+     *
+     * @param fireTimeMs
+     */
+    public void arm(long fireTimeMs) {
+        long delayMs = Math.max(0, fireTimeMs - System.currentTimeMillis());
+        timer = context.system().scheduler().scheduleOnce(
+                Duration.create(delayMs, TimeUnit.MILLISECONDS), context.self(),
+                new ScheduledTickMessage(fireTimeMs), context.dispatcher(), context.self());
+    }
+
+    /**
+     * Cancel the armed timer, if any.
+     */
+    public void cancel() {
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package api;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import api.ApiKeyStore.ApiKeyInfo;
+import play.Logger;
+import play.libs.Json;
+import utils.AppConstants;
+
+/**
+ * Authenticate API calls by API key and access token.
+ *
+ * <p>
+ * Supported access tokens (both signed with the API key's secret using HMAC-SHA256):
+ * </p>
+ * <ul>
+ * <li>Simple token: {@code <expiry> "." base64url(hmac(apiKey "." <expiry>))}, where
+ * {@code expiry} is a UNIX timestamp in seconds.</li>
+ * <li>JWT with {@code alg=HS256}: claim {@code exp} is required, claim {@code sub} (if present)
+ * must be the API key.</li>
+ * </ul>
+ *
+ * <p>
+ * Verified tokens are cached (keyed by the token's SHA-256 digest, so that plaintext credentials
+ * are not kept in the cache), and repeated calls with the same token skip the HMAC verification: a
+ * cache hit costs a SHA-256 digest, a hash lookup and a rate-limit check.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class ApiAuthenticator {
+
+    public final static String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static class VerifiedToken {
+        final String apiKey;
+        final long expiryMs;
+
+        VerifiedToken(String apiKey, long expiryMs) {
+            this.apiKey = apiKey;
+            this.expiryMs = expiryMs;
+        }
+    }
+
+    private final static ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /**
+     * Cache key of a token: base64 of its SHA-256 digest.
+     *
+     * @param token
+     * @return
+     */
+    private static String tokenDigest(String token) {
+        return Base64.getEncoder()
+                .encodeToString(SHA256.get().digest(token.getBytes(AppConstants.UTF8)));
+    }
+
+    private final ApiKeyStore keyStore;
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    /**
+     * @param keyStore
+     * @param cacheSize
+     *            max number of verified tokens to cache
+     * @param cacheTtlMs
+     *            how long a verified token is cached (tokens are never accepted past their own
+     *            expiry)
+     */
+    public ApiAuthenticator(ApiKeyStore keyStore, long cacheSize, long cacheTtlMs) {
+        this.keyStore = keyStore;
+        this.verifiedTokens = CacheBuilder.newBuilder().maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtlMs, TimeUnit.MILLISECONDS).build();
+    }
+
+    public ApiKeyStore getKeyStore() {
+        return keyStore;
+    }
+
+    /**
+     * Drop all cached verifications (e.g. after keys are rotated).
+     */
+    public void invalidateCache() {
+        verifiedTokens.invalidateAll();
+    }
+
+    /**
+     * Authenticate an API call.
+     *
+     * @param apiAuth
+     * @return {@code null} if the call is allowed, otherwise the result to return to client
+     */
+    public ApiResult authenticate(ApiAuth apiAuth) {
+        return authenticate(apiAuth, null);
+    }
+
+    /**
+     * Authenticate an API call, and take it from the key's rate limits (see
+     * {@link ApiKeyInfo#tryAcquire(String)}).
+     *
+     * @param apiAuth
+     * @param apiName
+     * @return {@code null} if the call is allowed, otherwise the result to return to client
+     * @since template-v2.6.r2
+     */
+    public ApiResult authenticate(ApiAuth apiAuth, String apiName) {
+        ApiKeyInfo keyInfo = apiAuth != null ? keyStore.get(apiAuth.apiKey) : null;
+        String token = apiAuth != null ? apiAuth.apiAccessToken : null;
+        if (keyInfo == null || StringUtils.isEmpty(token)) {
+            return ApiResult.RESULT_ACCESS_DENIED.clone();
+        }
+
+        long now = System.currentTimeMillis();
+        String tokenDigest = tokenDigest(token);
+        VerifiedToken verified = verifiedTokens.getIfPresent(tokenDigest);
+        if (verified == null || !verified.apiKey.equals(keyInfo.apiKey)) {
+            long expiryMs = verifyToken(keyInfo, token);
+            if (expiryMs <= now) {
+                return ApiResult.RESULT_ACCESS_DENIED.clone();
+            }
+            verified = new VerifiedToken(keyInfo.apiKey, expiryMs);
+            verifiedTokens.put(tokenDigest, verified);
+        } else if (verified.expiryMs <= now) {
+            verifiedTokens.invalidate(tokenDigest);
+            return ApiResult.RESULT_ACCESS_DENIED.clone();
+        }
+
+        return keyInfo.tryAcquire(apiName) ? null : ApiResult.RESULT_TOO_MANY_REQUESTS.clone();
+    }
+
+    /**
+     * Give back the request taken from the key's rate limits by a successful
+     * {@link #authenticate(ApiAuth, String)}, when the call is rejected afterwards.
+     *
+     * @param apiAuth
+     * @param apiName
+     * @since template-v2.6.r2
+     */
+    public void release(ApiAuth apiAuth, String apiName) {
+        ApiKeyInfo keyInfo = apiAuth != null ? keyStore.get(apiAuth.apiKey) : null;
+        if (keyInfo != null) {
+            keyInfo.release(apiName);
+        }
+    }
+
+    /*----------------------------------------------------------------------*/
+
+    private static byte[] hmac(ApiKeyInfo keyInfo, String data) throws Exception {
+        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+        mac.init(keyInfo.secret);
+        return mac.doFinal(data.getBytes(AppConstants.UTF8));
+    }
+
+    private static boolean signatureMatches(ApiKeyInfo keyInfo, String data, String signature)
+            throws Exception {
+        byte[] expected = hmac(keyInfo, data);
+        byte[] actual = Base64.getUrlDecoder().decode(signature);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    /**
+     * Verify an access token.
+     *
+     * @param keyInfo
+     * @param token
+     * @return token's expiry (UNIX timestamp in milliseconds), or {@code -1} if the token is
+     *         invalid
+     */
+    protected long verifyToken(ApiKeyInfo keyInfo, String token) {
+        try {
+            String[] parts = StringUtils.splitPreserveAllTokens(token, '.');
+            if (parts.length == 2) {
+                long expiry = Long.parseLong(parts[0]);
+                return signatureMatches(keyInfo, keyInfo.apiKey + "." + parts[0], parts[1])
+                        ? TimeUnit.SECONDS.toMillis(expiry) : -1;
+            }
+            if (parts.length == 3) {
+                JsonNode header = Json.parse(Base64.getUrlDecoder().decode(parts[0]));
+                if (!StringUtils.equals(header.path("alg").asText(), "HS256")
+                        || !signatureMatches(keyInfo, parts[0] + "." + parts[1], parts[2])) {
+                    return -1;
+                }
+                JsonNode claims = Json.parse(Base64.getUrlDecoder().decode(parts[1]));
+                JsonNode sub = claims.get("sub");
+                if (sub != null && !StringUtils.equals(sub.asText(), keyInfo.apiKey)) {
+                    return -1;
+                }
+                JsonNode exp = claims.get("exp");
+                return exp != null && exp.canConvertToLong()
+                        ? TimeUnit.SECONDS.toMillis(exp.asLong()) : -1;
+            }
+        } catch (Exception e) {
+            Logger.debug("Invalid access token for API key [" + keyInfo.apiKey + "]: "
+                    + e.getMessage());
+        }
+        return -1;
+    }
+
+    /**
+     * Generate a simple access token for an API key.
+     *
+     * @param keyInfo
+     * @param expiry
+     *            UNIX timestamp in seconds
+     * @return
+     * @throws Exception
+     */
+    public static String generateToken(ApiKeyInfo keyInfo, long expiry) throws Exception {
+        byte[] signature = hmac(keyInfo, keyInfo.apiKey + "." + expiry);
+        return expiry + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    }
+}
@@ -1,5 +1,6 @@
 package api;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -28,8 +29,11 @@ public class ApiContext {
     public final long timestamp = System.currentTimeMillis();
     public final static String CTX_API_NAME = "api_name";
     public final static String CTX_GATEWAY = "gateway";
+    public final static String CTX_IDEMPOTENCY_KEY = "idempotency_key";
 
     private Map<String, Object> context = new ConcurrentHashMap<>();
+    private final String apiName;
+    private int apiId = ApiDispatcher.API_ID_UNKNOWN;
 
     public ApiContext(String apiName) {
         this(apiName, null);
@@ -39,7 +43,10 @@ public class ApiContext {
         if (contextData != null) {
             this.context.putAll(contextData);
         }
-        setContextField(CTX_API_NAME, apiName);
+        this.apiName = apiName;
+        if (apiName != null) {
+            setContextField(CTX_API_NAME, apiName);
+        }
     }
 
     /**
@@ -65,13 +72,46 @@ public class ApiContext {
         return MapUtils.getValue(context, name, clazz);
     }
 
+    /**
+     * Get all context values (read-only).
+     * 
+     * @return
+     * @since template-v2.6.r2
+     */
+    public Map<String, Object> getContextData() {
+        return Collections.unmodifiableMap(context);
+    }
+
     /**
      * Get context value: API name.
      * 
      * @return
      */
     public String getApiName() {
-        return getContextField(CTX_API_NAME, String.class);
+        return apiName;
+    }
+
+    /**
+     * Get the API's compiled route id (see {@link ApiDispatcher#resolveApiId(String)}).
+     * 
+     * @return the route id, or {@link ApiDispatcher#API_ID_UNKNOWN} if the gateway did not resolve
+     *         it
+     * @since template-v2.6.r2
+     */
+    public int getApiId() {
+        return apiId;
+    }
+
+    /**
+     * Set the API's compiled route id, resolved once by the gateway when parsing the route.
+     * 
+     * @param apiId
+     * @return
+     * @since template-v2.6.r2
+     */
+    public ApiContext setApiId(int apiId) {
+        this.apiId = apiId;
+        return this;
     }
 
     /**
@@ -83,4 +123,14 @@ public class ApiContext {
         return getContextField(CTX_GATEWAY, String.class);
     }
 
+    /**
+     * Get context value: idempotency key sent by client (e.g. via HTTP header).
+     * 
+     * @return
+     * @since template-v2.6.r2
+     */
+    public String getIdempotencyKey() {
+        return getContextField(CTX_IDEMPOTENCY_KEY, String.class);
+    }
+
 }
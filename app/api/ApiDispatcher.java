@@ -1,37 +1,355 @@
 package api;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+
 import com.github.ddth.commons.utils.MapUtils;
-import api.func.ApiFuncMessageProcess;
+import com.typesafe.config.Config;
+
+import akka.actor.ActorSystem;
+import api.ApiHandlerRegistry.HandlerTable;
+import modules.registry.IRegistry;
+import modules.registry.RegistryGlobal;
 import play.Logger;
 import play.Logger.ALogger;
+import utils.AppConfigUtils;
 
 /**
  * Dispatch API call to handler.
- * 
+ *
+ * <p>
+ * API names are compiled into integer route ids (see {@link #resolveApiId(String)}): each name is
+ * interned once, gateways resolve the id when parsing the route and dispatching becomes an array
+ * index. Handlers are discovered and hot-reloaded by {@link ApiHandlerRegistry}.
+ * </p>
+ *
  * @author Thanh Nguyen <btnguyen2k@gmail.com>
  * @since template-v0.1.4
  */
-public class ApiDispatcher {
+public class ApiDispatcher implements ApplicationContextAware {
 
-    private Map<String, IApiHandler> apiHandlers = new ConcurrentHashMap<>();
+    /**
+     * Route id of APIs that are not registered.
+     *
+     * @since template-v2.6.r2
+     */
+    public final static int API_ID_UNKNOWN = -1;
+
+    private ApiHandlerRegistry handlerRegistry = new ApiHandlerRegistry();
     private AtomicInteger concurrent = new AtomicInteger(0);
     private final ALogger LOGGER_ACTION = Logger.of("action");
 
+    private ApiIdempotencyCache idempotencyCache;
+    private ApiAuthenticator apiAuthenticator;
+    private ApiRateLimiter apiRateLimiter;
+    private ApiShardRouter apiShardRouter;
+
+    private ApplicationContext applicationContext;
+    private String handlerScanPackages = "api.func";
+    private String handlerConfigFile;
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since template-v2.6.r2
+     */
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * Comma-separated list of packages to scan for {@link ApiFunc} handlers (default
+     * {@code api.func}).
+     *
+     * @param handlerScanPackages
+     * @return
+     * @since template-v2.6.r2
+     */
+    public ApiDispatcher setHandlerScanPackages(String handlerScanPackages) {
+        this.handlerScanPackages = handlerScanPackages;
+        return this;
+    }
+
+    /**
+     * Spring config file that declares hot-reloadable {@link IApiHandler} beans (relative path is
+     * resolved against application's home directory).
+     *
+     * @param handlerConfigFile
+     * @return
+     * @since template-v2.6.r2
+     */
+    public ApiDispatcher setHandlerConfigFile(String handlerConfigFile) {
+        this.handlerConfigFile = handlerConfigFile;
+        return this;
+    }
+
     public ApiDispatcher init() {
-        apiHandlers.put("messageProcess", ApiFuncMessageProcess::messageProcess);
-        
+        String[] scanPackages = StringUtils.split(StringUtils.defaultString(handlerScanPackages),
+                ',');
+        handlerRegistry.setScanPackages(scanPackages).setApplicationContext(applicationContext)
+                .setHandlerConfigFile(handlerConfigFile).reload();
+
+        initApiAuthenticator();
+        initApiRateLimiter();
+        initIdempotencyCache();
+        initApiShardRouter();
+
         return this;
     }
 
+    private void initApiAuthenticator() {
+        IRegistry registry = RegistryGlobal.registry;
+        Config appConfig = registry != null ? registry.getAppConfig() : null;
+        if (appConfig == null || !AppConfigUtils.getOrDefault(appConfig::getBoolean,
+                "api.auth.enabled", false)) {
+            return;
+        }
+        long cacheSize = AppConfigUtils.getOrDefault(appConfig::getLong, "api.auth.tokenCacheSize",
+                65536L);
+        long cacheTtlMs = AppConfigUtils.getOrDefault(appConfig::getLong,
+                "api.auth.tokenCacheTtl", 300000L);
+        apiAuthenticator = new ApiAuthenticator(new ApiKeyStore().load(appConfig), cacheSize,
+                cacheTtlMs);
+    }
+
+    private void initApiRateLimiter() {
+        IRegistry registry = RegistryGlobal.registry;
+        Config appConfig = registry != null ? registry.getAppConfig() : null;
+        if (appConfig != null && AppConfigUtils.getOrDefault(appConfig::getBoolean,
+                "api.ratelimit.enabled", false)) {
+            apiRateLimiter = new ApiRateLimiter().load(appConfig)
+                    .setKeyStore(apiAuthenticator != null ? apiAuthenticator.getKeyStore() : null);
+        }
+    }
+
+    /**
+     * Get the API rate limiter.
+     *
+     * @return {@code null} if rate limiting is disabled
+     * @since template-v2.6.r2
+     */
+    public ApiRateLimiter getApiRateLimiter() {
+        return apiRateLimiter;
+    }
+
+    /**
+     * Get the API authenticator.
+     *
+     * @return {@code null} if authentication is disabled
+     * @since template-v2.6.r2
+     */
+    public ApiAuthenticator getApiAuthenticator() {
+        return apiAuthenticator;
+    }
+
+    private void initIdempotencyCache() {
+        IRegistry registry = RegistryGlobal.registry;
+        Config appConfig = registry != null ? registry.getAppConfig() : null;
+        if (appConfig == null || !AppConfigUtils.getOrDefault(appConfig::getBoolean,
+                "api.idempotency.enabled", false)) {
+            return;
+        }
+        long maxEntries = AppConfigUtils.getOrDefault(appConfig::getLong,
+                "api.idempotency.maxEntries", 16384L);
+        long ttlMs = AppConfigUtils.getOrDefault(appConfig::getLong, "api.idempotency.ttl",
+                600000L);
+        long waitTimeoutMs = AppConfigUtils.getOrDefault(appConfig::getLong,
+                "api.idempotency.waitTimeout", 30000L);
+        idempotencyCache = new ApiIdempotencyCache(maxEntries, ttlMs, waitTimeoutMs);
+
+        if (AppConfigUtils.getOrDefault(appConfig::getBoolean, "api.idempotency.distributed",
+                false)) {
+            ActorSystem actorSystem = registry.getActorSystem();
+            if (DDApiResultStore.isClusterAvailable(actorSystem)) {
+                long readTimeoutMs = AppConfigUtils.getOrDefault(appConfig::getLong,
+                        "api.idempotency.distributedReadTimeout", 100L);
+                int numShards = AppConfigUtils.getOrDefault(appConfig::getInt,
+                        "api.idempotency.distributedShards", 16);
+                long pruneIntervalMs = AppConfigUtils.getOrDefault(appConfig::getLong,
+                        "api.idempotency.distributedPruneInterval", 60000L);
+                idempotencyCache.setDistributedStore(new DDApiResultStore(actorSystem, ttlMs,
+                        readTimeoutMs, numShards, pruneIntervalMs));
+            } else {
+                Logger.warn("Distributed idempotency store requires cluster mode, "
+                        + "falling back to local store.");
+            }
+        }
+    }
+
+    private void initApiShardRouter() {
+        IRegistry registry = RegistryGlobal.registry;
+        Config appConfig = registry != null ? registry.getAppConfig() : null;
+        if (appConfig == null || !AppConfigUtils.getOrDefault(appConfig::getBoolean,
+                "api.sharding.enabled", false)) {
+            return;
+        }
+        ActorSystem actorSystem = registry.getActorSystem();
+        if (!DDApiResultStore.isClusterAvailable(actorSystem)) {
+            Logger.warn("API sharding requires cluster mode, APIs are executed locally.");
+            return;
+        }
+        int numShards = AppConfigUtils.getOrDefault(appConfig::getInt, "api.sharding.numShards",
+                100);
+        String role = AppConfigUtils.getOrDefault(appConfig::getString, "api.sharding.role", "");
+        String dispatcherId = AppConfigUtils.getOrDefault(appConfig::getString,
+                "api.sharding.dispatcher", "akka.actor.worker-dispatcher");
+        long idleTimeoutMs = AppConfigUtils.getOrDefault(appConfig::getLong,
+                "api.sharding.idleTimeout", 120000L);
+        apiShardRouter = new ApiShardRouter(numShards).load(appConfig).start(actorSystem, this,
+                role, dispatcherId, idleTimeoutMs);
+    }
+
+    /**
+     * Get the API shard router.
+     *
+     * @return {@code null} if API sharding is disabled
+     * @since template-v2.6.r2
+     */
+    public ApiShardRouter getApiShardRouter() {
+        return apiShardRouter;
+    }
+
     public void destroy() {
+        if (idempotencyCache != null && idempotencyCache.getDistributedStore() != null) {
+            idempotencyCache.getDistributedStore().destroy();
+        }
+        if (apiShardRouter != null) {
+            apiShardRouter.destroy();
+        }
+        handlerRegistry.destroy();
+    }
+
+    /**
+     * Get the API handler registry.
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    public ApiHandlerRegistry getHandlerRegistry() {
+        return handlerRegistry;
+    }
+
+    /**
+     * Resolve an API name to its route id.
+     *
+     * <p>
+     * Gateways call this method once when parsing the route, and pass the id along via
+     * {@link ApiContext#setApiId(int)}.
+     * </p>
+     *
+     * @param apiName
+     * @return the route id, or {@link #API_ID_UNKNOWN} if no handler has ever been registered for
+     *         the API
+     * @since template-v2.6.r2
+     */
+    public int resolveApiId(String apiName) {
+        return handlerRegistry.resolveApiId(apiName);
+    }
+
+    /**
+     * Register (or replace) an API handler.
+     *
+     * <p>
+     * The handler table is copied, updated and swapped atomically: calls in-flight keep using the
+     * old table, new calls see the new one.
+     * </p>
+     *
+     * @param apiName
+     * @param apiHandler
+     *            {@code null} to unregister the API
+     * @return
+     * @since template-v2.6.r2
+     */
+    public ApiDispatcher registerApiHandler(String apiName, IApiHandler apiHandler) {
+        handlerRegistry.register(apiName, apiHandler);
+        return this;
+    }
+
+    /**
+     * Reload API handlers if the handler config file has been modified.
+     *
+     * @return {@code true} if handlers were reloaded
+     * @since template-v2.6.r2
+     */
+    public boolean reloadApiHandlersIfModified() {
+        return handlerRegistry.reloadIfModified();
+    }
+
+    /**
+     * Look up the handler for an API call, preferring the route id resolved by the gateway.
+     *
+     * @param table
+     * @param context
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected IApiHandler lookupApiHandler(HandlerTable table, ApiContext context) {
+        return table.get(resolveApiId(context));
+    }
+
+    private int resolveApiId(ApiContext context) {
+        int apiId = context.getApiId();
+        return apiId != API_ID_UNKNOWN ? apiId : resolveApiId(context.getApiName());
+    }
+
+    /**
+     * Get the idempotency key of an API call: from context first (e.g. HTTP header), then from
+     * parameter {@code idempotency_key}.
+     *
+     * @param context
+     * @param apiParams
+     * @return
+     * @since template-v2.6.r2
+     */
+    protected String getIdempotencyKey(ApiContext context, ApiParams apiParams) {
+        String idempotencyKey = context.getIdempotencyKey();
+        if (idempotencyKey == null && apiParams != null) {
+            idempotencyKey = apiParams.getParam(ApiContext.CTX_IDEMPOTENCY_KEY, String.class);
+        }
+        return StringUtils.isBlank(idempotencyKey) ? null : idempotencyKey;
+    }
+
+    private ApiResult invokeApiHandler(HandlerTable handlerTable, ApiContext context,
+            ApiParams apiParams) throws Exception {
+        IApiHandler apiHandler = lookupApiHandler(handlerTable, context);
+        return apiHandler != null ? apiHandler.handle(apiParams)
+                : ApiResult.RESULT_API_NOT_FOUND.clone();
+    }
+
+    private ApiResult invokeApi(HandlerTable handlerTable, ApiContext context,
+            ApiParams apiParams) throws Exception {
+        return apiShardRouter != null
+                ? apiShardRouter.call(context, apiParams,
+                        () -> invokeApiHandler(handlerTable, context, apiParams))
+                : invokeApiHandler(handlerTable, context, apiParams);
+    }
+
+    /**
+     * Execute an API call on this node, bypassing authentication, rate limiting, idempotency and
+     * sharding (e.g. calls routed here by {@link ApiShardRouter}).
+     *
+     * @param context
+     * @param apiParams
+     * @return
+     * @throws Exception
+     * @since template-v2.6.r2
+     */
+    ApiResult executeLocal(ApiContext context, ApiParams apiParams) throws Exception {
+        HandlerTable handlerTable = handlerRegistry.acquire();
+        try {
+            return invokeApiHandler(handlerTable, context, apiParams);
+        } finally {
+            handlerRegistry.release(handlerTable);
+        }
     }
 
     /**
      * Call an API.
-     * 
+     *
      * @param context
      * @param apiAuth
      * @param apiParams
@@ -47,12 +365,33 @@ public class ApiDispatcher {
                 + "\t" + context.getApiName() + "\tSTART");
 
         ApiResult apiResult;
+        HandlerTable handlerTable = handlerRegistry.acquire();
         try {
-            IApiHandler apiHandler = apiHandlers.get(context.getApiName());
-            apiResult = apiHandler != null ? apiHandler.handle(apiParams)
-                    : ApiResult.RESULT_API_NOT_FOUND.clone();
+            ApiResult authResult = apiAuthenticator != null
+                    ? apiAuthenticator.authenticate(apiAuth, context.getApiName()) : null;
+            String idempotencyKey = idempotencyCache != null
+                    ? getIdempotencyKey(context, apiParams) : null;
+            if (authResult != null) {
+                apiResult = authResult;
+            } else if (apiRateLimiter != null && resolveApiId(context) != API_ID_UNKNOWN
+                    && !apiRateLimiter.tryAcquire(context.getApiName())) {
+                if (apiAuthenticator != null) {
+                    // rejected: the call does not count against the key's quotas
+                    apiAuthenticator.release(apiAuth, context.getApiName());
+                }
+                apiResult = ApiResult.RESULT_TOO_MANY_REQUESTS.clone();
+            } else if (idempotencyKey != null) {
+                String cacheKey = context.getApiName() + "\t"
+                        + (apiAuth != null ? apiAuth.apiKey : null) + "\t" + idempotencyKey;
+                apiResult = idempotencyCache.execute(cacheKey,
+                        () -> invokeApi(handlerTable, context, apiParams));
+            } else {
+                apiResult = invokeApi(handlerTable, context, apiParams);
+            }
         } catch (Exception e) {
             apiResult = new ApiResult(ApiResult.STATUS_ERROR_SERVER, e.getMessage());
+        } finally {
+            handlerRegistry.release(handlerTable);
         }
         if (apiResult == null) {
             apiResult = ApiResult.RESULT_UNKNOWN_ERROR.clone();
@@ -0,0 +1,32 @@
+package api;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mark a class or a static method as an API handler, to be discovered by {@link ApiDispatcher}.
+ *
+ * <ul>
+ * <li>On a class: the class must implement {@link IApiHandler} and have a no-arg
+ * constructor.</li>
+ * <li>On a method: the method must be {@code public static}, take a single {@link ApiParams}
+ * argument and return {@link ApiResult}.</li>
+ * </ul>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface ApiFunc {
+    /**
+     * Name of the API.
+     *
+     * @return
+     */
+    String value();
+}
@@ -0,0 +1,336 @@
+package api;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.context.support.FileSystemXmlApplicationContext;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+
+import modules.registry.RegistryGlobal;
+import play.Logger;
+
+/**
+ * Pluggable, hot-reloadable registry of API handlers.
+ *
+ * <p>
+ * Handlers are discovered from:
+ * </p>
+ * <ul>
+ * <li>classes and static methods annotated with {@link ApiFunc} in the configured packages,</li>
+ * <li>{@link IApiHandler} beans of the application's Spring context ({@code conf/spring/beans.xml}),
+ * API name is the {@link ApiFunc} value of the bean's class, or the bean's name,</li>
+ * <li>{@link IApiHandler} beans of a dedicated Spring config file, which is re-read on
+ * {@link #reload()} so that handlers can be added or updated without restarting the
+ * application.</li>
+ * </ul>
+ *
+ * <p>
+ * Handler tables are immutable and swapped atomically (copy-on-write). Calls in-flight drain on
+ * the table they started with, new calls go to the new table; the Spring context backing a
+ * replaced table is closed once its last in-flight call completes.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class ApiHandlerRegistry {
+
+    /**
+     * An immutable version of the handler table.
+     */
+    public static class HandlerTable {
+        private final IApiHandler[] handlers;
+        private final AbstractApplicationContext context;
+        private final AtomicInteger inFlight = new AtomicInteger(0);
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private volatile boolean retired = false, closeContextOnDrain = false;
+
+        private HandlerTable(IApiHandler[] handlers, AbstractApplicationContext context) {
+            this.handlers = handlers;
+            this.context = context;
+        }
+
+        /**
+         * Get handler by route id.
+         *
+         * @param apiId
+         * @return
+         */
+        public IApiHandler get(int apiId) {
+            return apiId >= 0 && apiId < handlers.length ? handlers[apiId] : null;
+        }
+
+        private void retire(boolean closeContext) {
+            closeContextOnDrain = closeContext;
+            retired = true;
+            if (inFlight.get() == 0) {
+                close();
+            }
+        }
+
+        private void release() {
+            if (inFlight.decrementAndGet() == 0 && retired) {
+                close();
+            }
+        }
+
+        private void close() {
+            if (closeContextOnDrain && context != null && closed.compareAndSet(false, true)) {
+                try {
+                    context.destroy();
+                } catch (Exception e) {
+                    Logger.warn(e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /*
+     * API name -> route id. Ids are never reused, so a route id resolved by a gateway stays valid
+     * across handler table swaps.
+     */
+    private ConcurrentHashMap<String, Integer> apiIds = new ConcurrentHashMap<>();
+    private volatile HandlerTable handlerTable = new HandlerTable(new IApiHandler[0], null);
+
+    private String[] scanPackages;
+    private ApplicationContext applicationContext;
+    private String handlerConfigFile;
+    private long handlerConfigLastModified = 0;
+
+    public ApiHandlerRegistry setScanPackages(String[] scanPackages) {
+        this.scanPackages = scanPackages;
+        return this;
+    }
+
+    public ApiHandlerRegistry setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+        return this;
+    }
+
+    public ApiHandlerRegistry setHandlerConfigFile(String handlerConfigFile) {
+        this.handlerConfigFile = handlerConfigFile;
+        return this;
+    }
+
+    public void destroy() {
+        HandlerTable table = handlerTable;
+        table.retire(true);
+    }
+
+    /*----------------------------------------------------------------------*/
+
+    private int internApiName(String apiName) {
+        return apiIds.computeIfAbsent(apiName, k -> apiIds.size());
+    }
+
+    /**
+     * Resolve an API name to its route id.
+     *
+     * @param apiName
+     * @return the route id, or {@link ApiDispatcher#API_ID_UNKNOWN} if no handler has ever been
+     *         registered for the API
+     */
+    public int resolveApiId(String apiName) {
+        Integer apiId = apiName != null ? apiIds.get(apiName) : null;
+        return apiId != null ? apiId.intValue() : ApiDispatcher.API_ID_UNKNOWN;
+    }
+
+    /**
+     * Acquire the current handler table. Caller must {@link #release(HandlerTable)} it when the
+     * call completes.
+     *
+     * @return
+     */
+    public HandlerTable acquire() {
+        while (true) {
+            HandlerTable table = handlerTable;
+            table.inFlight.incrementAndGet();
+            if (!table.retired) {
+                return table;
+            }
+            // swapped in the meantime, retry with the new table
+            table.release();
+        }
+    }
+
+    /**
+     * Release a handler table previously obtained by {@link #acquire()}.
+     *
+     * @param table
+     */
+    public void release(HandlerTable table) {
+        table.release();
+    }
+
+    private void swap(IApiHandler[] handlers, AbstractApplicationContext context) {
+        HandlerTable oldTable = handlerTable;
+        handlerTable = new HandlerTable(handlers, context);
+        oldTable.retire(oldTable.context != context);
+    }
+
+    /**
+     * Register (or replace) a single API handler.
+     *
+     * @param apiName
+     * @param apiHandler
+     *            {@code null} to unregister the API
+     */
+    public synchronized void register(String apiName, IApiHandler apiHandler) {
+        int apiId = internApiName(apiName);
+        HandlerTable table = handlerTable;
+        IApiHandler[] handlers = Arrays.copyOf(table.handlers,
+                Math.max(table.handlers.length, apiId + 1));
+        handlers[apiId] = apiHandler;
+        swap(handlers, table.context);
+    }
+
+    /**
+     * Replace all API handlers at once. APIs that are not in the new map are unregistered.
+     *
+     * @param handlers
+     */
+    public synchronized void setAll(Map<String, IApiHandler> handlers) {
+        setAll(handlers, handlerTable.context);
+    }
+
+    private void setAll(Map<String, IApiHandler> handlers, AbstractApplicationContext context) {
+        handlers.keySet().forEach(this::internApiName);
+        IApiHandler[] table = new IApiHandler[apiIds.size()];
+        handlers.forEach((apiName, apiHandler) -> table[apiIds.get(apiName)] = apiHandler);
+        swap(table, context);
+    }
+
+    /*----------------------------------------------------------------------*/
+
+    private File resolveFile(String path) {
+        File file = new File(path);
+        if (!file.isAbsolute() && RegistryGlobal.registry != null
+                && RegistryGlobal.registry.getPlayApplication() != null) {
+            file = new File(RegistryGlobal.registry.getPlayApplication().path(), path);
+        }
+        return file;
+    }
+
+    /**
+     * Reload handlers if the handler config file has changed since the last (re)load.
+     *
+     * @return {@code true} if handlers were reloaded
+     */
+    public boolean reloadIfModified() {
+        if (StringUtils.isBlank(handlerConfigFile)) {
+            return false;
+        }
+        File file = resolveFile(handlerConfigFile);
+        long lastModified = file.exists() ? file.lastModified() : 0;
+        if (lastModified != handlerConfigLastModified) {
+            reload();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Discover all handlers and swap them in atomically.
+     */
+    public synchronized void reload() {
+        Map<String, IApiHandler> handlers = new HashMap<>();
+        if (scanPackages != null) {
+            for (String pkg : scanPackages) {
+                if (!StringUtils.isBlank(pkg)) {
+                    scanPackage(pkg.trim(), handlers);
+                }
+            }
+        }
+        if (applicationContext != null) {
+            collectBeans(applicationContext, handlers);
+        }
+
+        AbstractApplicationContext handlerContext = null;
+        if (!StringUtils.isBlank(handlerConfigFile)) {
+            File file = resolveFile(handlerConfigFile);
+            handlerConfigLastModified = file.exists() ? file.lastModified() : 0;
+            if (file.isFile() && file.canRead()) {
+                try {
+                    handlerContext = new FileSystemXmlApplicationContext(
+                            new String[] { "file:" + file.getAbsolutePath() }, applicationContext);
+                    collectBeans(handlerContext, handlers);
+                } catch (Exception e) {
+                    // keep serving with the current handlers
+                    Logger.error("Cannot load API handlers from [" + file + "]: " + e.getMessage(),
+                            e);
+                    if (handlerContext != null) {
+                        handlerContext.destroy();
+                    }
+                    return;
+                }
+            }
+        }
+
+        setAll(handlers, handlerContext);
+        Logger.info("Loaded " + handlers.size() + " API handler(s): " + handlers.keySet());
+    }
+
+    private static void collectBeans(ApplicationContext context,
+            Map<String, IApiHandler> handlers) {
+        context.getBeansOfType(IApiHandler.class).forEach((beanName, bean) -> {
+            ApiFunc apiFunc = bean.getClass().getAnnotation(ApiFunc.class);
+            handlers.put(apiFunc != null ? apiFunc.value() : beanName, bean);
+        });
+    }
+
+    private static void scanPackage(String pkg, Map<String, IApiHandler> handlers) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(
+                false);
+        scanner.addIncludeFilter((metadataReader, metadataReaderFactory) -> metadataReader
+                .getAnnotationMetadata().hasAnnotation(ApiFunc.class.getName())
+                || metadataReader.getAnnotationMetadata()
+                        .hasAnnotatedMethods(ApiFunc.class.getName()));
+        for (BeanDefinition bd : scanner.findCandidateComponents(pkg)) {
+            try {
+                Class<?> clazz = Class.forName(bd.getBeanClassName());
+                ApiFunc apiFunc = clazz.getAnnotation(ApiFunc.class);
+                if (apiFunc != null && IApiHandler.class.isAssignableFrom(clazz)) {
+                    handlers.put(apiFunc.value(), (IApiHandler) clazz.newInstance());
+                }
+                for (Method method : clazz.getMethods()) {
+                    apiFunc = method.getAnnotation(ApiFunc.class);
+                    if (apiFunc != null) {
+                        handlers.put(apiFunc.value(), toApiHandler(method));
+                    }
+                }
+            } catch (Exception e) {
+                Logger.warn("Cannot load API handler [" + bd.getBeanClassName() + "]: "
+                        + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static IApiHandler toApiHandler(Method method) {
+        if (!Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1
+                || method.getParameterTypes()[0] != ApiParams.class
+                || !ApiResult.class.isAssignableFrom(method.getReturnType())) {
+            throw new IllegalArgumentException("Method [" + method
+                    + "] must be 'public static ApiResult method(ApiParams)'!");
+        }
+        return params -> {
+            try {
+                return (ApiResult) method.invoke(null, params);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        };
+    }
+}
@@ -0,0 +1,104 @@
+package api;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Bounded, TTL-based cache of API results keyed by idempotency key.
+ *
+ * <p>
+ * The first call for a key executes the API; concurrent duplicates wait for its result instead of
+ * re-executing, later duplicates (within TTL) get the cached result. Server errors are not
+ * cached, so that a retry after a failure executes the API again.
+ * </p>
+ *
+ * <p>
+ * Optionally backed by a cluster-wide {@link DDApiResultStore}, so that a retry landing on another
+ * node also gets the cached result.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class ApiIdempotencyCache {
+
+    private final Cache<String, CompletableFuture<ApiResult>> cache;
+    private final long waitTimeoutMs;
+    private DDApiResultStore distributedStore;
+
+    /**
+     * @param maxEntries
+     *            max number of results to keep
+     * @param ttlMs
+     *            how long a result is kept
+     * @param waitTimeoutMs
+     *            max time a duplicate call waits for the first execution to complete
+     */
+    public ApiIdempotencyCache(long maxEntries, long ttlMs, long waitTimeoutMs) {
+        this.cache = CacheBuilder.newBuilder().maximumSize(maxEntries)
+                .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS).build();
+        this.waitTimeoutMs = waitTimeoutMs;
+    }
+
+    public DDApiResultStore getDistributedStore() {
+        return distributedStore;
+    }
+
+    public ApiIdempotencyCache setDistributedStore(DDApiResultStore distributedStore) {
+        this.distributedStore = distributedStore;
+        return this;
+    }
+
+    private static boolean isCacheable(ApiResult result) {
+        return result != null && result.status < ApiResult.STATUS_ERROR_SERVER;
+    }
+
+    /**
+     * Execute an API call at most once per idempotency key.
+     *
+     * @param key
+     *            idempotency key (should be scoped by API name and caller)
+     * @param call
+     * @return a copy of the (possibly cached) result, safe for the caller to modify
+     * @throws Exception
+     */
+    public ApiResult execute(String key, Callable<ApiResult> call) throws Exception {
+        CompletableFuture<ApiResult> future = new CompletableFuture<>();
+        CompletableFuture<ApiResult> existing = cache.asMap().putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                ApiResult result = existing.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+                return result != null ? result.clone() : null;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+
+        ApiResult result = null;
+        try {
+            result = distributedStore != null ? distributedStore.get(key) : null;
+            if (result == null) {
+                result = call.call();
+                if (distributedStore != null && isCacheable(result)) {
+                    distributedStore.put(key, result);
+                }
+            }
+        } catch (Exception e) {
+            cache.asMap().remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        if (!isCacheable(result)) {
+            cache.asMap().remove(key, future);
+        }
+        future.complete(result);
+        return result != null ? result.clone() : null;
+    }
+
+}
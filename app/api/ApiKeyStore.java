@@ -0,0 +1,200 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import com.typesafe.config.Config;
+
+import api.ApiRateLimiter.Quota;
+import utils.AppConfigUtils;
+import utils.AppConstants;
+
+/**
+ * Store of API keys and their secrets.
+ *
+ * <p>
+ * Keys are loaded from application's configuration {@code api.auth.keys}, each entry is
+ * {@code { key = "...", secret = "...", rateLimit = <requests-per-second>, burst = <n> }}
+ * ({@code rateLimit <= 0} means no limit), plus optional per-API limits of the key
+ * {@code apis = [ { api = "...", rateLimit = <requests-per-second>, burst = <n> } ]}.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class ApiKeyStore {
+
+    /**
+     * An API key and its settings.
+     */
+    public static class ApiKeyInfo {
+        public final String apiKey;
+        public final SecretKeySpec secret;
+        private final Quota quota;
+        private final Map<String, Quota> apiQuotas = new HashMap<>();
+
+        public ApiKeyInfo(String apiKey, String secret, double rateLimit, long burst) {
+            this.apiKey = apiKey;
+            this.secret = new SecretKeySpec(secret.getBytes(AppConstants.UTF8),
+                    ApiAuthenticator.HMAC_ALGORITHM);
+            this.quota = rateLimit > 0 ? new Quota("key|" + apiKey, rateLimit, burst) : null;
+        }
+
+        /**
+         * Limit the key's calls to an API (on top of the key's own rate limit). Must be called
+         * before the key is added to the store.
+         *
+         * @param apiName
+         * @param rateLimit
+         *            requests per second, {@code <= 0} means no limit
+         * @param burst
+         * @return
+         * @since template-v2.6.r2
+         */
+        public ApiKeyInfo addApiLimit(String apiName, double rateLimit, long burst) {
+            if (rateLimit > 0) {
+                apiQuotas.put(apiName,
+                        new Quota("key|" + apiKey + "|" + apiName, rateLimit, burst));
+            }
+            return this;
+        }
+
+        /**
+         * Take one request from the key's rate limit.
+         *
+         * @return {@code false} if the key has exceeded its rate limit
+         */
+        public boolean tryAcquire() {
+            return quota == null || quota.tryAcquire();
+        }
+
+        /**
+         * Take one request from the key's rate limit, and from the key's limit of an API. Nothing
+         * is taken if one of the limits is exceeded.
+         *
+         * @param apiName
+         * @return {@code false} if the key has exceeded one of its rate limits
+         * @since template-v2.6.r2
+         */
+        public boolean tryAcquire(String apiName) {
+            Quota apiQuota = apiName != null ? apiQuotas.get(apiName) : null;
+            if (apiQuota != null && !apiQuota.tryAcquire()) {
+                return false;
+            }
+            if (!tryAcquire()) {
+                if (apiQuota != null) {
+                    apiQuota.release();
+                }
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Give back one request taken by {@link #tryAcquire(String)} (e.g. the call was then
+         * rejected by the API's own rate limit).
+         *
+         * @param apiName
+         * @since template-v2.6.r2
+         */
+        public void release(String apiName) {
+            Quota apiQuota = apiName != null ? apiQuotas.get(apiName) : null;
+            if (apiQuota != null) {
+                apiQuota.release();
+            }
+            if (quota != null) {
+                quota.release();
+            }
+        }
+
+        /**
+         * Get the key's quotas (e.g. to reconcile them across cluster nodes).
+         *
+         * @return
+         * @since template-v2.6.r2
+         */
+        public Collection<Quota> getQuotas() {
+            List<Quota> quotas = new ArrayList<>(apiQuotas.values());
+            if (quota != null) {
+                quotas.add(quota);
+            }
+            return quotas;
+        }
+    }
+
+    private volatile Map<String, ApiKeyInfo> keys = Collections.emptyMap();
+
+    /**
+     * Load keys from configuration, replacing all existing keys.
+     *
+     * @param appConfig
+     * @return
+     */
+    public synchronized ApiKeyStore load(Config appConfig) {
+        Map<String, ApiKeyInfo> keys = new HashMap<>();
+        List<? extends Config> keyConfigs = AppConfigUtils.getOrNull(appConfig::getConfigList,
+                "api.auth.keys");
+        if (keyConfigs != null) {
+            for (Config keyConfig : keyConfigs) {
+                String apiKey = keyConfig.getString("key");
+                String secret = keyConfig.getString("secret");
+                double rateLimit = AppConfigUtils.getOrDefault(keyConfig::getDouble, "rateLimit",
+                        0.0);
+                long burst = AppConfigUtils.getOrDefault(keyConfig::getLong, "burst", 0L);
+                ApiKeyInfo keyInfo = new ApiKeyInfo(apiKey, secret, rateLimit, burst);
+                List<? extends Config> apiConfigs = AppConfigUtils
+                        .getOrNull(keyConfig::getConfigList, "apis");
+                if (apiConfigs != null) {
+                    for (Config apiConfig : apiConfigs) {
+                        keyInfo.addApiLimit(apiConfig.getString("api"),
+                                AppConfigUtils.getOrDefault(apiConfig::getDouble, "rateLimit",
+                                        0.0),
+                                AppConfigUtils.getOrDefault(apiConfig::getLong, "burst", 0L));
+                    }
+                }
+                keys.put(apiKey, keyInfo);
+            }
+        }
+        this.keys = keys;
+        return this;
+    }
+
+    /**
+     * Add or replace a key.
+     *
+     * @param keyInfo
+     * @return
+     */
+    public synchronized ApiKeyStore put(ApiKeyInfo keyInfo) {
+        Map<String, ApiKeyInfo> keys = new HashMap<>(this.keys);
+        keys.put(keyInfo.apiKey, keyInfo);
+        this.keys = keys;
+        return this;
+    }
+
+    /**
+     * Get a key's info.
+     *
+     * @param apiKey
+     * @return {@code null} if the key does not exist
+     */
+    public ApiKeyInfo get(String apiKey) {
+        return apiKey != null ? keys.get(apiKey) : null;
+    }
+
+    /**
+     * Get all keys.
+     *
+     * @return
+     * @since template-v2.6.r2
+     */
+    public Collection<ApiKeyInfo> getAll() {
+        return keys.values();
+    }
+}
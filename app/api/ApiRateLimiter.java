@@ -0,0 +1,225 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.typesafe.config.Config;
+
+import api.ApiKeyStore.ApiKeyInfo;
+import utils.AppConfigUtils;
+import utils.TokenBucket;
+
+/**
+ * Rate limiter of API calls.
+ *
+ * <p>
+ * There are 2 kinds of limits, both enforced by lock-free {@link TokenBucket}s:
+ * </p>
+ * <ul>
+ * <li>Per API key (authenticated identity): configured with the key at {@code api.auth.keys} and
+ * enforced by {@link ApiAuthenticator} (see {@link ApiKeyInfo#tryAcquire(String)}), and given
+ * back if the call is then rejected by the per-API limit.</li>
+ * <li>Per API, regardless of the caller: loaded from application's configuration
+ * {@code api.ratelimit.limits}, each entry is
+ * {@code { api = "<api-name or *>", rate = <requests-per-second>, burst = <n> }}; entry
+ * {@code *} applies to each API without its own entry.</li>
+ * </ul>
+ *
+ * <p>
+ * Quotas are only created for configured API keys and for registered APIs (see
+ * {@link #tryAcquire(String)}), so their number is bounded whatever clients send.
+ * </p>
+ *
+ * <p>
+ * Cluster mode: each node reports its own consumption of all quotas (see
+ * {@link #collectUsageDeltas()}) and periodically receives cluster-wide totals (see
+ * {@link #reconcile(Map)}). A node's refill rate is then set to the configured rate minus the
+ * rate consumed by the other nodes, so that quotas hold across the cluster without a round trip
+ * per request.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class ApiRateLimiter {
+
+    private final static String WILDCARD = "*";
+
+    /**
+     * A rate limit, and its consumption to be reconciled across cluster nodes.
+     */
+    public static class Quota {
+        private final String id;
+        private final double rate;
+        private final TokenBucket tokenBucket;
+        private final AtomicLong consumed = new AtomicLong(0);
+        private long reported = 0, othersTotal = -1, othersTimestamp;
+
+        /**
+         * @param id
+         *            quota's id, must be the same on all cluster nodes
+         * @param rate
+         *            requests per second
+         * @param burst
+         */
+        public Quota(String id, double rate, long burst) {
+            this.id = id;
+            this.rate = rate;
+            this.tokenBucket = new TokenBucket(rate, Math.max(1, burst > 0 ? burst : (long) rate));
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Take one request from the quota.
+         *
+         * @return {@code false} if the quota has been exceeded
+         */
+        public boolean tryAcquire() {
+            if (tokenBucket.tryAcquire()) {
+                consumed.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Give back a request taken by {@link #tryAcquire()} (e.g. the request was rejected by
+         * another quota).
+         */
+        public void release() {
+            tokenBucket.release(1);
+            consumed.decrementAndGet();
+        }
+    }
+
+    private static class Limit {
+        final double rate;
+        final long burst;
+
+        Limit(double rate, long burst) {
+            this.rate = rate;
+            this.burst = burst;
+        }
+    }
+
+    private final static Quota UNLIMITED = new Quota("", 0, 0);
+
+    private final Map<String, Limit> limits = new HashMap<>();
+    private final ConcurrentMap<String, Quota> apiQuotas = new ConcurrentHashMap<>();
+    private ApiKeyStore keyStore;
+
+    /**
+     * Load per-API limits from configuration.
+     *
+     * @param appConfig
+     * @return
+     */
+    public ApiRateLimiter load(Config appConfig) {
+        List<? extends Config> limitConfigs = AppConfigUtils.getOrNull(appConfig::getConfigList,
+                "api.ratelimit.limits");
+        if (limitConfigs != null) {
+            for (Config limitConfig : limitConfigs) {
+                String api = AppConfigUtils.getOrDefault(limitConfig::getString, "api", WILDCARD);
+                double rate = limitConfig.getDouble("rate");
+                long burst = AppConfigUtils.getOrDefault(limitConfig::getLong, "burst", 0L);
+                limits.put(api, new Limit(rate, burst));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Key store whose per-key quotas are reconciled across cluster nodes along with per-API
+     * quotas.
+     *
+     * @param keyStore
+     * @return
+     */
+    public ApiRateLimiter setKeyStore(ApiKeyStore keyStore) {
+        this.keyStore = keyStore;
+        return this;
+    }
+
+    /**
+     * Take one request from the quota of an API.
+     *
+     * @param apiName
+     *            must be a registered API (see {@link ApiDispatcher#resolveApiId(String)})
+     * @return {@code false} if the quota has been exceeded
+     */
+    public boolean tryAcquire(String apiName) {
+        Quota quota = apiQuotas.get(apiName);
+        if (quota == null) {
+            quota = apiQuotas.computeIfAbsent(apiName, k -> {
+                Limit limit = limits.containsKey(apiName) ? limits.get(apiName)
+                        : limits.get(WILDCARD);
+                return limit != null && limit.rate > 0
+                        ? new Quota("api|" + apiName, limit.rate, limit.burst) : UNLIMITED;
+            });
+        }
+        return quota == UNLIMITED || quota.tryAcquire();
+    }
+
+    /*----------------------------------------------------------------------*/
+
+    private Collection<Quota> allQuotas() {
+        List<Quota> quotas = new ArrayList<>(apiQuotas.values());
+        if (keyStore != null) {
+            for (ApiKeyInfo keyInfo : keyStore.getAll()) {
+                quotas.addAll(keyInfo.getQuotas());
+            }
+        }
+        return quotas;
+    }
+
+    /**
+     * Collect this node's consumption since the last call, per quota id.
+     *
+     * @return
+     */
+    public synchronized Map<String, Long> collectUsageDeltas() {
+        Map<String, Long> deltas = new HashMap<>();
+        for (Quota quota : allQuotas()) {
+            long consumed = quota.consumed.get();
+            long delta = consumed - quota.reported;
+            if (delta > 0) {
+                quota.reported = consumed;
+                deltas.put(quota.id, delta);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * Reconcile local quotas with cluster-wide consumption.
+     *
+     * @param clusterTotals
+     *            quota id -> total requests consumed by all nodes (including this one)
+     */
+    public synchronized void reconcile(Map<String, Long> clusterTotals) {
+        long now = System.currentTimeMillis();
+        for (Quota quota : allQuotas()) {
+            Long total = clusterTotals.get(quota.id);
+            if (total == null || quota == UNLIMITED) {
+                continue;
+            }
+            long othersTotal = Math.max(0, total - quota.reported);
+            if (quota.othersTotal >= 0 && now > quota.othersTimestamp) {
+                double othersRate = (othersTotal - quota.othersTotal) * 1000.0
+                        / (now - quota.othersTimestamp);
+                quota.tokenBucket.setRate(Math.max(0, quota.rate - othersRate));
+            }
+            quota.othersTotal = othersTotal;
+            quota.othersTimestamp = now;
+        }
+    }
+}
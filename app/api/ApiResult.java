@@ -20,6 +20,7 @@ public class ApiResult implements Cloneable {
 	public final static int STATUS_NO_PERMISSION = 403;
 	public final static int STATUS_NOT_FOUND = 404;
 	public final static int STATUS_DEPRECATED = 410;
+	public final static int STATUS_TOO_MANY_REQUESTS = 429;
 	public final static int STATUS_ERROR_SERVER = 500;
 	public final static String MSG_OK = "Ok";
 
@@ -147,6 +148,8 @@ public class ApiResult implements Cloneable {
 	public final static ApiResult RESULT_API_DEPRECATED = new ApiResult(STATUS_DEPRECATED, "API is deprecated");
 	public final static ApiResult RESULT_NOT_FOUND = new ApiResult(STATUS_DEPRECATED, "Item not found");
 	public final static ApiResult RESULT_ACCESS_DENIED = new ApiResult(STATUS_NO_PERMISSION, "Access denied");
+	public final static ApiResult RESULT_TOO_MANY_REQUESTS = new ApiResult(STATUS_TOO_MANY_REQUESTS,
+			"Too many requests");
 	public final static ApiResult RESULT_UNKNOWN_ERROR = new ApiResult(STATUS_ERROR_SERVER,
 			"Unknown error while calling API");
 
@@ -0,0 +1,40 @@
+package api;
+
+/**
+ * A gateway route to an API: the API name, and its route id resolved once (see
+ * {@link ApiDispatcher#resolveApiId(String)}).
+ *
+ * <p>
+ * Gateways build one {@code ApiRoute} per route (e.g. a static field of the controller), so the
+ * API name is resolved on the first call only; subsequent calls reuse the cached route id. Route
+ * ids never change once assigned, an API that has no handler yet is resolved again on next call.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class ApiRoute {
+
+    public final String apiName;
+    private volatile int apiId = ApiDispatcher.API_ID_UNKNOWN;
+
+    public ApiRoute(String apiName) {
+        this.apiName = apiName;
+    }
+
+    /**
+     * Get the route id, resolving it on first call.
+     *
+     * @param apiDispatcher
+     * @return the route id, or {@link ApiDispatcher#API_ID_UNKNOWN} if no handler has ever been
+     *         registered for the API
+     */
+    public int getApiId(ApiDispatcher apiDispatcher) {
+        int id = apiId;
+        if (id == ApiDispatcher.API_ID_UNKNOWN) {
+            id = apiDispatcher.resolveApiId(apiName);
+            apiId = id;
+        }
+        return id;
+    }
+}
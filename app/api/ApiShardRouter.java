@@ -0,0 +1,330 @@
+package api;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.typesafe.config.Config;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Address;
+import akka.actor.Cancellable;
+import akka.actor.PoisonPill;
+import akka.actor.Props;
+import akka.actor.ReceiveTimeout;
+import akka.cluster.Cluster;
+import akka.cluster.ClusterMemberManager;
+import akka.cluster.sharding.ClusterSharding;
+import akka.cluster.sharding.ClusterShardingSettings;
+import akka.cluster.sharding.ShardRegion;
+import akka.pattern.PatternsCS;
+import play.Logger;
+import play.libs.Json;
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
+import utils.AppConfigUtils;
+
+/**
+ * Route API calls to the node that owns the call's entity, via Akka Cluster Sharding.
+ *
+ * <p>
+ * The entity key of a call is taken from a parameter of {@link ApiParams} (e.g. an order code),
+ * configured per API at {@code api.sharding.entities}. Calls of the same entity are executed one
+ * at a time, on one node, so per-entity state and caches are hit locally. Calls without an entity
+ * key are executed locally as usual.
+ * </p>
+ *
+ * <p>
+ * Calls fall back to local execution only when the node that owns the entity's shard is
+ * unreachable (see {@link ClusterMemberManager}). Shard owners are learned from replies, and
+ * periodically from the shard coordinator (see {@link ShardRegion.GetClusterShardingStats}), so
+ * that a call to a shard whose node has become unreachable falls back right away, even if it is
+ * this node's first call to the shard. A call that the shard does not serve in time
+ * fails with a server error, it is not executed locally: it may still complete on the owning
+ * node, and running it again here would break the one-at-a-time guarantee. Clients may retry
+ * with idempotency keys (see {@link ApiIdempotencyCache}).
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class ApiShardRouter {
+
+    /**
+     * Name of the shard region's entity type.
+     */
+    public final static String TYPE_NAME = "api";
+
+    /**
+     * API call routed to an entity.
+     */
+    public static class ShardedApiCall implements Serializable {
+        private static final long serialVersionUID = "template-v2.6.r2".hashCode();
+
+        public final String entityId;
+        public final String apiName;
+        public final String params;
+
+        /**
+         * Caller's context data (see {@link ApiContext#getContextData()}), serializable values
+         * only.
+         */
+        public final HashMap<String, Object> contextData;
+
+        public ShardedApiCall(String entityId, String apiName, String params,
+                HashMap<String, Object> contextData) {
+            this.entityId = entityId;
+            this.apiName = apiName;
+            this.params = params;
+            this.contextData = contextData;
+        }
+    }
+
+    /**
+     * Result of a {@link ShardedApiCall}, and the node that executed it.
+     */
+    public static class ShardedApiResult implements Serializable {
+        private static final long serialVersionUID = "template-v2.6.r2".hashCode();
+
+        public final String result;
+        public final Address owner;
+
+        public ShardedApiResult(String result, Address owner) {
+            this.result = result;
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * Entity actor: executes calls of its entity locally, one at a time. Idle entities are
+     * passivated.
+     */
+    public static class ApiEntityActor extends AbstractActor {
+        private final ApiDispatcher apiDispatcher;
+        private final Address selfAddress;
+
+        public ApiEntityActor(ApiDispatcher apiDispatcher, long idleTimeoutMs) {
+            this.apiDispatcher = apiDispatcher;
+            this.selfAddress = Cluster.get(getContext().getSystem()).selfAddress();
+            getContext().setReceiveTimeout(Duration.create(idleTimeoutMs, TimeUnit.MILLISECONDS));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Receive createReceive() {
+            return receiveBuilder().match(ShardedApiCall.class, call -> {
+                ApiResult result;
+                try {
+                    result = apiDispatcher.executeLocal(
+                            new ApiContext(call.apiName, call.contextData),
+                            new ApiParams(Json.parse(call.params)));
+                } catch (Exception e) {
+                    result = new ApiResult(ApiResult.STATUS_ERROR_SERVER, e.getMessage());
+                }
+                if (result == null) {
+                    result = ApiResult.RESULT_UNKNOWN_ERROR.clone();
+                }
+                getSender().tell(new ShardedApiResult(encode(result), selfAddress), getSelf());
+            }).match(ReceiveTimeout.class, msg -> getContext().getParent()
+                    .tell(new ShardRegion.Passivate(PoisonPill.getInstance()), getSelf()))
+                    .build();
+        }
+    }
+
+    private final ShardRegion.MessageExtractor messageExtractor;
+    private final Map<String, String> entityKeyParams = new HashMap<>();
+    private final ConcurrentMap<String, Address> shardOwners = new ConcurrentHashMap<>();
+    private ActorRef shardRegion;
+    private Cancellable ownersRefresh;
+    private long askTimeoutMs = 5000;
+    private long ownersRefreshIntervalMs = 10000;
+
+    public ApiShardRouter(int numShards) {
+        messageExtractor = new ShardRegion.HashCodeMessageExtractor(numShards) {
+            @Override
+            public String entityId(Object message) {
+                return message instanceof ShardedApiCall ? ((ShardedApiCall) message).entityId
+                        : null;
+            }
+        };
+    }
+
+    /**
+     * Load settings from configuration.
+     *
+     * @param appConfig
+     * @return
+     */
+    public ApiShardRouter load(Config appConfig) {
+        List<? extends Config> entityConfigs = AppConfigUtils.getOrNull(appConfig::getConfigList,
+                "api.sharding.entities");
+        if (entityConfigs != null) {
+            for (Config entityConfig : entityConfigs) {
+                entityKeyParams.put(entityConfig.getString("api"), entityConfig.getString("key"));
+            }
+        }
+        askTimeoutMs = AppConfigUtils.getOrDefault(appConfig::getLong,
+                "api.sharding.askTimeout", askTimeoutMs);
+        ownersRefreshIntervalMs = AppConfigUtils.getOrDefault(appConfig::getLong,
+                "api.sharding.ownersRefreshInterval", ownersRefreshIntervalMs);
+        return this;
+    }
+
+    /**
+     * Start the shard region on this node (or a proxy, if this node does not have the role).
+     *
+     * @param actorSystem
+     * @param apiDispatcher
+     * @param role
+     *            role of nodes that host entities, empty means all nodes
+     * @param dispatcherId
+     *            dispatcher to execute entity actors (API handlers may block)
+     * @param idleTimeoutMs
+     *            idle entities are passivated after this timeout
+     * @return
+     */
+    public ApiShardRouter start(ActorSystem actorSystem, ApiDispatcher apiDispatcher, String role,
+            String dispatcherId, long idleTimeoutMs) {
+        ClusterSharding sharding = ClusterSharding.get(actorSystem);
+        if (StringUtils.isBlank(role) || Cluster.get(actorSystem).getSelfRoles().contains(role)) {
+            Props props = Props.create(ApiEntityActor.class, apiDispatcher, idleTimeoutMs)
+                    .withDispatcher(dispatcherId);
+            ClusterShardingSettings settings = ClusterShardingSettings.create(actorSystem);
+            shardRegion = sharding.start(TYPE_NAME, props,
+                    StringUtils.isBlank(role) ? settings : settings.withRole(role),
+                    messageExtractor);
+        } else {
+            shardRegion = sharding.startProxy(TYPE_NAME, Optional.of(role), messageExtractor);
+        }
+        if (ownersRefreshIntervalMs > 0) {
+            FiniteDuration interval = Duration.create(ownersRefreshIntervalMs,
+                    TimeUnit.MILLISECONDS);
+            ownersRefresh = actorSystem.scheduler().schedule(interval, interval,
+                    this::refreshShardOwners, actorSystem.dispatcher());
+        }
+        return this;
+    }
+
+    /**
+     * Stop refreshing shard owners. The shard region is stopped with the actor system.
+     */
+    public void destroy() {
+        if (ownersRefresh != null) {
+            ownersRefresh.cancel();
+            ownersRefresh = null;
+        }
+    }
+
+    /*
+     * Learn owners of all allocated shards from the shard coordinator. The coordinator replies
+     * with no region at all if a region does not respond (e.g. its node is unreachable): the
+     * last-known owners are then kept, so calls to that node's shards fall back locally.
+     */
+    private void refreshShardOwners() {
+        Object msg = new ShardRegion.GetClusterShardingStats(
+                Duration.create(askTimeoutMs, TimeUnit.MILLISECONDS));
+        PatternsCS.ask(shardRegion, msg, askTimeoutMs + 1000).thenAccept(response -> {
+            if (response instanceof ShardRegion.ClusterShardingStats) {
+                updateShardOwners(((ShardRegion.ClusterShardingStats) response).getRegions());
+            }
+        }).exceptionally(e -> {
+            Logger.debug("Cannot refresh shard owners: " + e.getMessage());
+            return null;
+        });
+    }
+
+    private void updateShardOwners(Map<Address, ShardRegion.ShardRegionStats> regions) {
+        if (regions.isEmpty()) {
+            return;
+        }
+        Map<String, Address> owners = new HashMap<>();
+        regions.forEach((address, stats) -> stats.getStats().keySet()
+                .forEach(shardId -> owners.put(shardId, address)));
+        shardOwners.keySet().retainAll(owners.keySet());
+        shardOwners.putAll(owners);
+    }
+
+    /**
+     * Get the entity id of an API call.
+     *
+     * @param apiName
+     * @param apiParams
+     * @return {@code null} if the API is not sharded, or the call does not carry an entity key
+     */
+    public String getEntityId(String apiName, ApiParams apiParams) {
+        String keyParam = apiName != null ? entityKeyParams.get(apiName) : null;
+        String entityId = keyParam != null && apiParams != null
+                ? apiParams.getParam(keyParam, String.class) : null;
+        return StringUtils.isBlank(entityId) ? null : apiName + ":" + entityId;
+    }
+
+    /**
+     * Call an API on the node that owns the call's entity.
+     *
+     * @param context
+     * @param apiParams
+     * @param localCall
+     *            executes the API locally, used when the call is not sharded or as fallback
+     * @return
+     * @throws Exception
+     */
+    public ApiResult call(ApiContext context, ApiParams apiParams, Callable<ApiResult> localCall)
+            throws Exception {
+        String entityId = shardRegion != null ? getEntityId(context.getApiName(), apiParams)
+                : null;
+        if (entityId == null) {
+            return localCall.call();
+        }
+        HashMap<String, Object> contextData = new HashMap<>();
+        context.getContextData().forEach((name, value) -> {
+            if (value instanceof Serializable) {
+                contextData.put(name, value);
+            }
+        });
+        ShardedApiCall call = new ShardedApiCall(entityId, context.getApiName(),
+                apiParams.getAllParams().toString(), contextData);
+        String shardId = messageExtractor.shardId(call);
+        Address owner = shardOwners.get(shardId);
+        if (owner != null && ClusterMemberManager.getSnapshot().getUnreachable().contains(owner)) {
+            return localCall.call();
+        }
+        try {
+            ShardedApiResult result = (ShardedApiResult) PatternsCS
+                    .ask(shardRegion, call, askTimeoutMs).toCompletableFuture()
+                    .get(askTimeoutMs, TimeUnit.MILLISECONDS);
+            shardOwners.put(shardId, result.owner);
+            return decode(result.result);
+        } catch (TimeoutException | ExecutionException e) {
+            Logger.warn("Shard [" + shardId + "] did not serve entity [" + entityId + "]: "
+                    + e.getMessage());
+            return new ApiResult(ApiResult.STATUS_ERROR_SERVER,
+                    "Entity [" + entityId + "] is not available, please retry later.");
+        }
+    }
+
+    private static String encode(ApiResult result) {
+        return Json.toJson(result.asMap()).toString();
+    }
+
+    private static ApiResult decode(String value) {
+        JsonNode json = Json.parse(value);
+        JsonNode msg = json.get("msg");
+        return new ApiResult(json.path("status").asInt(ApiResult.STATUS_OK),
+                msg != null && !msg.isNull() ? msg.asText() : null, json.get("data"));
+    }
+}
@@ -0,0 +1,218 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Cancellable;
+import akka.cluster.Cluster;
+import akka.cluster.ddata.DistributedData;
+import akka.cluster.ddata.Key;
+import akka.cluster.ddata.LWWMap;
+import akka.cluster.ddata.LWWMapKey;
+import akka.cluster.ddata.Replicator;
+import akka.pattern.PatternsCS;
+import play.Logger;
+import play.libs.Json;
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
+
+/**
+ * Cluster-wide store of API results, shared via Akka Distributed Data.
+ *
+ * <p>
+ * Results are kept as {@code expiry-timestamp <TAB> json}, in {@link LWWMap}s sharded onto
+ * {@code numShards} top-level keys (same scheme as {@code akka.distributed-data-shards}), so
+ * that a write only gossips and merges its own shard. Reads and writes are local
+ * ({@code ReadLocal}/{@code WriteLocal}), values spread to other nodes via gossip.
+ * </p>
+ *
+ * <p>
+ * Every node periodically removes expired entries from all shards, whichever node wrote them, so
+ * that entries of crashed or idle nodes do not stay in the replicated maps forever.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class DDApiResultStore {
+
+    private final List<Key<LWWMap<String, String>>> dataKeys;
+    private final ActorRef replicator;
+    private final Cluster cluster;
+    private final long ttlMs, readTimeoutMs;
+    private Cancellable pruneTask;
+
+    /**
+     * @param actorSystem
+     * @param ttlMs
+     *            how long a result is cached
+     * @param readTimeoutMs
+     * @param numShards
+     *            number of top-level keys results are sharded onto, all nodes must use the same
+     *            value
+     * @param pruneIntervalMs
+     *            interval to remove expired entries, {@code 0} to disable
+     */
+    public DDApiResultStore(ActorSystem actorSystem, long ttlMs, long readTimeoutMs,
+            int numShards, long pruneIntervalMs) {
+        this.replicator = DistributedData.get(actorSystem).replicator();
+        this.cluster = Cluster.get(actorSystem);
+        this.ttlMs = ttlMs;
+        this.readTimeoutMs = readTimeoutMs;
+        int n = Math.max(1, numShards);
+        dataKeys = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            dataKeys.add(LWWMapKey.create("api-idempotency-" + i));
+        }
+        if (pruneIntervalMs > 0) {
+            FiniteDuration interval = Duration.create(pruneIntervalMs, TimeUnit.MILLISECONDS);
+            pruneTask = actorSystem.scheduler().schedule(interval, interval, this::pruneExpired,
+                    actorSystem.dispatcher());
+        }
+    }
+
+    /**
+     * Stop removing expired entries.
+     */
+    public void destroy() {
+        if (pruneTask != null) {
+            pruneTask.cancel();
+            pruneTask = null;
+        }
+    }
+
+    private Key<LWWMap<String, String>> keyFor(String key) {
+        return dataKeys.get((key.hashCode() & Integer.MAX_VALUE) % dataKeys.size());
+    }
+
+    /**
+     * Get a cached result.
+     *
+     * @param key
+     * @return {@code null} if not found or expired
+     */
+    @SuppressWarnings("unchecked")
+    public ApiResult get(String key) {
+        try {
+            Object response = PatternsCS
+                    .ask(replicator, new Replicator.Get<>(keyFor(key), Replicator.readLocal()),
+                            readTimeoutMs)
+                    .toCompletableFuture().get(readTimeoutMs, TimeUnit.MILLISECONDS);
+            if (response instanceof Replicator.GetSuccess) {
+                LWWMap<String, String> data = ((Replicator.GetSuccess<LWWMap<String, String>>) response)
+                        .dataValue();
+                scala.Option<String> value = data.get(key);
+                return value.isDefined() ? decode(value.get()) : null;
+            }
+        } catch (Exception e) {
+            Logger.warn("Cannot read API result [" + key + "]: " + e.getMessage(), e);
+        }
+        return null;
+    }
+
+    /**
+     * Store a result.
+     *
+     * @param key
+     * @param result
+     */
+    public void put(String key, ApiResult result) {
+        String value = (System.currentTimeMillis() + ttlMs) + "\t" + encode(result);
+        update(keyFor(key), curr -> curr.put(cluster, key, value));
+    }
+
+    private void update(Key<LWWMap<String, String>> dataKey,
+            Function<LWWMap<String, String>, LWWMap<String, String>> modify) {
+        PatternsCS.ask(replicator, new Replicator.Update<>(dataKey, LWWMap.create(),
+                Replicator.writeLocal(), Optional.empty(), modify), readTimeoutMs)
+                .exceptionally(e -> {
+                    Logger.warn("Cannot update API results [" + dataKey.id() + "]: "
+                            + e.getMessage());
+                    return null;
+                });
+    }
+
+    /*
+     * Remove expired entries of all shards. An entry is only removed if it is still expired when
+     * the update is applied, i.e. it has not been replaced by a newer result in the meantime.
+     */
+    @SuppressWarnings("unchecked")
+    private void pruneExpired() {
+        for (Key<LWWMap<String, String>> dataKey : dataKeys) {
+            PatternsCS.ask(replicator, new Replicator.Get<>(dataKey, Replicator.readLocal()),
+                    readTimeoutMs).thenAccept(response -> {
+                        if (response instanceof Replicator.GetSuccess) {
+                            pruneShard(dataKey,
+                                    ((Replicator.GetSuccess<LWWMap<String, String>>) response)
+                                            .dataValue());
+                        }
+                    });
+        }
+    }
+
+    private void pruneShard(Key<LWWMap<String, String>> dataKey, LWWMap<String, String> data) {
+        long now = System.currentTimeMillis();
+        List<String> expiredKeys = new ArrayList<>();
+        for (Map.Entry<String, String> entry : data.getEntries().entrySet()) {
+            if (expiryOf(entry.getValue()) < now) {
+                expiredKeys.add(entry.getKey());
+            }
+        }
+        if (!expiredKeys.isEmpty()) {
+            update(dataKey, curr -> {
+                LWWMap<String, String> result = curr;
+                for (String key : expiredKeys) {
+                    scala.Option<String> value = result.get(key);
+                    if (value.isDefined() && expiryOf(value.get()) < now) {
+                        result = result.remove(cluster, key);
+                    }
+                }
+                return result;
+            });
+        }
+    }
+
+    private static String encode(ApiResult result) {
+        return Json.toJson(result.asMap()).toString();
+    }
+
+    private static long expiryOf(String value) {
+        int pos = value.indexOf('\t');
+        try {
+            return pos > 0 ? Long.parseLong(value.substring(0, pos)) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static ApiResult decode(String value) {
+        if (expiryOf(value) < System.currentTimeMillis()) {
+            return null;
+        }
+        JsonNode json = Json.parse(value.substring(value.indexOf('\t') + 1));
+        JsonNode msg = json.get("msg");
+        return new ApiResult(json.path("status").asInt(ApiResult.STATUS_OK),
+                msg != null && !msg.isNull() ? msg.asText() : null, json.get("data"));
+    }
+
+    /**
+     * Check if cluster-mode is available for the given actor system.
+     *
+     * @param actorSystem
+     * @return
+     */
+    public static boolean isClusterAvailable(ActorSystem actorSystem) {
+        return actorSystem != null && StringUtils.equals(
+                actorSystem.settings().ProviderClass(), "akka.cluster.ClusterActorRefProvider");
+    }
+}
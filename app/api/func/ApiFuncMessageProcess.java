@@ -15,6 +15,7 @@ import java.util.concurrent.ExecutionException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.github.ddth.commons.utils.JacksonUtils;
 
+import api.ApiFunc;
 import api.ApiParams;
 import api.ApiResult;
 import modules.registry.RegistryGlobal;
@@ -29,6 +30,7 @@ public class ApiFuncMessageProcess {
 	private static String urlShippingOrder = "http://ghn-cdproxy.gpvcloud.com/api/getShippingOrders?code=1ID0UT2A";
 	private static String urlCreateNewTicket = "http://staging-api-ticket.ghn.vn/api/tickets/create";
 	
+	@ApiFunc("messageProcess")
 	public static ApiResult messageProcess(ApiParams params) throws InterruptedException, ExecutionException, ParseException{
 		
 		JsonNode request = params.getAllParams();
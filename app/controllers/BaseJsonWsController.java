@@ -12,8 +12,10 @@ import com.typesafe.config.Config;
 import akka.util.ByteString;
 import api.ApiAuth;
 import api.ApiContext;
+import api.ApiDispatcher;
 import api.ApiParams;
 import api.ApiResult;
+import api.ApiRoute;
 import modules.registry.RegistryGlobal;
 import play.libs.Json;
 import play.mvc.Http.RawBuffer;
@@ -130,18 +132,42 @@ public class BaseJsonWsController extends BaseController {
     /**
      * Perform API call via web-service.
      *
+     * <p>
+     * Note: the API name is resolved to its route id on every call, prefer
+     * {@link #doApiCall(ApiRoute)}.
+     * </p>
+     *
      * @param apiName
      * @return
      * @throws Exception
      * @since template-v0.1.4
      */
     protected Result doApiCall(String apiName) throws Exception {
+        return doApiCall(new ApiRoute(apiName));
+    }
+
+    /**
+     * Perform API call via web-service, the route id is resolved once per route.
+     *
+     * @param apiRoute
+     * @return
+     * @throws Exception
+     * @since template-v2.6.r2
+     */
+    protected Result doApiCall(ApiRoute apiRoute) throws Exception {
         try {
             ApiParams apiParams = parseRequest();
-            ApiContext apiContext = ApiContext.newContext(AppConstants.API_GATEWAY_WEB, apiName);
+            ApiDispatcher apiDispatcher = RegistryGlobal.registry.getApiDispatcher();
+            ApiContext apiContext = ApiContext
+                    .newContext(AppConstants.API_GATEWAY_WEB, apiRoute.apiName)
+                    .setApiId(apiRoute.getApiId(apiDispatcher));
+            String idempotencyKey = request().header(AppConstants.HEADER_IDEMPOTENCY_KEY)
+                    .orElse(null);
+            if (!StringUtils.isBlank(idempotencyKey)) {
+                apiContext.setContextField(ApiContext.CTX_IDEMPOTENCY_KEY, idempotencyKey);
+            }
             ApiAuth apiAuth = ApiAuth.buildFromHttpRequest(request());
-            ApiResult apiResult = RegistryGlobal.registry.getApiDispatcher().callApi(apiContext,
-                    apiAuth, apiParams);
+            ApiResult apiResult = apiDispatcher.callApi(apiContext, apiAuth, apiParams);
             return doResponse(apiResult != null ? apiResult : ApiResult.RESULT_UNKNOWN_ERROR);
         } catch (Exception e) {
             return doResponse(new ApiResult(ApiResult.STATUS_ERROR_SERVER, e.getMessage()));
@@ -1,10 +1,13 @@
 package controllers;
 
+import api.ApiRoute;
 import play.mvc.Result;
 
 public class MessageApiController extends BaseJsonWsController {
+
+	private final static ApiRoute API_MESSAGE_PROCESS = new ApiRoute("messageProcess");
 	
 	public Result messageProcess() throws Exception {
-		return doApiCall("messageProcess");
+		return doApiCall(API_MESSAGE_PROCESS);
 	}
 }
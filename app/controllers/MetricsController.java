@@ -0,0 +1,42 @@
+package controllers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import akka.metrics.ActorMetrics;
+import akka.metrics.DispatcherGauges;
+import akka.workers.WorkerStats;
+import play.libs.Json;
+import play.mvc.Result;
+import utils.AppConstants;
+
+/**
+ * Expose actor, dispatcher and worker metrics as JSON.
+ *
+ * <p>
+ * Only available if application's configuration {@code metrics.enabled} is {@code true}.
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class MetricsController extends BaseController {
+
+    public Result metrics() {
+        if (!ActorMetrics.isEnabled()) {
+            return notFound();
+        }
+        Map<String, Object> actors = new TreeMap<>();
+        ActorMetrics.getAll().forEach((path, metrics) -> actors.put(path, metrics.toMap()));
+        Map<String, Object> workers = new TreeMap<>();
+        WorkerStats.getAll().forEach((path, stats) -> workers.put(path, stats.toMap()));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("timestamp", System.currentTimeMillis());
+        result.put("dispatchers", DispatcherGauges.getAll());
+        result.put("actors", actors);
+        result.put("workers", workers);
+        return ok(Json.toJson(result)).as(AppConstants.CONTENT_TYPE_JSON);
+    }
+}
@@ -3,6 +3,7 @@ package modules.registry;
 import com.typesafe.config.Config;
 
 import akka.actor.ActorSystem;
+import akka.workers.CheckpointStore;
 import api.ApiDispatcher;
 import play.Application;
 import play.i18n.Lang;
@@ -95,4 +96,12 @@ public interface IRegistry {
      * @since template-v2.6.r1
      */
     public ExecutionContextExecutor getExecutionContextExecutor(String id);
+
+    /**
+     * Get workers' local {@link CheckpointStore} instance.
+     *
+     * @return {@code null} if checkpoint store is disabled
+     * @since template-v2.6.r2
+     */
+    public CheckpointStore getCheckpointStore();
 }
@@ -1,6 +1,7 @@
 package modules.registry;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -13,10 +14,13 @@ import org.springframework.context.support.AbstractApplicationContext;
 import org.springframework.context.support.FileSystemXmlApplicationContext;
 
 import com.typesafe.config.Config;
+import com.typesafe.config.ConfigUtil;
 
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.actor.Props;
+import akka.metrics.ActorMetrics;
+import akka.workers.CheckpointStore;
 import akka.workers.TickFanoutActor;
 import api.ApiDispatcher;
 import play.Application;
@@ -73,14 +77,57 @@ public class RegistryImpl implements IRegistry {
         RegistryGlobal.registry = this;
         initAvailableLanguages();
         initApplicationContext();
+        initCheckpointStore();
         initWorkers();
     }
 
     private void destroy() {
         destroyWorkers();
+        destroyCheckpointStore();
         destroyApplicationContext();
     }
 
+    private CheckpointStore checkpointStore;
+
+    private void initCheckpointStore() throws IOException {
+        if (!AppConfigUtils.getOrDefault(appConfig::getBoolean, "akka.worker-checkpoints.enabled",
+                false)) {
+            return;
+        }
+        String filePath = AppConfigUtils.getOrDefault(appConfig::getString,
+                "akka.worker-checkpoints.file", "data/worker-checkpoints.dat");
+        File file = filePath.startsWith("/") ? new File(filePath)
+                : new File(playApp.path(), filePath);
+        Logger.info("Opening worker checkpoint store [" + file + "]...");
+        CheckpointStore store = new CheckpointStore(file)
+                .setInitialSize(AppConfigUtils.getOrDefault(appConfig::getInt,
+                        "akka.worker-checkpoints.initialSize", 1024 * 1024))
+                .setCompactRatio(AppConfigUtils.getOrDefault(appConfig::getDouble,
+                        "akka.worker-checkpoints.compactRatio", 4.0))
+                .setSyncOnWrite(AppConfigUtils.getOrDefault(appConfig::getBoolean,
+                        "akka.worker-checkpoints.syncOnWrite", false));
+        try {
+            checkpointStore = store.init();
+        } catch (IOException e) {
+            // e.g. locked by another node started from the same directory
+            Logger.error("Cannot open worker checkpoint store, checkpoints are disabled: "
+                    + e.getMessage(), e);
+            store.destroy();
+        }
+    }
+
+    private void destroyCheckpointStore() {
+        if (checkpointStore != null) {
+            try {
+                checkpointStore.destroy();
+            } catch (Exception e) {
+                Logger.warn(e.getMessage(), e);
+            } finally {
+                checkpointStore = null;
+            }
+        }
+    }
+
     private void initAvailableLanguages() {
         List<String> codes = AppConfigUtils.getOrNull(appConfig::getStringList, "play.i18n.langs");
         availableLanguages = new Lang[codes != null ? codes.size() : 0];
@@ -95,6 +142,9 @@ public class RegistryImpl implements IRegistry {
     private List<ActorRef> actorList = new ArrayList<>();
 
     private void initWorkers() throws ClassNotFoundException {
+        ActorMetrics.setEnabled(
+                AppConfigUtils.getOrDefault(appConfig::getBoolean, "metrics.enabled", false));
+
         // create "tick" fanout actor
         Logger.info("Creating actor [" + TickFanoutActor.ACTOR_NAME + "]...");
         actorTickFanout = actorSystem.actorOf(TickFanoutActor.PROPS, TickFanoutActor.ACTOR_NAME);
@@ -104,11 +154,30 @@ public class RegistryImpl implements IRegistry {
             for (String clazzName : clazzs) {
                 Class<?> clazz = Class.forName(clazzName);
                 Logger.info("Creating worker [" + clazz + "]...");
-                actorList.add(actorSystem.actorOf(Props.create(clazz), clazz.getSimpleName()));
+                Props props = Props.create(clazz);
+                String mailboxId = getWorkerMailboxId(clazz);
+                if (!StringUtils.isBlank(mailboxId)) {
+                    props = props.withMailbox(mailboxId);
+                }
+                actorList.add(actorSystem.actorOf(props, clazz.getSimpleName()));
             }
         }
     }
 
+    /**
+     * Get id of the mailbox for a worker class: {@code akka.worker-mailboxes."<class-name>"},
+     * fallback to {@code akka.worker-mailboxes.default}.
+     *
+     * @param clazz
+     * @return
+     */
+    private String getWorkerMailboxId(Class<?> clazz) {
+        String mailboxId = AppConfigUtils.getOrNull(appConfig::getString,
+                ConfigUtil.joinPath("akka", "worker-mailboxes", clazz.getName()));
+        return mailboxId != null ? mailboxId
+                : AppConfigUtils.getOrNull(appConfig::getString, "akka.worker-mailboxes.default");
+    }
+
     private void destroyWorkers() {
         for (ActorRef actorRef : actorList) {
             if (actorRef != null) {
@@ -260,4 +329,11 @@ public class RegistryImpl implements IRegistry {
     }
     /*----------------------------------------------------------------------*/
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CheckpointStore getCheckpointStore() {
+        return checkpointStore;
+    }
 }
@@ -18,5 +18,7 @@ public class AppConstants {
     public final static String API_GATEWAY_THRIFT_OVER_HTTP = "THRIFT_OVER_HTTP";
     public final static String API_GATEWAY_GRPC = "GRPC";
 
+    public final static String HEADER_IDEMPOTENCY_KEY = "X-Idempotency-Key";
+
     public final static String CLUSTER_ROLE_MASTER = "master";
 }
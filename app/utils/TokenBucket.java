@@ -0,0 +1,117 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token-bucket rate limiter.
+ *
+ * <p>
+ * Tokens are kept in thousandths so that low rates refill smoothly. Refill rate can be changed at
+ * runtime (see {@link #setRate(double)}).
+ * </p>
+ *
+ * @author Thanh Nguyen <btnguyen2k@gmail.com>
+ * @since template-v2.6.r2
+ */
+public class TokenBucket {
+
+    private final static long SCALE = 1000;
+
+    private final AtomicLong tokens;
+    private final AtomicLong lastRefillNanos = new AtomicLong(System.nanoTime());
+    private final long capacity;
+    private volatile double rate;
+
+    /**
+     * @param rate
+     *            refill rate, in tokens per second
+     * @param capacity
+     *            max number of tokens (burst size)
+     */
+    public TokenBucket(double rate, long capacity) {
+        this.rate = rate;
+        this.capacity = capacity * SCALE;
+        this.tokens = new AtomicLong(this.capacity);
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * Change the refill rate.
+     *
+     * @param rate
+     *            tokens per second
+     * @return
+     */
+    public TokenBucket setRate(double rate) {
+        refill();
+        this.rate = rate;
+        return this;
+    }
+
+    public long getCapacity() {
+        return capacity / SCALE;
+    }
+
+    /**
+     * Number of tokens currently available.
+     *
+     * @return
+     */
+    public long available() {
+        refill();
+        return tokens.get() / SCALE;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        long last = lastRefillNanos.get();
+        long add = (long) ((now - last) * rate * SCALE / 1E9);
+        if (add > 0 && lastRefillNanos.compareAndSet(last, now)) {
+            tokens.accumulateAndGet(add, (curr, delta) -> Math.min(capacity, curr + delta));
+        }
+    }
+
+    /**
+     * Try to take one token.
+     *
+     * @return {@code true} if the token was taken, {@code false} if the bucket is empty
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * Try to take some tokens.
+     *
+     * @param permits
+     * @return {@code true} if the tokens were taken, {@code false} if there are not enough tokens
+     */
+    public boolean tryAcquire(int permits) {
+        refill();
+        long need = permits * SCALE;
+        while (true) {
+            long curr = tokens.get();
+            if (curr < need) {
+                return false;
+            }
+            if (tokens.compareAndSet(curr, curr - need)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give back tokens taken by {@link #tryAcquire(int)} (e.g. the request was rejected by
+     * another limit), capped at the bucket's capacity.
+     *
+     * @param permits
+     * @since template-v2.6.r2
+     */
+    public void release(int permits) {
+        tokens.accumulateAndGet(permits * SCALE,
+                (curr, delta) -> Math.min(capacity, curr + delta));
+    }
+}
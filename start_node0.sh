@@ -6,4 +6,5 @@ sbt -jvm-debug 9999 -Dconfig.file=conf/application-cluster.conf -Dlogger.file=co
 	-Dhttp.port=9000 -Dthrift.port=0 -Dthrift.ssl_port=0 -Dgrpc.port=0 \
 	-Dplay.akka.actor-system=MyCluster -Dakka.cluster.name=MyCluster \
 	-Dakka.cluster.seed-nodes.0=akka.tcp://MyCluster@127.0.0.1:9051 \
+	-Dakka.worker-checkpoints.file=data/worker-checkpoints-node0.dat \
 	run
@@ -8,4 +8,5 @@ sbt -Dconfig.file=conf/application-cluster.conf -Dlogger.file=conf/logback-dev.x
 	-Dakka.cluster.roles.0=Role1 -Dakka.cluster.roles.1=Role2 -Dakka.cluster.roles.2=Role3 \
 	-Dakka.cluster.seed-nodes.0=akka.tcp://MyCluster@127.0.0.1:9051 \
 	-Dakka.cluster.seed-nodes.1=akka.tcp://MyCluster@127.0.0.1:9052 \
+	-Dakka.worker-checkpoints.file=data/worker-checkpoints-node3.dat \
 	run
@@ -0,0 +1,202 @@
+package akka.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class CorrelationTableTest {
+
+    /* initial capacity of a stripe */
+    private final static int CAPACITY = 16;
+
+    /* same hash as CorrelationTable */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /*
+     * Find keys whose home slot in a fresh single-stripe table is {@code slot}.
+     */
+    private static List<Long> keysWithHomeSlot(int slot, int count, long startKey) {
+        List<Long> result = new ArrayList<>();
+        for (long key = startKey; result.size() < count; key++) {
+            if (key != 0 && ((int) mix(key) & (CAPACITY - 1)) == slot) {
+                result.add(key);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        CorrelationTable<String> table = new CorrelationTable<>(4, 1000);
+        assertTrue(table.put(1, "one"));
+        assertTrue(table.put(-1, "minus one"));
+        assertTrue(table.put(Long.MAX_VALUE, "max"));
+        assertEquals(3, table.size());
+        assertEquals("one", table.get(1));
+        assertEquals("minus one", table.get(-1));
+        assertEquals("max", table.get(Long.MAX_VALUE));
+        assertNull(table.get(2));
+
+        // existing key is not replaced
+        assertFalse(table.put(1, "uno"));
+        assertEquals("one", table.get(1));
+
+        assertEquals("one", table.remove(1));
+        assertNull(table.remove(1));
+        assertNull(table.get(1));
+        assertEquals(2, table.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPutKeyZero() {
+        new CorrelationTable<String>(1, 10).put(0, "zero");
+    }
+
+    @Test
+    public void testGetRemoveKeyZero() {
+        CorrelationTable<String> table = new CorrelationTable<>(1, 10);
+        assertNull(table.get(0));
+        assertNull(table.remove(0));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testCollisionsWrapAround() {
+        CorrelationTable<Long> table = new CorrelationTable<>(1, 1000);
+        // 3 keys homed at the last slot: they occupy slots 15, 0 and 1
+        List<Long> keys = keysWithHomeSlot(CAPACITY - 1, 3, 1);
+        // 2 keys homed at slot 0: pushed to slots 2 and 3
+        keys.addAll(keysWithHomeSlot(0, 2, 1));
+        for (long key : keys) {
+            assertTrue(table.put(key, key));
+        }
+        for (long key : keys) {
+            assertEquals(Long.valueOf(key), table.get(key));
+        }
+        // a key homed at slot 0 that is not in the table: probe must wrap around and stop
+        assertNull(table.get(keysWithHomeSlot(0, 3, 1).get(2)));
+        assertNull(table.get(keysWithHomeSlot(CAPACITY - 1, 4, 1).get(3)));
+    }
+
+    @Test
+    public void testRemoveInMiddleOfProbeChain() {
+        List<Long> last = keysWithHomeSlot(CAPACITY - 1, 3, 1);
+        List<Long> first = keysWithHomeSlot(0, 2, 1);
+        List<Long> keys = new ArrayList<>(last);
+        keys.addAll(first);
+        // remove each key of the chain [15, 0, 1, 2, 3] in turn, from a fresh table
+        for (long removed : keys) {
+            CorrelationTable<Long> table = new CorrelationTable<>(1, 1000);
+            for (long key : keys) {
+                assertTrue(table.put(key, key));
+            }
+            assertEquals(Long.valueOf(removed), table.remove(removed));
+            assertNull(table.get(removed));
+            assertEquals(keys.size() - 1, table.size());
+            for (long key : keys) {
+                if (key != removed) {
+                    assertEquals(Long.valueOf(key), table.get(key));
+                }
+            }
+            // the freed slot is reusable, and the key can be added again
+            assertTrue(table.put(removed, -removed));
+            assertEquals(Long.valueOf(-removed), table.get(removed));
+        }
+    }
+
+    @Test
+    public void testGrow() {
+        CorrelationTable<Long> table = new CorrelationTable<>(1, 100000);
+        // collisions before and after growing
+        Set<Long> keys = new LinkedHashSet<>(keysWithHomeSlot(CAPACITY - 1, 20, 1));
+        keys.addAll(keysWithHomeSlot(0, 20, 1));
+        for (long key = 1; keys.size() < 10000; key++) {
+            keys.add(key);
+        }
+        for (long key : keys) {
+            assertTrue(table.put(key, key));
+        }
+        assertEquals(keys.size(), table.size());
+        for (long key : keys) {
+            assertEquals(Long.valueOf(key), table.get(key));
+        }
+        for (long key : keys) {
+            assertEquals(Long.valueOf(key), table.remove(key));
+        }
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testBoundPerStripe() {
+        CorrelationTable<String> table = new CorrelationTable<>(1, 5);
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(table.put(i, "v" + i));
+        }
+        assertFalse(table.put(6, "v6"));
+        assertNull(table.get(6));
+        assertEquals(5, table.size());
+        assertEquals("v1", table.remove(1));
+        assertTrue(table.put(6, "v6"));
+
+        // 4 stripes, 2 entries each
+        CorrelationTable<String> striped = new CorrelationTable<>(3, 8);
+        int numAdded = 0, numRejected = 0;
+        for (int i = 1; i <= 1000; i++) {
+            if (striped.put(i, "v" + i)) {
+                numAdded++;
+            } else {
+                numRejected++;
+            }
+        }
+        assertEquals(8, numAdded);
+        assertEquals(992, numRejected);
+        assertEquals(8, striped.size());
+    }
+
+    @Test
+    public void testSameAsHashMap() {
+        Random random = new Random(20170801);
+        CorrelationTable<Long> table = new CorrelationTable<>(8, 1000000);
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            // small key range, so that removes/duplicates are frequent
+            long key = random.nextInt(5000) - 2500;
+            if (key == 0) {
+                continue;
+            }
+            switch (random.nextInt(3)) {
+            case 0:
+                assertEquals(!expected.containsKey(key), table.put(key, (long) i));
+                expected.putIfAbsent(key, (long) i);
+                break;
+            case 1:
+                assertEquals(expected.remove(key), table.remove(key));
+                break;
+            default:
+                assertEquals(expected.get(key), table.get(key));
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), table.get(entry.getKey()));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package akka.cluster.serialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import akka.TickMessage;
+import akka.cluster.DistributedDataManager.DDGetResult;
+import akka.cluster.DistributedDataManager.DDLease;
+import akka.cluster.DistributedDataManager.DDLock;
+import akka.cluster.DistributedDataManager.DDTags;
+import akka.workers.WorkerTimer.ScheduledTickMessage;
+
+public class ClusterMessageSerializerTest {
+
+    private final ClusterMessageSerializer serializer = new ClusterMessageSerializer();
+
+    private Object roundTrip(Object msg) {
+        return serializer.fromBinary(serializer.toBinary(msg), serializer.manifest(msg));
+    }
+
+    @Test
+    public void testTick() {
+        TickMessage tick = new TickMessage(123, 456, "akka://MyCluster/user/actor", null);
+        TickMessage back = (TickMessage) roundTrip(tick);
+        assertEquals(123, back.id);
+        assertEquals(456, back.timestampMs);
+        assertEquals("akka://MyCluster/user/actor", back.sender);
+        assertTrue(back.getTags().isEmpty());
+    }
+
+    @Test
+    public void testTickWithoutSender() {
+        TickMessage back = (TickMessage) roundTrip(new TickMessage(1, 2, null, null));
+        assertEquals(1, back.id);
+        assertEquals(2, back.timestampMs);
+        assertNull(back.sender);
+    }
+
+    @Test
+    public void testTickTags() {
+        TickMessage nested = new TickMessage(7, 8, null, null).addTag("n", 1);
+        Date date = new Date(1234567890L);
+        TickMessage tick = new TickMessage(1, 2, null, null).addTag("str", "value")
+                .addTag("long", Long.MIN_VALUE).addTag("int", -1).addTag("double", 1.5)
+                .addTag("bool", true).addTag("java", date).addTag("null", null)
+                .addTag("tick", nested).addTag("lock", new DDLock("lock-id", 10, 20))
+                .addTag("lease", new DDLease("owner", 3, 4, 5));
+        TickMessage back = (TickMessage) roundTrip(tick);
+        assertEquals(10, back.getTags().size());
+        assertEquals("value", back.getTag("str"));
+        assertEquals(Long.MIN_VALUE, back.getTag("long"));
+        assertEquals(-1, back.getTag("int"));
+        assertEquals(1.5, back.getTag("double"));
+        assertEquals(true, back.getTag("bool"));
+        assertEquals(date, back.getTag("java"));
+        assertTrue(back.getTags().containsKey("null"));
+        assertNull(back.getTag("null"));
+        assertEquals(7, ((TickMessage) back.getTag("tick")).id);
+        assertEquals(1, ((TickMessage) back.getTag("tick")).getTag("n"));
+        assertEquals(20, ((DDLock) back.getTag("lock")).expiry);
+        assertEquals(new DDLease("owner", 3, 4, 5), back.getTag("lease"));
+    }
+
+    @Test
+    public void testTickSubclass() {
+        Object back = roundTrip(new ScheduledTickMessage(42));
+        assertSame(TickMessage.class, back.getClass());
+        assertEquals(42, ((TickMessage) back).timestampMs);
+    }
+
+    @Test
+    public void testLock() {
+        DDLock back = (DDLock) roundTrip(new DDLock("lock-id", 10, 20));
+        assertEquals("lock-id", back.lockId);
+        assertEquals(10, back.timestamp);
+        assertEquals(20, back.expiry);
+
+        assertNull(((DDLock) roundTrip(new DDLock(null, 1, 2))).lockId);
+    }
+
+    @Test
+    public void testLease() {
+        DDLease lease = new DDLease("owner", Long.MAX_VALUE, 2, 30000);
+        assertEquals(lease, roundTrip(lease));
+
+        DDLease released = lease.release();
+        DDLease back = (DDLease) roundTrip(released);
+        assertNull(back.owner);
+        assertEquals(released, back);
+    }
+
+    @Test
+    public void testTags() {
+        DDTags back = (DDTags) roundTrip(new DDTags(-1, "key"));
+        assertEquals(-1, back.getId());
+        assertEquals("key", back.getKey());
+
+        assertNull(((DDTags) roundTrip(new DDTags(1, null))).getKey());
+    }
+
+    @Test
+    public void testGetResultOk() {
+        DDGetResult result = DDGetResult.ok(1, "key",
+                Arrays.<Object> asList("a", 2L, new DDLock("lock-id", 10, 20), null));
+        assertEquals(ClusterMessageSerializer.MANIFEST_GET_OK, serializer.manifest(result));
+        DDGetResult back = (DDGetResult) roundTrip(result);
+        assertFalse(back.isError());
+        assertFalse(back.isNotFound());
+        assertEquals(1, back.getId());
+        assertEquals("key", back.getKey());
+        assertEquals(new HashSet<>(result.getValue()), new HashSet<>(back.getValue()));
+        assertTrue(back.valueContains(null));
+    }
+
+    @Test
+    public void testGetResultEmptyAndNoValue() {
+        DDGetResult empty = (DDGetResult) roundTrip(DDGetResult.ok(1, "key", new ArrayList<>()));
+        assertTrue(empty.getValue() != null && empty.getValue().isEmpty());
+
+        DDGetResult noValue = (DDGetResult) roundTrip(new DDGetResult(1, null));
+        assertNull(noValue.getValue());
+        assertNull(noValue.getKey());
+    }
+
+    @Test
+    public void testGetResultNotFound() {
+        DDGetResult result = DDGetResult.notFound(1, "key");
+        assertEquals(ClusterMessageSerializer.MANIFEST_GET_NOT_FOUND,
+                serializer.manifest(result));
+        DDGetResult back = (DDGetResult) roundTrip(result);
+        assertTrue(back.isNotFound());
+        assertFalse(back.isError());
+        assertEquals(1, back.getId());
+        assertEquals("key", back.getKey());
+        assertNull(back.getValue());
+    }
+
+    @Test
+    public void testGetResultError() {
+        DDGetResult result = DDGetResult.error(2, null);
+        assertEquals(ClusterMessageSerializer.MANIFEST_GET_ERROR, serializer.manifest(result));
+        DDGetResult back = (DDGetResult) roundTrip(result);
+        assertTrue(back.isError());
+        assertFalse(back.isNotFound());
+        assertEquals(2, back.getId());
+        assertNull(back.getKey());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedType() {
+        serializer.manifest("not a cluster message");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownManifest() {
+        serializer.fromBinary(new byte[0], "unknown");
+    }
+}
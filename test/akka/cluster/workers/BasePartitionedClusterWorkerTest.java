@@ -0,0 +1,122 @@
+package akka.cluster.workers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import akka.actor.Address;
+
+public class BasePartitionedClusterWorkerTest {
+
+    private final static int NUM_PARTITIONS = 1024;
+
+    private static List<Address> members(int... ports) {
+        List<Address> members = new ArrayList<>();
+        for (int port : ports) {
+            members.add(new Address("akka.tcp", "MyCluster", "127.0.0.1", port));
+        }
+        return members;
+    }
+
+    /*
+     * owner of each partition, -1 if not owned by any member
+     */
+    private static int[] owners(List<Address> members) {
+        int[] owners = new int[NUM_PARTITIONS];
+        Arrays.fill(owners, -1);
+        for (int i = 0; i < members.size(); i++) {
+            for (int partition : BasePartitionedClusterWorker.assignPartitions(members,
+                    members.get(i), NUM_PARTITIONS)) {
+                assertEquals("Partition " + partition + " has 2 owners", -1, owners[partition]);
+                owners[partition] = (Integer) members.get(i).port().get();
+            }
+        }
+        return owners;
+    }
+
+    @Test
+    public void testEveryPartitionHasOneOwner() {
+        for (int owner : owners(members(9051, 9052, 9053, 9054))) {
+            assertTrue(owner > 0);
+        }
+    }
+
+    @Test
+    public void testEvenSpread() {
+        List<Address> members = members(9051, 9052, 9053, 9054);
+        for (Address member : members) {
+            int numOwned = BasePartitionedClusterWorker.assignPartitions(members, member,
+                    NUM_PARTITIONS).length;
+            assertTrue(member + " owns " + numOwned + " partitions",
+                    numOwned > NUM_PARTITIONS / 4 * 0.8 && numOwned < NUM_PARTITIONS / 4 * 1.2);
+        }
+    }
+
+    @Test
+    public void testIndependentOfMemberOrder() {
+        List<Address> members = members(9051, 9052, 9053, 9054);
+        List<Address> reversed = new ArrayList<>(members);
+        Collections.reverse(reversed);
+        for (Address member : members) {
+            assertArrayEquals(
+                    BasePartitionedClusterWorker.assignPartitions(members, member,
+                            NUM_PARTITIONS),
+                    BasePartitionedClusterWorker.assignPartitions(reversed, member,
+                            NUM_PARTITIONS));
+        }
+    }
+
+    @Test
+    public void testMemberJoins() {
+        int[] before = owners(members(9051, 9052, 9053));
+        int[] after = owners(members(9051, 9052, 9053, 9054));
+        int moved = 0;
+        for (int partition = 0; partition < NUM_PARTITIONS; partition++) {
+            if (before[partition] != after[partition]) {
+                // only partitions gained by the new member are moved
+                assertEquals(9054, after[partition]);
+                moved++;
+            }
+        }
+        assertTrue("Moved " + moved + " partitions", moved > 0 && moved < NUM_PARTITIONS / 3);
+    }
+
+    @Test
+    public void testMemberLeaves() {
+        int[] before = owners(members(9051, 9052, 9053, 9054));
+        int[] after = owners(members(9051, 9052, 9054));
+        for (int partition = 0; partition < NUM_PARTITIONS; partition++) {
+            if (before[partition] != after[partition]) {
+                // only partitions of the leaving member are moved
+                assertEquals(9053, before[partition]);
+            }
+        }
+    }
+
+    @Test
+    public void testNotAMember() {
+        List<Address> members = members(9051, 9052);
+        assertEquals(0, BasePartitionedClusterWorker.assignPartitions(members,
+                members(9053).get(0), NUM_PARTITIONS).length);
+        assertEquals(0, BasePartitionedClusterWorker.assignPartitions(Collections.emptyList(),
+                members.get(0), NUM_PARTITIONS).length);
+    }
+
+    @Test
+    public void testSingleMemberOwnsAll() {
+        List<Address> members = members(9051);
+        int[] owned = BasePartitionedClusterWorker.assignPartitions(members, members.get(0),
+                NUM_PARTITIONS);
+        assertEquals(NUM_PARTITIONS, owned.length);
+        for (int partition = 0; partition < NUM_PARTITIONS; partition++) {
+            assertEquals(partition, owned[partition]);
+        }
+    }
+}
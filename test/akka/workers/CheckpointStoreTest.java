@@ -0,0 +1,194 @@
+package akka.workers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CheckpointStoreTest {
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private File file;
+    private CheckpointStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        file = new File(tmpFolder.getRoot(), "checkpoints.dat");
+        store = open();
+    }
+
+    @After
+    public void tearDown() {
+        if (store != null) {
+            store.destroy();
+        }
+    }
+
+    private CheckpointStore open() throws IOException {
+        return new CheckpointStore(file).setInitialSize(4096).init();
+    }
+
+    private CheckpointStore reopen() throws IOException {
+        store.destroy();
+        store = open();
+        return store;
+    }
+
+    @Test
+    public void testRecovery() throws IOException {
+        store.putLong("a", 1);
+        store.putString("b", "value-b");
+        store.putLong("a", 2);
+        store.putLong("c", 3);
+        store.delete("c");
+
+        reopen();
+        assertEquals(2, store.getLong("a", -1));
+        assertEquals("value-b", store.getString("b"));
+        assertNull(store.get("c"));
+        assertEquals(2, store.getAll().size());
+    }
+
+    @Test
+    public void testTornRecordIsDiscarded() throws IOException {
+        store.putLong("a", 1);
+        store.putLong("b", 2);
+        store.destroy();
+        store = null;
+
+        // simulate a crash in the middle of a write: the last record is cut short
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            int pos = 8;
+            for (int i = 0; i < 2; i++) {
+                raf.seek(pos);
+                pos += 4 + raf.readInt();
+            }
+            raf.seek(pos);
+            raf.writeInt(100);
+            raf.writeInt(0xDEADBEEF);
+            raf.write(new byte[] { 1, 2, 3 });
+        }
+
+        store = open();
+        assertEquals(1, store.getLong("a", -1));
+        assertEquals(2, store.getLong("b", -1));
+        assertEquals(2, store.getAll().size());
+
+        // the torn record is overwritten by new records, which survive a restart
+        store.putLong("c", 3);
+        reopen();
+        assertEquals(1, store.getLong("a", -1));
+        assertEquals(2, store.getLong("b", -1));
+        assertEquals(3, store.getLong("c", -1));
+    }
+
+    @Test
+    public void testCorruptedRecordStopsReplay() throws IOException {
+        store.putLong("a", 1);
+        store.putLong("b", 2);
+        store.destroy();
+        store = null;
+
+        // flip a byte of the value of the 2nd record: its checksum no longer matches
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(8);
+            int pos = 8 + 4 + raf.readInt();
+            raf.seek(pos);
+            int length = raf.readInt();
+            raf.seek(pos + 4 + length - 1);
+            int b = raf.read();
+            raf.seek(pos + 4 + length - 1);
+            raf.write(b ^ 0xFF);
+        }
+
+        store = open();
+        assertEquals(1, store.getLong("a", -1));
+        assertNull(store.get("b"));
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        for (int i = 0; i < 10000; i++) {
+            store.putLong("key-" + (i % 10), i);
+        }
+        // 10000 records of ~40 bytes would need ~400KB without compaction
+        assertTrue("File is not compacted: " + file.length(), file.length() <= 16384);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(9990 + i, store.getLong("key-" + i, -1));
+        }
+
+        reopen();
+        assertEquals(10, store.getAll().size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(9990 + i, store.getLong("key-" + i, -1));
+        }
+    }
+
+    @Test
+    public void testExplicitCompaction() throws IOException {
+        store.putLong("a", 1);
+        store.putLong("b", 2);
+        store.putLong("a", 3);
+        store.delete("b");
+        long timestamp = store.get("a").timestampMs;
+        store.compact();
+
+        assertEquals(3, store.getLong("a", -1));
+        assertNull(store.get("b"));
+        assertEquals(timestamp, store.get("a").timestampMs);
+        assertTrue(!new File(file.getPath() + ".compact").exists());
+
+        reopen();
+        assertEquals(3, store.getLong("a", -1));
+        assertEquals(timestamp, store.get("a").timestampMs);
+        assertEquals(1, store.getAll().size());
+    }
+
+    @Test
+    public void testGrowBeyondInitialSize() throws IOException {
+        byte[] value = new byte[1000];
+        for (int i = 0; i < 20; i++) {
+            value[0] = (byte) i;
+            store.put("key-" + i, value);
+        }
+        reopen();
+        assertEquals(20, store.getAll().size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals((byte) i, store.get("key-" + i).value[0]);
+        }
+    }
+
+    @Test
+    public void testExclusiveLock() throws IOException {
+        try {
+            open();
+            fail("Checkpoint file should be locked");
+        } catch (IOException e) {
+            // expected
+        }
+        store.putLong("a", 1);
+        store.compact();
+        try {
+            open();
+            fail("Checkpoint file should stay locked across compactions");
+        } catch (IOException e) {
+            // expected
+        }
+
+        store.destroy();
+        store = open();
+        assertEquals(1, store.getLong("a", -1));
+    }
+}
@@ -0,0 +1,235 @@
+package akka.workers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+public class CronFormatTest {
+
+    private final static String[] PATTERNS = { "* * * * * *", "*/7 */13 */5 * * *",
+            "0 0 0 1 * *", "0,30 15-45 2 * Feb-Apr Mon-Fri", "* * * 29 2 *", "0 0 12 * * Sun",
+            "1-5 * 23 31 Dec *", "* 30 1,2 * * *" };
+
+    private final static String[] ZONES = { "UTC", "America/New_York", "Australia/Lord_Howe",
+            "Asia/Kolkata" };
+
+    private static CronFormat cron(String pattern, String zone) {
+        return CronFormat.parse(pattern).setTimeZone(TimeZone.getTimeZone(zone));
+    }
+
+    private static long millis(String localDateTime, String zone) {
+        return LocalDateTime.parse(localDateTime).atZone(ZoneId.of(zone)).toInstant()
+                .toEpochMilli();
+    }
+
+    private static long millis(String localDateTime, int offsetMinutes) {
+        return LocalDateTime.parse(localDateTime)
+                .atOffset(ZoneOffset.ofTotalSeconds(offsetMinutes * 60)).toInstant()
+                .toEpochMilli();
+    }
+
+    /*
+     * The Calendar-based matcher CronFormat used before patterns were compiled into bitsets.
+     */
+    private static boolean calendarMatches(CronFormat cron, long timestampMillis) {
+        Calendar cal = Calendar.getInstance(cron.getTimeZone());
+        cal.setTimeInMillis(timestampMillis);
+        int dow = cal.get(Calendar.DAY_OF_WEEK) == Calendar.SUNDAY ? CronFormat.SUNDAY
+                : cal.get(Calendar.DAY_OF_WEEK) - 1;
+        return CronFormat.matches(cal.get(Calendar.SECOND), cron.getSecond())
+                && CronFormat.matches(cal.get(Calendar.MINUTE), cron.getMinute())
+                && CronFormat.matches(cal.get(Calendar.HOUR_OF_DAY), cron.getHour())
+                && CronFormat.matches(cal.get(Calendar.DAY_OF_MONTH), cron.getDayOfMonth())
+                && CronFormat.matchesMonth(cal.get(Calendar.MONTH) + 1, cron.getMonth())
+                && CronFormat.matchesDow(dow, cron.getDayOfWeek());
+    }
+
+    private static void assertSameAsCalendar(CronFormat cron, long from, long to, long stepMs) {
+        for (long t = from; t < to; t += stepMs) {
+            assertEquals(cron.getTimeZone().getID() + " " + t, calendarMatches(cron, t),
+                    cron.matches(t));
+        }
+    }
+
+    @Test
+    public void testMatchesSameAsCalendar() {
+        long from = millis("1968-01-01T00:00:00", "UTC");
+        long to = millis("2030-01-01T00:00:00", "UTC");
+        for (String zone : ZONES) {
+            for (String pattern : PATTERNS) {
+                // odd step, so that all seconds/minutes/hours/days are hit over the range
+                assertSameAsCalendar(cron(pattern, zone), from, to, 99991_337L);
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesSameAsCalendarAroundDstTransitions() {
+        String[][] transitions = { { "America/New_York", "2021-03-14T07:00:00" },
+                { "America/New_York", "2021-11-07T06:00:00" },
+                { "Australia/Lord_Howe", "2021-04-03T15:00:00" },
+                { "Australia/Lord_Howe", "2021-10-02T15:30:00" } };
+        for (String[] transition : transitions) {
+            long at = millis(transition[1], "UTC");
+            for (String pattern : PATTERNS) {
+                assertSameAsCalendar(cron(pattern, transition[0]), at - 7200_000L,
+                        at + 7200_000L, 1000L);
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesLeapDay() {
+        CronFormat cron = cron("0 0 12 29 Feb *", "UTC");
+        assertTrue(cron.matches(millis("2024-02-29T12:00:00", "UTC")));
+        assertTrue(cron.matches(millis("2000-02-29T12:00:00", "UTC")));
+        assertFalse(cron.matches(millis("2023-03-01T12:00:00", "UTC")));
+        assertFalse(cron.matches(millis("2024-03-01T12:00:00", "UTC")));
+    }
+
+    @Test
+    public void testMatchesDayOfWeekBeforeEpoch() {
+        // 1969-12-28 was a Sunday
+        CronFormat cron = cron("0 0 0 * * Sun", "UTC");
+        assertTrue(cron.matches(millis("1969-12-28T00:00:00", "UTC")));
+        assertFalse(cron.matches(millis("1969-12-29T00:00:00", "UTC")));
+    }
+
+    /*
+     * Brute-force: first whole second strictly after a timestamp that matches.
+     */
+    private static long bruteForceNext(CronFormat cron, long afterMillis, long limitMs) {
+        for (long t = Math.floorDiv(afterMillis, 1000L) * 1000 + 1000; t < afterMillis
+                + limitMs; t += 1000) {
+            if (cron.matches(t)) {
+                return t;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void testNextFireTimeSameAsBruteForce() {
+        String[] patterns = { "* * * * * *", "*/7 */13 */5 * * *", "0 */15 * * * *",
+                "10-20 5 * * * *" };
+        for (String zone : ZONES) {
+            long t = millis("2021-06-15T00:00:00.250", zone);
+            for (String pattern : patterns) {
+                CronFormat cron = cron(pattern, zone);
+                long after = t;
+                for (int i = 0; i < 50; i++) {
+                    long expected = bruteForceNext(cron, after, 86400_000L);
+                    assertEquals(zone + " " + pattern + " " + after, expected,
+                            cron.nextFireTime(after));
+                    after = expected;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNextFireTimeRollover() {
+        // minute, hour, day, month and year rollover
+        assertEquals(millis("2022-01-01T00:00:00", "UTC"),
+                cron("0 0 0 1 * *", "UTC").nextFireTime(millis("2021-12-31T23:59:59", "UTC")));
+        assertEquals(millis("2021-05-01T00:00:00", "UTC"),
+                cron("0 0 0 * * *", "UTC").nextFireTime(millis("2021-04-30T00:00:00", "UTC")));
+        assertEquals(millis("2022-12-31T23:59:59", "UTC"), cron("59 59 23 31 Dec *", "UTC")
+                .nextFireTime(millis("2021-12-31T23:59:59", "UTC")));
+        // strictly after, including a timestamp with milliseconds within the matching second
+        assertEquals(millis("2021-01-01T00:00:01", "UTC"),
+                cron("* * * * * *", "UTC").nextFireTime(millis("2021-01-01T00:00:00.999", "UTC")));
+    }
+
+    @Test
+    public void testNextFireTimeLeapDay() {
+        CronFormat cron = cron("0 0 12 29 Feb *", "UTC");
+        long next = cron.nextFireTime(millis("2021-01-01T00:00:00", "UTC"));
+        assertEquals(millis("2024-02-29T12:00:00", "UTC"), next);
+        assertEquals(millis("2028-02-29T12:00:00", "UTC"), cron.nextFireTime(next));
+    }
+
+    @Test
+    public void testNextFireTimeDayOfMonthAndDayOfWeek() {
+        // Friday 13th
+        assertEquals(millis("2021-08-13T00:00:00", "UTC"),
+                cron("0 0 0 13 * Fri", "UTC").nextFireTime(millis("2021-01-01T00:00:00", "UTC")));
+    }
+
+    @Test
+    public void testNextFireTimeNeverMatches() {
+        long now = millis("2021-01-01T00:00:00", "UTC");
+        assertEquals(-1, cron("0 0 0 31 Feb *", "UTC").nextFireTime(now));
+        assertEquals(-1, cron("0 0 0 30 2 *", "UTC").nextFireTime(now));
+        assertEquals(-1, cron("0 0 0 31 Apr,Jun,Sep,Nov *", "UTC").nextFireTime(now));
+    }
+
+    @Test
+    public void testDstNewYork() {
+        String zone = "America/New_York";
+        // 2021-03-14: 02:00 EST -> 03:00 EDT, 02:30 does not exist: fires once, shifted by the gap
+        CronFormat gap = cron("0 30 2 * * *", zone);
+        long next = gap.nextFireTime(millis("2021-03-14T00:00:00", zone));
+        assertEquals(millis("2021-03-14T03:30:00", -4 * 60), next);
+        assertEquals(millis("2021-03-15T02:30:00", zone), gap.nextFireTime(next));
+        assertFalse(gap.matches(next));
+
+        // 2021-11-07: 02:00 EDT -> 01:00 EST, 01:30 happens twice: both match, fires once
+        CronFormat overlap = cron("0 30 1 * * *", zone);
+        long edt = millis("2021-11-07T01:30:00", -4 * 60);
+        long est = millis("2021-11-07T01:30:00", -5 * 60);
+        assertTrue(overlap.matches(edt));
+        assertTrue(overlap.matches(est));
+        assertEquals(edt, overlap.nextFireTime(millis("2021-11-07T00:00:00", zone)));
+        assertEquals(millis("2021-11-08T01:30:00", zone), overlap.nextFireTime(edt));
+
+        // hourly schedule across the overlap: 01:00 EDT, 02:00 EST (01:00 EST is skipped)
+        CronFormat hourly = cron("0 0 * * * *", zone);
+        long oneEdt = millis("2021-11-07T01:00:00", -4 * 60);
+        assertEquals(millis("2021-11-07T02:00:00", -5 * 60), hourly.nextFireTime(oneEdt));
+    }
+
+    @Test
+    public void testDstLordHowe() {
+        // Lord Howe Island shifts by 30 minutes: +10:30 standard, +11:00 daylight saving
+        String zone = "Australia/Lord_Howe";
+        // 2021-10-03: 02:00 +10:30 -> 02:30 +11:00, 02:15 does not exist
+        CronFormat gap = cron("0 15 2 * * *", zone);
+        long next = gap.nextFireTime(millis("2021-10-03T00:00:00", zone));
+        assertEquals(millis("2021-10-03T02:45:00", 11 * 60), next);
+        assertEquals(millis("2021-10-04T02:15:00", zone), gap.nextFireTime(next));
+
+        // 2021-04-04: 02:00 +11:00 -> 01:30 +10:30, 01:45 happens twice: both match, fires once
+        CronFormat overlap = cron("0 45 1 * * *", zone);
+        long dst = millis("2021-04-04T01:45:00", 11 * 60);
+        long std = millis("2021-04-04T01:45:00", 10 * 60 + 30);
+        assertTrue(overlap.matches(dst));
+        assertTrue(overlap.matches(std));
+        assertEquals(dst, overlap.nextFireTime(millis("2021-04-04T00:00:00", zone)));
+        assertEquals(millis("2021-04-05T01:45:00", zone), overlap.nextFireTime(dst));
+
+        // every 10 minutes across the gap: 01:50 +10:30 then 02:30 +11:00
+        CronFormat every10 = cron("0 */10 * * * *", zone);
+        assertEquals(millis("2021-10-03T02:30:00", 11 * 60),
+                every10.nextFireTime(millis("2021-10-03T01:50:00", 10 * 60 + 30)));
+    }
+
+    @Test
+    public void testTimeZone() {
+        long t = millis("2021-06-15T12:00:00", "UTC");
+        assertTrue(cron("0 0 12 * * *", "UTC").matches(t));
+        assertFalse(cron("0 0 12 * * *", "Asia/Kolkata").matches(t));
+        assertTrue(cron("0 30 17 * * *", "Asia/Kolkata").matches(t));
+        assertEquals(ZonedDateTime.parse("2021-06-15T17:30:00+05:30").toInstant().toEpochMilli(),
+                cron("0 30 17 * * *", "Asia/Kolkata").nextFireTime(t - 1000));
+    }
+}
@@ -0,0 +1,90 @@
+package qnd;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.SerializationUtils;
+
+import akka.TickMessage;
+import akka.cluster.DistributedDataManager.DDGetResult;
+import akka.cluster.DistributedDataManager.DDLease;
+import akka.cluster.DistributedDataManager.DDLock;
+import akka.cluster.DistributedDataManager.DDTags;
+import akka.cluster.serialization.ClusterMessageSerializer;
+
+/**
+ * Bytes/message and serialization ns/op of {@link ClusterMessageSerializer} vs Java
+ * serialization.
+ */
+public class QndClusterMessageSerializer {
+
+    private final static int WARMUP = 200000;
+    private final static int ITERATIONS = 1000000;
+
+    private static long benchmark(Runnable op) {
+        for (int i = 0; i < WARMUP; i++) {
+            op.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            op.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    /*
+     * Tags are written in map order, which depends on the map's capacity: compare ticks field by
+     * field, other messages byte by byte.
+     */
+    private static boolean sameMessage(Object msg, Object back,
+            ClusterMessageSerializer serializer) {
+        if (msg instanceof TickMessage && back instanceof TickMessage) {
+            TickMessage a = (TickMessage) msg, b = (TickMessage) back;
+            return a.id == b.id && a.timestampMs == b.timestampMs
+                    && Objects.equals(a.sender, b.sender) && a.getTags().equals(b.getTags());
+        }
+        return Arrays.equals(serializer.toBinary(msg), serializer.toBinary(back));
+    }
+
+    private static void run(String name, Serializable msg, ClusterMessageSerializer serializer) {
+        String manifest = serializer.manifest(msg);
+        byte[] compact = serializer.toBinary(msg);
+        byte[] java = SerializationUtils.serialize(msg);
+        Object back = serializer.fromBinary(compact, manifest);
+        if (!sameMessage(msg, back, serializer)) {
+            throw new IllegalStateException("Round-trip failed for " + name + ": " + back);
+        }
+
+        long compactSer = benchmark(() -> serializer.toBinary(msg));
+        long compactDeser = benchmark(() -> serializer.fromBinary(compact, manifest));
+        long javaSer = benchmark(() -> SerializationUtils.serialize(msg));
+        long javaDeser = benchmark(() -> SerializationUtils.deserialize(java));
+        System.out.println(String.format("%-12s compact: %4d bytes, %5d/%5d ns/op (ser/deser)"
+                + " | java: %4d bytes, %5d/%5d ns/op", name, compact.length, compactSer,
+                compactDeser, java.length, javaSer, javaDeser));
+    }
+
+    public static void main(String[] args) {
+        ClusterMessageSerializer serializer = new ClusterMessageSerializer();
+
+        TickMessage tick = new TickMessage(System.currentTimeMillis(),
+                "akka://MyCluster/user/akka.cluster.MasterActor");
+        TickMessage taggedTick = new TickMessage(System.currentTimeMillis(), null)
+                .addTag("attempt", 1).addTag("source", "qnd");
+        DDLock lock = new DDLock("1234567890", 60, TimeUnit.SECONDS);
+        DDLease lease = new DDLease("akka.tcp://MyCluster@127.0.0.1:9051/user/worker", 42, 7,
+                30000);
+        DDTags tags = new DDTags("SampleSingletonClusterWorker-lock");
+        DDGetResult getResult = DDGetResult.ok(tags.getId(), tags.getKey(),
+                Arrays.<Object> asList(lock));
+
+        run("TickMessage", tick, serializer);
+        run("TickMessage+", taggedTick, serializer);
+        run("DDLock", lock, serializer);
+        run("DDLease", lease, serializer);
+        run("DDTags", tags, serializer);
+        run("DDGetResult", getResult, serializer);
+    }
+}